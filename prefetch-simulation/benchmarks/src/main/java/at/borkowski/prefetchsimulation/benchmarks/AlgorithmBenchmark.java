@@ -0,0 +1,65 @@
+package at.borkowski.prefetchsimulation.benchmarks;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.borkowski.prefetchsimulation.Request;
+import at.borkowski.prefetchsimulation.algorithms.PrefetchAlgorithm;
+import at.borkowski.prefetchsimulation.members.aux.RatePredictionServiceProvider;
+
+/**
+ * Measures a full {@link PrefetchAlgorithm#schedule} call, as performed by the
+ * fetch processor whenever the schedule is recomputed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlgorithmBenchmark {
+   private static final long HORIZON = 1_000_000;
+
+   @Param({ "null", "start-at-deadline", "ignore", "respect" })
+   public String algorithm;
+
+   @Param({ "10", "100", "1000" })
+   public int requestCount;
+
+   /**
+    * The number of ticks between two entries of the rate prediction.
+    */
+   @Param({ "10", "1000" })
+   public long predictionGranularity;
+
+   private PrefetchAlgorithm sut;
+   private List<Request> requests;
+   private RatePredictionServiceProvider ratePredictionService;
+
+   @Setup
+   public void setUp() {
+      sut = Scenarios.algorithm(algorithm);
+      sut.configure(new HashMap<>());
+      requests = Scenarios.requests(requestCount, HORIZON);
+      ratePredictionService = new RatePredictionServiceProvider(Scenarios.predictions(predictionGranularity, HORIZON));
+   }
+
+   @Benchmark
+   public Map<Request, Long> schedule() {
+      return sut.schedule(requests, ratePredictionService);
+   }
+}
@@ -0,0 +1,59 @@
+package at.borkowski.prefetchsimulation.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.borkowski.prefetchsimulation.configuration.Configuration;
+import at.borkowski.prefetchsimulation.configuration.ConfigurationException;
+import at.borkowski.prefetchsimulation.genesis.Genesis;
+import at.borkowski.prefetchsimulation.genesis.GenesisGenerator;
+import at.borkowski.prefetchsimulation.util.RandomEngine;
+
+/**
+ * Measures the generation of a genesis from a configuration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenesisGeneratorBenchmark {
+   @Param({ "36000", "360000" })
+   public long ticks;
+
+   @Param({ "false", "true" })
+   public boolean parallel;
+
+   @Param({ "LEGACY", "XOROSHIRO" })
+   public RandomEngine engine;
+
+   private Configuration configuration;
+
+   @Setup
+   public void setUp() throws IOException, ConfigurationException {
+      configuration = Scenarios.configuration(ticks, "respect");
+      configuration.setRandomEngine(engine);
+   }
+
+   @Benchmark
+   public Genesis generate() {
+      GenesisGenerator generator = new GenesisGenerator(configuration);
+      generator.setCache(null);
+      generator.setParallel(parallel);
+      generator.seed(Scenarios.SEED);
+      return generator.generate();
+   }
+}
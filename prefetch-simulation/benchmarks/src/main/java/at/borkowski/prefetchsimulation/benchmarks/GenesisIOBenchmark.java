@@ -0,0 +1,87 @@
+package at.borkowski.prefetchsimulation.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.borkowski.prefetchsimulation.configuration.ConfigurationException;
+import at.borkowski.prefetchsimulation.genesis.BinaryGenesisReader;
+import at.borkowski.prefetchsimulation.genesis.BinaryGenesisWriter;
+import at.borkowski.prefetchsimulation.genesis.Genesis;
+import at.borkowski.prefetchsimulation.genesis.GenesisException;
+import at.borkowski.prefetchsimulation.genesis.GenesisReader;
+import at.borkowski.prefetchsimulation.genesis.GenesisWriter;
+
+/**
+ * Measures reading and writing of large genesis files. The files are held in
+ * memory, so that only parsing and formatting are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenesisIOBenchmark {
+   @Param({ "36000", "360000" })
+   public long ticks;
+
+   private Genesis genesis;
+   private byte[] file, binaryFile;
+
+   @Setup
+   public void setUp() throws IOException, ConfigurationException {
+      genesis = Scenarios.genesis(ticks, "respect");
+
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      new GenesisWriter(output).write(genesis);
+      file = output.toByteArray();
+
+      output = new ByteArrayOutputStream();
+      new BinaryGenesisWriter(output).write(genesis);
+      binaryFile = output.toByteArray();
+   }
+
+   @Benchmark
+   public Genesis read() throws IOException, GenesisException {
+      return new GenesisReader(new ByteArrayInputStream(file)).read();
+   }
+
+   @Benchmark
+   public void write() throws IOException {
+      new GenesisWriter(new NullOutputStream()).write(genesis);
+   }
+
+   @Benchmark
+   public Genesis readBinary() throws GenesisException {
+      return new BinaryGenesisReader(ByteBuffer.wrap(binaryFile)).read();
+   }
+
+   @Benchmark
+   public void writeBinary() throws IOException {
+      new BinaryGenesisWriter(new NullOutputStream()).write(genesis);
+   }
+
+   private static class NullOutputStream extends OutputStream {
+      @Override
+      public void write(int b) {}
+
+      @Override
+      public void write(byte[] b, int off, int len) {}
+   }
+}
@@ -0,0 +1,76 @@
+package at.borkowski.prefetchsimulation.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import at.borkowski.prefetchsimulation.members.aux.RatePredictionCursor;
+import at.borkowski.prefetchsimulation.members.aux.RatePredictionServiceProvider;
+
+/**
+ * Measures rate prediction lookups, both at random ticks and as a backward
+ * walk over consecutive ticks (as performed by the scheduling algorithms).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RatePredictionBenchmark {
+   private static final long HORIZON = 1_000_000;
+   private static final int LOOKUPS = 1024;
+
+   @Param({ "10", "1000" })
+   public long predictionGranularity;
+
+   private RatePredictionServiceProvider sut;
+   private long[] ticks;
+
+   @Setup
+   public void setUp() {
+      sut = new RatePredictionServiceProvider(Scenarios.predictions(predictionGranularity, HORIZON));
+
+      Random random = new Random(Scenarios.SEED);
+      ticks = new long[LOOKUPS];
+      for (int i = 0; i < LOOKUPS; i++)
+         ticks[i] = (long) (random.nextDouble() * HORIZON);
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(LOOKUPS)
+   public void predictRandom(Blackhole blackhole) {
+      for (long tick : ticks)
+         blackhole.consume(sut.predict(tick));
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(LOOKUPS)
+   public void predictSequential(Blackhole blackhole) {
+      long start = HORIZON / 2;
+      for (long tick = start; tick > start - LOOKUPS; tick--)
+         blackhole.consume(sut.predict(tick));
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(LOOKUPS)
+   public void cursorSequential(Blackhole blackhole) {
+      RatePredictionCursor cursor = sut.cursor();
+      long start = HORIZON / 2;
+      for (long tick = start; tick > start - LOOKUPS; tick--)
+         blackhole.consume(cursor.seek(tick));
+   }
+}
@@ -0,0 +1,109 @@
+package at.borkowski.prefetchsimulation.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import at.borkowski.prefetchsimulation.RateTimeline;
+import at.borkowski.prefetchsimulation.Request;
+import at.borkowski.prefetchsimulation.algorithms.IgnoreRatePredictionAlgorithm;
+import at.borkowski.prefetchsimulation.algorithms.NullAlgorithm;
+import at.borkowski.prefetchsimulation.algorithms.PrefetchAlgorithm;
+import at.borkowski.prefetchsimulation.algorithms.RespectRatePredictionAlgorithm;
+import at.borkowski.prefetchsimulation.algorithms.StartAtDeadlineAlgorithm;
+import at.borkowski.prefetchsimulation.configuration.Configuration;
+import at.borkowski.prefetchsimulation.configuration.ConfigurationException;
+import at.borkowski.prefetchsimulation.configuration.ConfigurationReader;
+import at.borkowski.prefetchsimulation.genesis.Genesis;
+import at.borkowski.prefetchsimulation.genesis.GenesisGenerator;
+
+/**
+ * Deterministic inputs shared by the benchmarks. All data is derived from
+ * fixed seeds, so that runs before and after a change measure the same work.
+ */
+final class Scenarios {
+   static final long SEED = 199100;
+
+   private Scenarios() {}
+
+   /**
+    * Creates a configuration modeled after the regression base configuration,
+    * scaled to the given number of ticks with roughly one request every 1500
+    * ticks.
+    */
+   static Configuration configuration(long ticks, String algorithm) throws IOException, ConfigurationException {
+      StringBuilder sb = new StringBuilder();
+      sb.append("seed ").append(SEED).append('\n');
+      sb.append("ticks ").append(ticks).append('\n');
+      sb.append("byterate u/30/200\n");
+      sb.append("slot-length ~/120/30\n");
+      sb.append("network-uptime 0.95\n");
+      sb.append("relative-jitter ~/0/0.05\n");
+      sb.append("absolute-jitter 0\n");
+      sb.append("relative-prediction-time-error ~/0/0.05\n");
+      sb.append("relative-prediction-amplitude-error ~/0/0.05\n");
+      sb.append("absolute-prediction-time-error 0\n");
+      sb.append("absolute-prediction-amplitude-error 0\n");
+      sb.append("look-ahead ").append(ticks / 2).append('\n');
+      sb.append("algorithm ").append(algorithmClass(algorithm).getName()).append('\n');
+      sb.append("request-series interval ~/1530/50 size 1967 byterate u/30/200 start 0 end ").append(ticks - 1).append('\n');
+
+      return new ConfigurationReader(new ByteArrayInputStream(sb.toString().getBytes(StandardCharsets.UTF_8))).read();
+   }
+
+   static Genesis genesis(long ticks, String algorithm) throws IOException, ConfigurationException {
+      GenesisGenerator generator = new GenesisGenerator(configuration(ticks, algorithm));
+      generator.seed(SEED);
+      return generator.generate();
+   }
+
+   /**
+    * Creates requests with distinct deadlines spread over the given horizon.
+    */
+   static List<Request> requests(int count, long horizon) {
+      Random random = new Random(SEED);
+      List<Request> requests = new ArrayList<>(count);
+      long step = Math.max(1, horizon / count);
+      for (int i = 0; i < count; i++)
+         requests.add(new Request(i * step + random.nextInt((int) step), 500 + random.nextInt(3000), 30 + random.nextInt(170)));
+      return requests;
+   }
+
+   /**
+    * Creates a prediction timeline with an entry every
+    * <code>granularity</code> ticks.
+    */
+   static RateTimeline predictions(long granularity, long horizon) {
+      Random random = new Random(SEED + 1);
+      RateTimeline.Builder builder = RateTimeline.builder();
+      for (long tick = 0; tick < horizon; tick += granularity)
+         builder.putRaw(tick, random.nextInt(20) == 0 ? 0 : 30 + random.nextInt(170));
+      return builder.build();
+   }
+
+   static PrefetchAlgorithm algorithm(String name) {
+      try {
+         return algorithmClass(name).newInstance();
+      } catch (InstantiationException | IllegalAccessException e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   private static Class<? extends PrefetchAlgorithm> algorithmClass(String name) {
+      switch (name) {
+         case "null":
+            return NullAlgorithm.class;
+         case "start-at-deadline":
+            return StartAtDeadlineAlgorithm.class;
+         case "ignore":
+            return IgnoreRatePredictionAlgorithm.class;
+         case "respect":
+            return RespectRatePredictionAlgorithm.class;
+         default:
+            throw new IllegalArgumentException("unknown algorithm: " + name);
+      }
+   }
+}
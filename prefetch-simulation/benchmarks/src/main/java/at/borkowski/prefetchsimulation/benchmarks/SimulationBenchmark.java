@@ -0,0 +1,56 @@
+package at.borkowski.prefetchsimulation.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.borkowski.prefetchsimulation.PrefetchSimulationBuilder;
+import at.borkowski.prefetchsimulation.configuration.ConfigurationException;
+import at.borkowski.prefetchsimulation.genesis.Genesis;
+import at.borkowski.prefetchsimulation.profiling.PrefetchProfilingResults;
+
+/**
+ * Measures a complete simulation run of a generated genesis, including the
+ * creation of the simulation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulationBenchmark {
+   @Param({ "null", "start-at-deadline", "ignore", "respect" })
+   public String algorithm;
+
+   @Param({ "36000" })
+   public long ticks;
+
+   @Param({ "false", "true" })
+   public boolean eventDriven;
+
+   private Genesis genesis;
+
+   @Setup
+   public void setUp() throws IOException, ConfigurationException {
+      genesis = Scenarios.genesis(ticks, algorithm);
+   }
+
+   @Benchmark
+   public PrefetchProfilingResults executeToEnd() {
+      PrefetchSimulationBuilder builder = PrefetchSimulationBuilder.fromGenesis(genesis).eventDriven(eventDriven);
+      builder.create().executeToEnd();
+      return builder.getProfiling();
+   }
+}
@@ -0,0 +1,113 @@
+package at.borkowski.prefetchsimulation;
+
+/**
+ * The eviction policies of a bounded client cache. A policy assigns each
+ * cached request a priority whenever it is saved or consumed; when space is
+ * needed, the request with the smallest priority is evicted first.
+ */
+public enum CachePolicy {
+   /**
+    * Evicts the request saved or consumed least recently.
+    */
+   LRU("lru") {
+      @Override
+      public long priority(Request request, long tick, long accesses, boolean consumed, double inflation) {
+         return tick;
+      }
+   },
+   /**
+    * Evicts the request saved or consumed least often.
+    */
+   LFU("lfu") {
+      @Override
+      public long priority(Request request, long tick, long accesses, boolean consumed, double inflation) {
+         return accesses;
+      }
+   },
+   /**
+    * Evicts requests already consumed by the client code first, then the
+    * request with the latest deadline, i.e. the one needed last.
+    */
+   DEADLINE("deadline") {
+      @Override
+      public long priority(Request request, long tick, long accesses, boolean consumed, double inflation) {
+         return consumed ? Long.MIN_VALUE : -request.getDeadline();
+      }
+   },
+   /**
+    * Greedy-Dual-Size-Frequency with uniform cost: evicts the request with
+    * the smallest <code>L + accesses / size</code>, where <code>L</code> is
+    * the value of the last request evicted.
+    */
+   GDSF("gdsf") {
+      @Override
+      public long priority(Request request, long tick, long accesses, boolean consumed, double inflation) {
+         // the bits of non-negative doubles are ordered like their values
+         return Double.doubleToLongBits(inflation + (double) accesses / Math.max(1, request.getData()));
+      }
+
+      @Override
+      public double inflation(long priority) {
+         return Double.longBitsToDouble(priority);
+      }
+   };
+
+   private final String name;
+
+   private CachePolicy(String name) {
+      this.name = name;
+   }
+
+   /**
+    * Returns the priority of a cached request.
+    * 
+    * @param request
+    *           the request
+    * @param tick
+    *           the current tick
+    * @param accesses
+    *           the number of times the request has been saved or consumed
+    *           since it entered the cache
+    * @param consumed
+    *           whether the client code has consumed the request
+    * @param inflation
+    *           the current inflation value (see {@link #inflation(long)})
+    * @return the priority
+    */
+   public abstract long priority(Request request, long tick, long accesses, boolean consumed, double inflation);
+
+   /**
+    * Returns the inflation value after evicting a request.
+    * 
+    * @param priority
+    *           the priority of the evicted request
+    * @return the inflation value, which is 0 for policies not aging entries
+    */
+   public double inflation(long priority) {
+      return 0;
+   }
+
+   /**
+    * Returns the name of the policy as used in configurations and geneses.
+    * 
+    * @return the name
+    */
+   public String getName() {
+      return name;
+   }
+
+   /**
+    * Returns the policy of a name.
+    * 
+    * @param name
+    *           the name as used in configurations and geneses
+    * @return the policy, or <code>null</code> if there is none with the given
+    *         name
+    */
+   public static CachePolicy forName(String name) {
+      for (CachePolicy policy : values())
+         if (policy.name.equals(name))
+            return policy;
+      return null;
+   }
+}
@@ -0,0 +1,120 @@
+package at.borkowski.prefetchsimulation;
+
+/**
+ * The options of the fetch client which are part of a genesis: the capacity
+ * and eviction policy of its cache, the number of requests it fetches at the
+ * same time and the window within which scheduled requests are fetched
+ * together. Instances are immutable; the <code>with</code> methods return
+ * modified copies.
+ */
+public final class ClientOptions {
+   /**
+    * The capacity of a cache which never evicts.
+    */
+   public static final long UNBOUNDED = Long.MAX_VALUE;
+
+   /**
+    * The batch window with which each request is fetched in its own transfer.
+    */
+   public static final long NO_BATCHING = -1;
+
+   /**
+    * The options of a client with an unbounded cache, one fetch slot and no
+    * batching.
+    */
+   public static final ClientOptions DEFAULT = new ClientOptions(UNBOUNDED, CachePolicy.LRU, 1, NO_BATCHING);
+
+   private final long cacheSize;
+   private final CachePolicy cachePolicy;
+   private final int fetchSlots;
+   private final long batchWindow;
+
+   /**
+    * Creates client options.
+    * 
+    * @param cacheSize
+    *           the capacity of the cache in bytes, or {@link #UNBOUNDED}
+    * @param cachePolicy
+    *           the eviction policy of the cache
+    * @param fetchSlots
+    *           the number of requests fetched at the same time
+    * @param batchWindow
+    *           the batch window in ticks, or {@link #NO_BATCHING}
+    */
+   public ClientOptions(long cacheSize, CachePolicy cachePolicy, int fetchSlots, long batchWindow) {
+      if (cacheSize < 0)
+         throw new IllegalArgumentException("negative cache capacity: " + cacheSize);
+      if (cachePolicy == null)
+         throw new NullPointerException("cache policy");
+      if (fetchSlots < 1)
+         throw new IllegalArgumentException("at least one fetch slot required: " + fetchSlots);
+      if (batchWindow < 0 && batchWindow != NO_BATCHING)
+         throw new IllegalArgumentException("negative batch window: " + batchWindow);
+
+      this.cacheSize = cacheSize;
+      this.cachePolicy = cachePolicy;
+      this.fetchSlots = fetchSlots;
+      this.batchWindow = batchWindow;
+   }
+
+   public ClientOptions withCache(long cacheSize, CachePolicy cachePolicy) {
+      return new ClientOptions(cacheSize, cachePolicy, fetchSlots, batchWindow);
+   }
+
+   public ClientOptions withFetchSlots(int fetchSlots) {
+      return new ClientOptions(cacheSize, cachePolicy, fetchSlots, batchWindow);
+   }
+
+   public ClientOptions withBatchWindow(long batchWindow) {
+      return new ClientOptions(cacheSize, cachePolicy, fetchSlots, batchWindow);
+   }
+
+   /**
+    * Returns the capacity of the client's cache.
+    * 
+    * @return the capacity in bytes, or {@link #UNBOUNDED}
+    */
+   public long getCacheSize() {
+      return cacheSize;
+   }
+
+   public CachePolicy getCachePolicy() {
+      return cachePolicy;
+   }
+
+   /**
+    * Returns the number of requests the client fetches at the same time.
+    * 
+    * @return the number of fetch slots
+    */
+   public int getFetchSlots() {
+      return fetchSlots;
+   }
+
+   /**
+    * Returns the window within which scheduled requests are fetched together
+    * in one transfer.
+    * 
+    * @return the batch window in ticks, or {@link #NO_BATCHING}
+    */
+   public long getBatchWindow() {
+      return batchWindow;
+   }
+
+   @Override
+   public boolean equals(Object obj) {
+      if (!(obj instanceof ClientOptions))
+         return false;
+      ClientOptions other = (ClientOptions) obj;
+      return cacheSize == other.cacheSize && cachePolicy == other.cachePolicy && fetchSlots == other.fetchSlots && batchWindow == other.batchWindow;
+   }
+
+   @Override
+   public int hashCode() {
+      int hash = Long.hashCode(cacheSize);
+      hash = 31 * hash + cachePolicy.hashCode();
+      hash = 31 * hash + fetchSlots;
+      hash = 31 * hash + Long.hashCode(batchWindow);
+      return hash;
+   }
+}
@@ -0,0 +1,123 @@
+package at.borkowski.prefetchsimulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import at.borkowski.prefetchsimulation.algorithms.PrefetchAlgorithm;
+import at.borkowski.prefetchsimulation.genesis.Genesis;
+
+/**
+ * A pre-processed form of a {@link Genesis}. All data which does not depend on
+ * the prefetching algorithm (sorted requests, rate timelines and the like) is
+ * computed once, so that simulations of the same scenario with different
+ * algorithms can be created cheaply using
+ * {@link #createBuilder(PrefetchAlgorithm)}.
+ * 
+ * A compiled scenario is not modified after compilation, so builders may be
+ * created from it on several threads. The requests are not copied for each
+ * builder; all simulations created from the scenario share the same
+ * {@link Request} objects.
+ */
+public class CompiledScenario {
+   private final long ticks, lookAheadTime;
+   private final List<Request> requests;
+   private final RateTimeline rateReal;
+   private final RateTimeline ratePredicted;
+   private final Class<? extends PrefetchAlgorithm> algorithm;
+   private final Map<String, String> algorithmConfiguration;
+   private final ClientOptions clientOptions;
+
+   private CompiledScenario(Genesis genesis) {
+      ticks = genesis.getTicks();
+      lookAheadTime = genesis.getLookAheadTime();
+      clientOptions = genesis.getClientOptions();
+      algorithm = genesis.getAlgorithm();
+
+      List<Request> sortedRequests = new ArrayList<>(genesis.getRequests());
+      Collections.sort(sortedRequests, Comparator.comparingLong(Request::getDeadline));
+      requests = Collections.unmodifiableList(sortedRequests);
+
+      rateReal = genesis.getRateReal();
+      ratePredicted = genesis.getRatePredicted();
+
+      Map<String, String> configuration = genesis.getAlgorithmConfiguration();
+      algorithmConfiguration = Collections.unmodifiableMap(configuration == null ? new HashMap<>() : new HashMap<>(configuration));
+   }
+
+   /**
+    * Compiles the given genesis. The genesis is not referenced by the result,
+    * so later modifications of it do not affect the compiled scenario.
+    * 
+    * @param genesis
+    *           the genesis to compile
+    * @return the compiled scenario
+    */
+   public static CompiledScenario compile(Genesis genesis) {
+      return new CompiledScenario(genesis);
+   }
+
+   /**
+    * Creates a simulation builder for this scenario, using the algorithm
+    * specified by the genesis.
+    * 
+    * @return the simulation builder
+    */
+   public PrefetchSimulationBuilder createBuilder() {
+      try {
+         return createBuilder(algorithm.newInstance());
+      } catch (InstantiationException | IllegalAccessException e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   /**
+    * Creates a simulation builder for this scenario, using the given
+    * algorithm. The algorithm is configured using the algorithm configuration
+    * of the scenario.
+    * 
+    * @param algorithm
+    *           the algorithm to use
+    * @return the simulation builder
+    */
+   public PrefetchSimulationBuilder createBuilder(PrefetchAlgorithm algorithm) {
+      PrefetchSimulationBuilder builder = new PrefetchSimulationBuilder(clientOptions.getFetchSlots());
+      builder.totalTicks(ticks);
+      builder.requests(requests);
+      builder.limitsReal(rateReal);
+      builder.limitsPredicted(ratePredicted);
+      builder.algorithm(algorithm);
+      builder.algorithmConfiguration(algorithmConfiguration);
+      builder.lookAheadTime(lookAheadTime);
+      builder.cache(clientOptions.getCacheSize(), clientOptions.getCachePolicy());
+      builder.batchWindow(clientOptions.getBatchWindow());
+
+      return builder;
+   }
+
+   public long getTicks() {
+      return ticks;
+   }
+
+   public long getLookAheadTime() {
+      return lookAheadTime;
+   }
+
+   /**
+    * Returns the requests of this scenario, sorted by deadline. The builders
+    * created from this scenario add them in this order, so the id of a
+    * request in a simulation is its position in the list.
+    * 
+    * @return the unmodifiable list of requests
+    */
+   public List<Request> getRequests() {
+      return requests;
+   }
+
+   public Class<? extends PrefetchAlgorithm> getAlgorithm() {
+      return algorithm;
+   }
+}
@@ -1,8 +1,10 @@
 package at.borkowski.prefetchsimulation;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import at.borkowski.prefetchsimulation.algorithms.PrefetchAlgorithm;
@@ -30,11 +32,13 @@ public class PrefetchSimulationBuilder {
    private static final String SOCKET_NAME = "fetch";
 
    private static final long BASE_DELAY = 2;
+   private final List<String> socketNames;
+   private final RequestIndex requestIndex = new RequestIndex();
    private final FetchClient fetchClient;
    private final PrefetchProfilingServiceImpl profilingService;
    private final ServiceProvider<CommunicationService> communicationService;
-   private Map<Long, Integer> limitsReal = null;
-   private Map<Long, Integer> limitsPredicted = null;
+   private RateTimeline limitsReal = null;
+   private RateTimeline limitsPredicted = null;
    
    private Map<String, String> algorithmConfiguration = new HashMap<>();
 
@@ -49,17 +53,46 @@ public class PrefetchSimulationBuilder {
     * Creates a new builder with all parameters set to default.
     */
    public PrefetchSimulationBuilder() {
+      this(1);
+   }
+
+   /**
+    * Creates a new builder with all parameters set to default, except for the
+    * number of fetch slots. The client fetches up to this many requests at
+    * the same time, each over its own connection to the server; the real
+    * rate limits are shared fairly among the connections with a transfer in
+    * progress (see {@link RateSetter}).
+    * 
+    * @param fetchSlots
+    *           the number of fetch slots
+    */
+   public PrefetchSimulationBuilder(int fetchSlots) {
+      if (fetchSlots < 1)
+         throw new IllegalArgumentException("at least one fetch slot required: " + fetchSlots);
+      socketNames = getSocketNames(fetchSlots);
+
       builder.phase(RATE_PHASE);
       builder.phase(Simulation.TICK_PHASE);
       builder.phase(COMM_PHASE);
 
-      CommunicationServiceBuilder commBuilder = new CommunicationServiceBuilder().communicationPhase(COMM_PHASE).delay(SOCKET_NAME, BASE_DELAY).serializer(new VirtualPayloadSerializer());
+      CommunicationServiceBuilder commBuilder = new CommunicationServiceBuilder().communicationPhase(COMM_PHASE).serializer(new VirtualPayloadSerializer());
+      for (String socketName : socketNames)
+         commBuilder.delay(socketName, BASE_DELAY);
 
       builder.service(communicationService = commBuilder.create());
-      builder.service(profilingService = new PrefetchProfilingServiceImpl());
+      builder.service(profilingService = new PrefetchProfilingServiceImpl(requestIndex));
 
-      builder.member(new FetchServer(SOCKET_NAME));
-      builder.member(fetchClient = new FetchClient(SOCKET_NAME));
+      builder.member(new FetchServer(socketNames));
+      builder.member(fetchClient = new FetchClient(socketNames, requestIndex));
+   }
+
+   private static List<String> getSocketNames(int fetchSlots) {
+      // the first slot keeps the name of the single socket used before
+      List<String> socketNames = new ArrayList<>();
+      socketNames.add(SOCKET_NAME);
+      for (int slot = 1; slot < fetchSlots; slot++)
+         socketNames.add(SOCKET_NAME + "-" + slot);
+      return socketNames;
    }
 
    public static PrefetchSimulationBuilder fromGenesis(Genesis genesis) {
@@ -76,16 +109,7 @@ public class PrefetchSimulationBuilder {
    }
 
    private static PrefetchSimulationBuilder fromGenesis(Genesis genesis, PrefetchAlgorithm algorithm) {
-      PrefetchSimulationBuilder builder = new PrefetchSimulationBuilder();
-      builder.totalTicks(genesis.getTicks());
-      builder.requests(genesis.getRequests());
-      builder.limitsReal(genesis.getRateReal());
-      builder.limitsPredicted(genesis.getRatePredicted());
-      builder.algorithm(algorithm);
-      builder.algorithmConfiguration(genesis.getAlgorithmConfiguration());
-      builder.lookAheadTime(genesis.getLookAheadTime());
-
-      return builder;
+      return CompiledScenario.compile(genesis).createBuilder(algorithm);
    }
 
    /**
@@ -97,20 +121,23 @@ public class PrefetchSimulationBuilder {
       if (simulation != null)
          throw new IllegalStateException();
 
-      builder.service(rateSetter = new RateSetter(RATE_PHASE, SOCKET_NAME, limitsReal));
-      builder.service(ratePredictionServiceProvider = new RatePredictionServiceProvider(limitsPredicted));
+      rateSetter = new RateSetter(RATE_PHASE, socketNames, limitsReal);
+      builder.service(rateSetter);
+      ratePredictionServiceProvider = new RatePredictionServiceProvider(limitsPredicted);
+      builder.service(ratePredictionServiceProvider);
       return simulation = builder.create();
    }
 
    /**
-    * Adds an initial rate limit to the communication socket.
+    * Adds an initial rate limit to the communication sockets.
     * 
     * @param byteRate
     *           the rate in bytes per seconds, or <code>null</code> for no limit
     * @return this object
     */
    public PrefetchSimulationBuilder limitReal(Integer byteRate) {
-      communicationService.getService().setRates(SOCKET_NAME, byteRate, byteRate);
+      for (String socketName : socketNames)
+         communicationService.getService().setRates(socketName, byteRate, byteRate);
       return this;
    }
 
@@ -122,11 +149,26 @@ public class PrefetchSimulationBuilder {
     * @return this object
     */
    public PrefetchSimulationBuilder limitsReal(Map<Long, Integer> byteRates) {
+      return limitsReal(RateTimeline.of(byteRates));
+   }
+
+   /**
+    * Sets limitsReal at given points in time in the simulation.
+    * 
+    * @param byteRates
+    *           the timeline of limitsReal
+    * @return this object
+    */
+   public PrefetchSimulationBuilder limitsReal(RateTimeline byteRates) {
       this.limitsReal = byteRates;
       return this;
    }
 
    public PrefetchSimulationBuilder limitsPredicted(Map<Long, Integer> byteRates) {
+      return limitsPredicted(RateTimeline.of(byteRates));
+   }
+
+   public PrefetchSimulationBuilder limitsPredicted(RateTimeline byteRates) {
       this.limitsPredicted = byteRates;
       return this;
    }
@@ -144,13 +186,15 @@ public class PrefetchSimulationBuilder {
    }
 
    /**
-    * Adds requests to the simulation.
+    * Adds requests to the simulation. The requests are given ids in the
+    * order in which they are added (see {@link RequestIndex}).
     * 
     * @param requests
     *           the requests
     * @return this object
     */
    public PrefetchSimulationBuilder requests(Collection<Request> requests) {
+      requestIndex.addAll(requests);
       fetchClient.addRequests(requests);
       return this;
    }
@@ -185,11 +229,66 @@ public class PrefetchSimulationBuilder {
       fetchClient.getFetchProcessor().getAlgorithm().configure(this.algorithmConfiguration = algorithmConfiguration);
    }
 
+   /**
+    * Sets whether the simulation is event-driven. In event-driven mode,
+    * members skip the ticks before their next wake-up tick (the next
+    * deadline, scheduled fetch start or look-ahead window admission) instead
+    * of re-evaluating their state on every tick. The results are identical to
+    * those of the tick-by-tick mode.
+    * 
+    * @param eventDriven
+    *           <code>true</code> to enable the event-driven mode
+    * @return this object
+    */
+   public PrefetchSimulationBuilder eventDriven(boolean eventDriven) {
+      fetchClient.setEventDriven(eventDriven);
+      return this;
+   }
+
    public PrefetchSimulationBuilder lookAheadTime(long lookAheadTime) {
       fetchClient.getFetchProcessor().setLookAheadTime(lookAheadTime);
       return this;
    }
 
+   /**
+    * Bounds the client's cache. By default, the cache is unbounded.
+    * 
+    * @param size
+    *           the capacity in bytes, or {@link ClientOptions#UNBOUNDED}
+    * @param policy
+    *           the eviction policy
+    * @return this object
+    */
+   public PrefetchSimulationBuilder cache(long size, CachePolicy policy) {
+      fetchClient.getCacheProcessor().setCapacity(size);
+      fetchClient.getCacheProcessor().setPolicy(policy);
+      return this;
+   }
+
+   /**
+    * Lets the client fetch all requests scheduled to start within the given
+    * window in one transfer, paying the connection overhead only once. By
+    * default, each request is fetched on its own.
+    * 
+    * @param batchWindow
+    *           the batch window in ticks, or
+    *           {@link ClientOptions#NO_BATCHING}
+    * @return this object
+    */
+   public PrefetchSimulationBuilder batchWindow(long batchWindow) {
+      fetchClient.getFetchProcessor().setBatchWindow(batchWindow);
+      return this;
+   }
+
+   /**
+    * Returns the number of requests the client fetches at the same time.
+    * 
+    * @return the number of fetch slots
+    */
+   public int getFetchSlots() {
+      return socketNames.size();
+   }
+
    /**
     * Returns the profiling result object.
     * 
@@ -0,0 +1,386 @@
+package at.borkowski.prefetchsimulation;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable step function of byte rates over ticks. Each entry consists of
+ * a tick and the rate which becomes effective at that tick and stays effective
+ * until the next entry.
+ *
+ * Timelines created by {@link #of(Map)} and {@link #builder()} keep their
+ * entries in parallel primitive arrays sorted by tick, so that a timeline with
+ * many entries needs only a small fraction of the memory of an equivalent map
+ * and the rate effective at a tick can be looked up in logarithmic time.
+ * Subclasses may instead compute entries on demand, in which case only
+ * {@link #size()}, {@link #getTick(int)} and {@link #getRawRate(int)} need to
+ * be implemented. A rate of <code>null</code> (no limit) is stored as
+ * {@link #NO_LIMIT}, which is why {@link Integer#MIN_VALUE} cannot be used as
+ * an actual rate.
+ */
+public abstract class RateTimeline {
+   /**
+    * The raw rate representing no limit (<code>null</code>).
+    */
+   public static final int NO_LIMIT = Integer.MIN_VALUE;
+
+   private static final RateTimeline EMPTY = new ArrayRateTimeline(new long[0], new int[0]);
+
+   protected RateTimeline() {
+   }
+
+   public static RateTimeline empty() {
+      return EMPTY;
+   }
+
+   /**
+    * Creates a timeline from a map of ticks to rates.
+    *
+    * @param rates
+    *           the rates, <code>null</code> values meaning no limit
+    * @return the timeline
+    */
+   public static RateTimeline of(Map<Long, Integer> rates) {
+      Builder builder = new Builder(rates.size());
+      for (Map.Entry<Long, Integer> entry : rates.entrySet())
+         builder.put(entry.getKey(), entry.getValue());
+      return builder.build();
+   }
+
+   public static Builder builder() {
+      return new Builder(16);
+   }
+
+   /**
+    * Returns the number of entries.
+    *
+    * @return the number of entries
+    */
+   public abstract int size();
+
+   public boolean isEmpty() {
+      return size() == 0;
+   }
+
+   /**
+    * Returns the tick of an entry.
+    *
+    * @param index
+    *           the index of the entry, ordered by tick
+    * @return the tick at which the entry becomes effective
+    */
+   public abstract long getTick(int index);
+
+   /**
+    * Returns the rate of an entry.
+    *
+    * @param index
+    *           the index of the entry, ordered by tick
+    * @return the rate, or <code>null</code> for no limit
+    */
+   public Integer getRate(int index) {
+      return box(getRawRate(index));
+   }
+
+   /**
+    * Returns the rate of an entry without boxing it.
+    *
+    * @param index
+    *           the index of the entry, ordered by tick
+    * @return the rate, or {@link #NO_LIMIT}
+    */
+   public abstract int getRawRate(int index);
+
+   /**
+    * Returns the rate of the entry at exactly the given tick.
+    *
+    * @param tick
+    *           the tick
+    * @return the rate, or <code>null</code> if there is no entry at the given
+    *         tick or it has no limit
+    */
+   public Integer get(long tick) {
+      int index = floorIndex(tick);
+      return index < 0 || getTick(index) != tick ? null : box(getRawRate(index));
+   }
+
+   public boolean containsTick(long tick) {
+      int index = floorIndex(tick);
+      return index >= 0 && getTick(index) == tick;
+   }
+
+   /**
+    * Returns the rate effective at the given tick, ie. the rate of the latest
+    * entry not after the tick.
+    *
+    * @param tick
+    *           the tick
+    * @return the rate, or <code>null</code> if there is no such entry or it
+    *         has no limit
+    */
+   public Integer rateAt(long tick) {
+      int index = floorIndex(tick);
+      return index < 0 ? null : box(getRawRate(index));
+   }
+
+   /**
+    * Returns the index of the latest entry not after the given tick.
+    *
+    * @param tick
+    *           the tick
+    * @return the index, or -1 if all entries are after the tick
+    */
+   public int floorIndex(long tick) {
+      int index = search(tick);
+      return index >= 0 ? index : -index - 2;
+   }
+
+   /**
+    * Returns the index of the earliest entry not before the given tick.
+    *
+    * @param tick
+    *           the tick
+    * @return the index, or {@link #size()} if all entries are before the tick
+    */
+   public int ceilingIndex(long tick) {
+      int index = search(tick);
+      return index >= 0 ? index : -index - 1;
+   }
+
+   /**
+    * Searches for the entry at the given tick, with the same result as
+    * {@link Arrays#binarySearch(long[], long)} on the ticks.
+    */
+   protected int search(long tick) {
+      int low = 0, high = size() - 1;
+      while (low <= high) {
+         int mid = (low + high) >>> 1;
+         long midTick = getTick(mid);
+         if (midTick < tick)
+            low = mid + 1;
+         else if (midTick > tick)
+            high = mid - 1;
+         else
+            return mid;
+      }
+      return -(low + 1);
+   }
+
+   /**
+    * Calls the consumer for each entry whose tick lies in the given range, in
+    * ascending order of ticks.
+    *
+    * @param from
+    *           the first tick of the range (inclusive)
+    * @param to
+    *           the last tick of the range (inclusive)
+    * @param consumer
+    *           the consumer
+    */
+   public void forEach(long from, long to, EntryConsumer consumer) {
+      int size = size();
+      for (int i = ceilingIndex(from); i < size && getTick(i) <= to; i++)
+         consumer.accept(getTick(i), getRawRate(i));
+   }
+
+   public void forEach(EntryConsumer consumer) {
+      int size = size();
+      for (int i = 0; i < size; i++)
+         consumer.accept(getTick(i), getRawRate(i));
+   }
+
+   /**
+    * Returns the highest rate, ignoring entries without limit.
+    *
+    * @return the highest rate, or {@link #NO_LIMIT} if there is no entry with
+    *         a limit
+    */
+   public int getMaxRate() {
+      int max = NO_LIMIT;
+      int size = size();
+      for (int i = 0; i < size; i++)
+         max = Math.max(max, getRawRate(i));
+      return max;
+   }
+
+   /**
+    * Returns the entries as a sorted map. Intended for tests and tools, not
+    * for simulation code.
+    *
+    * @return a new map of ticks to rates
+    */
+   public Map<Long, Integer> toMap() {
+      Map<Long, Integer> map = new TreeMap<>();
+      int size = size();
+      for (int i = 0; i < size; i++)
+         map.put(getTick(i), box(getRawRate(i)));
+      return map;
+   }
+
+   @Override
+   public boolean equals(Object obj) {
+      if (this == obj)
+         return true;
+      if (!(obj instanceof RateTimeline))
+         return false;
+      RateTimeline other = (RateTimeline) obj;
+      int size = size();
+      if (size != other.size())
+         return false;
+      for (int i = 0; i < size; i++)
+         if (getTick(i) != other.getTick(i) || getRawRate(i) != other.getRawRate(i))
+            return false;
+      return true;
+   }
+
+   @Override
+   public int hashCode() {
+      int ticksHash = 1, ratesHash = 1;
+      int size = size();
+      for (int i = 0; i < size; i++) {
+         long tick = getTick(i);
+         ticksHash = 31 * ticksHash + (int) (tick ^ (tick >>> 32));
+         ratesHash = 31 * ratesHash + getRawRate(i);
+      }
+      return 31 * ticksHash + ratesHash;
+   }
+
+   @Override
+   public String toString() {
+      return toMap().toString();
+   }
+
+   private static Integer box(int rate) {
+      return rate == NO_LIMIT ? null : rate;
+   }
+
+   /**
+    * A timeline backed by parallel arrays of ticks and rates.
+    */
+   private static final class ArrayRateTimeline extends RateTimeline {
+      private final long[] ticks;
+      private final int[] rates;
+
+      ArrayRateTimeline(long[] ticks, int[] rates) {
+         this.ticks = ticks;
+         this.rates = rates;
+      }
+
+      @Override
+      public int size() {
+         return ticks.length;
+      }
+
+      @Override
+      public long getTick(int index) {
+         return ticks[index];
+      }
+
+      @Override
+      public int getRawRate(int index) {
+         return rates[index];
+      }
+
+      @Override
+      protected int search(long tick) {
+         return Arrays.binarySearch(ticks, tick);
+      }
+   }
+
+   /**
+    * Receives the entries of a timeline.
+    */
+   public interface EntryConsumer {
+      /**
+       * @param tick
+       *           the tick of the entry
+       * @param rate
+       *           the rate, or {@link RateTimeline#NO_LIMIT}
+       */
+      void accept(long tick, int rate);
+   }
+
+   /**
+    * Collects entries for a {@link RateTimeline}. Entries may be added in any
+    * order; if several entries are added for the same tick, the one added last
+    * takes effect, like with {@link Map#put(Object, Object)}.
+    */
+   public static class Builder {
+      private long[] ticks;
+      private int[] rates;
+      private int size = 0;
+      private boolean sorted = true;
+
+      private Builder(int capacity) {
+         ticks = new long[Math.max(capacity, 1)];
+         rates = new int[ticks.length];
+      }
+
+      /**
+       * Adds an entry.
+       *
+       * @param tick
+       *           the tick at which the rate becomes effective
+       * @param rate
+       *           the rate, or <code>null</code> for no limit
+       * @return this object
+       */
+      public Builder put(long tick, Integer rate) {
+         return putRaw(tick, rate == null ? NO_LIMIT : rate);
+      }
+
+      /**
+       * Adds an entry.
+       *
+       * @param tick
+       *           the tick at which the rate becomes effective
+       * @param rate
+       *           the rate, or {@link RateTimeline#NO_LIMIT}
+       * @return this object
+       */
+      public Builder putRaw(long tick, int rate) {
+         if (size > 0 && ticks[size - 1] == tick) {
+            rates[size - 1] = rate;
+            return this;
+         }
+
+         if (size == ticks.length) {
+            ticks = Arrays.copyOf(ticks, size * 2);
+            rates = Arrays.copyOf(rates, size * 2);
+         }
+         if (size > 0 && ticks[size - 1] > tick)
+            sorted = false;
+         ticks[size] = tick;
+         rates[size] = rate;
+         size++;
+         return this;
+      }
+
+      public RateTimeline build() {
+         if (size == 0)
+            return EMPTY;
+         if (sorted)
+            return new ArrayRateTimeline(Arrays.copyOf(ticks, size), Arrays.copyOf(rates, size));
+
+         // stable sort by tick, keeping the entry added last for each tick
+         Integer[] order = new Integer[size];
+         for (int i = 0; i < size; i++)
+            order[i] = i;
+         Arrays.sort(order, (a, b) -> Long.compare(ticks[a], ticks[b]));
+
+         long[] sortedTicks = new long[size];
+         int[] sortedRates = new int[size];
+         int count = 0;
+         for (int i = 0; i < size; i++) {
+            int index = order[i];
+            if (count > 0 && sortedTicks[count - 1] == ticks[index])
+               count--;
+            sortedTicks[count] = ticks[index];
+            sortedRates[count] = rates[index];
+            count++;
+         }
+         return new ArrayRateTimeline(Arrays.copyOf(sortedTicks, count), Arrays.copyOf(sortedRates, count));
+      }
+   }
+}
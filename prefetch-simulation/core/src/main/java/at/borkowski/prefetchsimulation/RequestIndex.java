@@ -0,0 +1,101 @@
+package at.borkowski.prefetchsimulation;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Assigns dense integer ids to requests and maps them back to the requests, so
+ * that per-request state can be kept in arrays and bit sets indexed by id
+ * instead of maps keyed by request.
+ * 
+ * Ids are assigned in the order in which requests are added, starting at 0.
+ * All members of a simulation share one index, which is filled with the
+ * requests of the scenario sorted by deadline (see {@link CompiledScenario}),
+ * so the id of a request is its position in that list. Requests are identified
+ * by reference, and the same request may have different ids in the indexes of
+ * different simulations.
+ */
+public final class RequestIndex {
+   /**
+    * The id of a request which has not been added to an index.
+    */
+   public static final int NO_ID = -1;
+
+   private static final int INITIAL_CAPACITY = 16;
+
+   private Request[] requests = new Request[INITIAL_CAPACITY];
+   private final Map<Request, Integer> ids = new IdentityHashMap<>();
+
+   /**
+    * Adds a request, assigning it the next id. Adding a request again has no
+    * effect.
+    * 
+    * @param request
+    *           the request
+    * @return the id of the request
+    */
+   public int add(Request request) {
+      Integer known = ids.get(request);
+      if (known != null)
+         return known;
+
+      int id = ids.size();
+      if (id == requests.length)
+         requests = Arrays.copyOf(requests, requests.length * 2);
+      requests[id] = request;
+      ids.put(request, id);
+      return id;
+   }
+
+   public void addAll(Collection<Request> requests) {
+      for (Request request : requests)
+         add(request);
+   }
+
+   /**
+    * Returns the id of a request.
+    * 
+    * @param request
+    *           the request
+    * @return the id, or {@link #NO_ID} if the request has not been added
+    */
+   public int idOf(Request request) {
+      Integer id = ids.get(request);
+      return id == null ? NO_ID : id;
+   }
+
+   /**
+    * Returns the request with the given id.
+    * 
+    * @param id
+    *           the id
+    * @return the request, or <code>null</code> if this index contains no
+    *         request with the given id
+    */
+   public Request get(int id) {
+      return id >= 0 && id < ids.size() ? requests[id] : null;
+   }
+
+   /**
+    * Returns whether this index contains the given request.
+    * 
+    * @param request
+    *           the request
+    * @return whether the request has been added
+    */
+   public boolean contains(Request request) {
+      return ids.containsKey(request);
+   }
+
+   /**
+    * Returns the number of ids, ie. one more than the highest id in this
+    * index.
+    * 
+    * @return the number of ids
+    */
+   public int size() {
+      return ids.size();
+   }
+}
@@ -0,0 +1,211 @@
+package at.borkowski.prefetchsimulation.algorithms;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import at.borkowski.prefetchsimulation.Request;
+import at.borkowski.prefetchsimulation.members.aux.RatePredictionCursor;
+import at.borkowski.prefetchsimulation.members.aux.RatePredictionService;
+
+/**
+ * Base class of algorithms which schedule requests backwards from the latest
+ * deadline: each request is fetched before its deadline and before the
+ * request with the next later deadline starts. The start of a request
+ * therefore only depends on the request itself and the start of its
+ * successor, which allows the schedule to be maintained incrementally by
+ * recomputing only the part of the chain affected by a change.
+ * 
+ * With more than one fetch slot, the chain is spread over the slots: a
+ * request only has to be fetched before the requests at least as many
+ * positions later in the chain as there are slots start, so that no more
+ * fetches than slots overlap. The start of a request then depends on the
+ * starts of that many successors.
+ * 
+ * Requests with equal deadlines are chained in the order in which they are
+ * passed to {@link #schedule(Collection, RatePredictionService)} or added, the
+ * first one being fetched last. Both ways therefore yield the same schedule if
+ * the requests are given in the same order.
+ */
+public abstract class BackwardChainingAlgorithm implements IncrementalPrefetchAlgorithm, ParallelPrefetchAlgorithm {
+
+   // sorted by descending deadline
+   private final List<Entry> chain = new ArrayList<>();
+   private int dirtyFrom = Integer.MAX_VALUE;
+   private int dirtyCount = 0;
+   private int fetchSlots = 1;
+
+   /**
+    * Calculates the start of the given request.
+    * 
+    * @param busyUntil
+    *           the tick by which the fetch has to be completed, i.e. the
+    *           earliest start of the requests at least {@link #getFetchSlots()}
+    *           positions later in the chain, or {@link Long#MAX_VALUE} if there
+    *           is none
+    * @param request
+    *           the request to calculate the start for
+    * @param cursor
+    *           the prediction cursor to use for rate lookups, or
+    *           <code>null</code> if no prediction service is available
+    * @return the start tick of the request
+    */
+   protected abstract long getStart(long busyUntil, Request request, RatePredictionCursor cursor);
+
+   @Override
+   public void setFetchSlots(int slots) {
+      if (slots < 1)
+         throw new IllegalArgumentException("at least one fetch slot required: " + slots);
+      fetchSlots = slots;
+
+      // all starts depend on the number of slots
+      for (Entry entry : chain) {
+         if (!entry.dirty) {
+            entry.dirty = true;
+            dirtyCount++;
+         }
+      }
+      if (!chain.isEmpty())
+         dirtyFrom = 0;
+   }
+
+   /**
+    * Returns the number of requests the client fetches at the same time.
+    * 
+    * @return the number of fetch slots
+    */
+   protected int getFetchSlots() {
+      return fetchSlots;
+   }
+
+   @Override
+   public Map<Request, Long> schedule(Collection<Request> requests, RatePredictionService ratePredictionService) {
+      HashMap<Request, Long> ret = new HashMap<>();
+
+      // the sort is stable, requests with equal deadlines keep their order
+      List<Request> sortedByDeadline = new ArrayList<Request>(requests);
+      sortedByDeadline.sort(Comparator.comparingLong(Request::getDeadline).reversed());
+
+      long[] starts = new long[sortedByDeadline.size()];
+      long busyUntil = Long.MAX_VALUE;
+      RatePredictionCursor cursor = getCursor(ratePredictionService);
+
+      for (int i = 0; i < starts.length; i++) {
+         if (i >= fetchSlots)
+            busyUntil = Math.min(busyUntil, starts[i - fetchSlots]);
+
+         Request req = sortedByDeadline.get(i);
+         starts[i] = getStart(busyUntil, req, cursor);
+         ret.put(req, starts[i]);
+      }
+
+      return ret;
+   }
+
+   @Override
+   public Map<Request, Long> onRequestsAdded(Collection<Request> requests, RatePredictionService ratePredictionService) {
+      for (Request request : requests) {
+         int index = upperBound(request.getDeadline());
+         chain.add(index, new Entry(request));
+         dirtyFrom = Math.min(dirtyFrom, index);
+         dirtyCount++;
+      }
+
+      Map<Request, Long> changed = new HashMap<>();
+      if (dirtyCount == 0)
+         return changed;
+
+      RatePredictionCursor cursor = getCursor(ratePredictionService);
+      long busyUntil = dirtyFrom == 0 ? Long.MAX_VALUE : chain.get(dirtyFrom - 1).busyUntil;
+      int unchanged = 0;
+
+      for (int i = dirtyFrom; i < chain.size(); i++) {
+         if (i >= fetchSlots)
+            busyUntil = Math.min(busyUntil, chain.get(i - fetchSlots).start);
+
+         Entry entry = chain.get(i);
+         long start = getStart(busyUntil, entry.request, cursor);
+
+         if (entry.dirty) {
+            entry.dirty = false;
+            dirtyCount--;
+            unchanged = 0;
+         } else if (start == entry.start && busyUntil == entry.busyUntil) {
+            // the rest of the chain depends on this bound and the starts of
+            // the last fetchSlots entries only
+            if (++unchanged >= fetchSlots && dirtyCount == 0)
+               break;
+         } else {
+            unchanged = 0;
+         }
+
+         entry.busyUntil = busyUntil;
+         if (start != entry.start || !entry.scheduled) {
+            entry.start = start;
+            entry.scheduled = true;
+            changed.put(entry.request, start);
+         }
+      }
+
+      dirtyFrom = Integer.MAX_VALUE;
+      return changed;
+   }
+
+   @Override
+   public void onRequestCompleted(Request request) {
+      int index = upperBound(request.getDeadline()) - 1;
+      while (index >= 0 && chain.get(index).request != request && chain.get(index).request.getDeadline() == request.getDeadline())
+         index--;
+      if (index < 0 || chain.get(index).request != request)
+         return;
+
+      if (chain.remove(index).dirty)
+         dirtyCount--;
+
+      if (index < chain.size()) {
+         // the successors may now start later
+         Entry successor = chain.get(index);
+         if (!successor.dirty) {
+            successor.dirty = true;
+            dirtyCount++;
+         }
+         dirtyFrom = Math.min(dirtyFrom, index);
+      }
+   }
+
+   private RatePredictionCursor getCursor(RatePredictionService ratePredictionService) {
+      // algorithms which don't use predictions may be called without a service
+      return ratePredictionService == null ? null : ratePredictionService.cursor();
+   }
+
+   /**
+    * Returns the index of the first entry with a deadline strictly less than
+    * the given one.
+    */
+   private int upperBound(long deadline) {
+      int low = 0, high = chain.size();
+      while (low < high) {
+         int mid = (low + high) >>> 1;
+         if (chain.get(mid).request.getDeadline() >= deadline)
+            low = mid + 1;
+         else
+            high = mid;
+      }
+      return low;
+   }
+
+   private static class Entry {
+      private final Request request;
+      private long start;
+      private long busyUntil;
+      private boolean scheduled = false;
+      private boolean dirty = true;
+
+      private Entry(Request request) {
+         this.request = request;
+      }
+   }
+}
@@ -0,0 +1,45 @@
+package at.borkowski.prefetchsimulation.algorithms;
+
+import java.util.Collection;
+import java.util.Map;
+
+import at.borkowski.prefetchsimulation.Request;
+import at.borkowski.prefetchsimulation.members.aux.RatePredictionService;
+
+/**
+ * This interface represents a prefetch algorithm which can maintain its
+ * schedule incrementally. Instead of scheduling the complete set of known
+ * requests anew, the caller notifies the algorithm about added and completed
+ * requests and only receives the schedule entries which changed.
+ * 
+ * The schedule maintained this way must be equal to the result of
+ * {@link #schedule(Collection, RatePredictionService)} for the set of all
+ * requests which have been added and not completed yet, given in the order
+ * in which they have been added.
+ */
+public interface IncrementalPrefetchAlgorithm extends PrefetchAlgorithm {
+   /**
+    * Adds requests to the incrementally maintained schedule and returns all
+    * entries which changed since the previous call. This includes the entries
+    * for the newly added requests as well as changes caused by requests
+    * completed since the previous call. The collection of requests may be
+    * empty, in which case only the latter are returned.
+    * 
+    * @param requests
+    *           the requests to add
+    * @param ratePredictionService
+    *           the rate prediction service
+    * @return the changed schedule entries
+    */
+   Map<Request, Long> onRequestsAdded(Collection<Request> requests, RatePredictionService ratePredictionService);
+
+   /**
+    * Removes a request from the incrementally maintained schedule. The
+    * resulting changes of other entries are returned by the next call to
+    * {@link #onRequestsAdded(Collection, RatePredictionService)}.
+    * 
+    * @param request
+    *           the completed request
+    */
+   void onRequestCompleted(Request request);
+}
@@ -0,0 +1,19 @@
+package at.borkowski.prefetchsimulation.algorithms;
+
+/**
+ * This interface represents a prefetch algorithm which schedules fetches to
+ * overlap. The fetch client fetches scheduled requests on as many slots as it
+ * has, so an algorithm implementing this interface is told their number and
+ * may let up to that many fetches run at the same time. Algorithms not
+ * implementing it are expected to schedule one fetch after the other.
+ */
+public interface ParallelPrefetchAlgorithm extends PrefetchAlgorithm {
+   /**
+    * Sets the number of requests the client fetches at the same time. This is
+    * called before the algorithm schedules any requests.
+    * 
+    * @param slots
+    *           the number of fetch slots, at least 1
+    */
+   void setFetchSlots(int slots);
+}
@@ -1,69 +1,73 @@
 package at.borkowski.prefetchsimulation.algorithms;
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 
 import at.borkowski.prefetchsimulation.Request;
-import at.borkowski.prefetchsimulation.members.aux.RatePredictionService;
+import at.borkowski.prefetchsimulation.members.aux.RatePredictionCursor;
 
 /**
  * This algorithm schedules all requests according to their parameters, assuming
  * an infinite link bandwidth.
  */
-public class RespectRatePredictionAlgorithm implements PrefetchAlgorithm {
+public class RespectRatePredictionAlgorithm extends BackwardChainingAlgorithm {
    public final static long CONNECTION_OVERHEAD = 5;
 
+   /**
+    * The configuration key selecting whether the transfer duration is computed
+    * per segment of constant prediction (<code>true</code>, the default) or
+    * tick by tick (<code>false</code>). Both modes yield identical schedules.
+    */
+   public final static String SEGMENT_INTEGRATION = "segment-integration";
+
    private double alpha = 1;
+   private boolean segmentIntegration = true;
 
    @Override
    public void configure(Map<String, String> configuration) {
       if (configuration.containsKey("alpha"))
          alpha = Double.parseDouble(configuration.get("alpha"));
+      if (configuration.containsKey(SEGMENT_INTEGRATION))
+         segmentIntegration = Boolean.parseBoolean(configuration.get(SEGMENT_INTEGRATION));
    }
 
    @Override
-   public Map<Request, Long> schedule(Collection<Request> requests, RatePredictionService ratePredictionService) {
-      HashMap<Request, Long> ret = new HashMap<>();
+   protected long getStart(long busyUntil, Request req, RatePredictionCursor cursor) {
+      long data = req.getData();
+      long tick = Math.min(busyUntil, req.getDeadline()) - CONNECTION_OVERHEAD - 1;
 
-      List<Request> sortedByDeadline = new LinkedList<Request>(requests);
-      Collections.sort(sortedByDeadline, new Comparator<Request>() {
-         @Override
-         public int compare(Request o1, Request o2) {
-            return o1.getDeadline() > o2.getDeadline() ? -1 : 1;
-         }
-      });
+      while (data > 0 && tick >= 0) {
+         long rate = getRate(req, cursor.seek(tick));
 
-      long previousStart = Long.MAX_VALUE;
+         if (!segmentIntegration) {
+            data -= rate;
+            tick--;
+            continue;
+         }
 
-      for (Request req : sortedByDeadline) {
-         long start = getStart(previousStart, req, ratePredictionService);
-         ret.put(req, start);
+         // the rate is constant down to the start of the segment, so the
+         // number of ticks needed within it can be computed directly
+         long segmentTicks = tick - Math.max(0, cursor.getSegmentStart()) + 1;
+         long neededTicks = rate > 0 ? (data + rate - 1) / rate : Long.MAX_VALUE;
 
-         previousStart = start;
+         if (neededTicks <= segmentTicks) {
+            data -= neededTicks * rate;
+            tick -= neededTicks;
+         } else {
+            data -= segmentTicks * rate;
+            tick -= segmentTicks;
+         }
       }
 
-      return ret;
+      return tick;
    }
 
-   private long getStart(long busyUntil, Request req, RatePredictionService ratePredictionService) {
-      long data = req.getData();
-      long tick = Math.min(busyUntil, req.getDeadline()) - CONNECTION_OVERHEAD - 1;
-
-      while (data > 0 && tick >= 0) {
-         Integer prediction = ratePredictionService.predict(tick);
-         if (prediction == null)
-            prediction = Integer.MAX_VALUE;
-         else
-            prediction = (int) (prediction.doubleValue() * alpha);
-         data -= Math.min(req.getAvailableByterate(), prediction);
-         tick--;
-      }
-
-      return tick;
+   private long getRate(Request req, Integer prediction) {
+      if (prediction == null)
+         prediction = Integer.MAX_VALUE;
+      else
+         // the link is shared fairly among the transfers in progress, which
+         // are assumed to occupy all slots
+         prediction = (int) (prediction.doubleValue() * alpha / getFetchSlots());
+      return Math.min(req.getAvailableByterate(), prediction);
    }
 }
@@ -3,9 +3,11 @@ package at.borkowski.prefetchsimulation.configuration;
 import java.util.Collection;
 import java.util.Map;
 
+import at.borkowski.prefetchsimulation.ClientOptions;
 import at.borkowski.prefetchsimulation.Request;
 import at.borkowski.prefetchsimulation.algorithms.PrefetchAlgorithm;
 import at.borkowski.prefetchsimulation.configuration.distributions.Distribution;
+import at.borkowski.prefetchsimulation.util.RandomEngine;
 
 public class Configuration {
    private final long totalTicks, lookAheadTime;
@@ -24,6 +26,9 @@ public class Configuration {
    private final Map<String, String> algorithmConfiguration;
 
    private Long seed;
+   private RandomEngine randomEngine = RandomEngine.LEGACY;
+   private boolean procedural = false;
+   private ClientOptions clientOptions = ClientOptions.DEFAULT;
 
    public Configuration(long totalTicks, Distribution<Integer> byterate, Distribution<Long> slotLength, double networkUptime, Distribution<Double> relativeJitter, Distribution<Integer> absoluteJitter, Distribution<Double> relativePredictionTimeError, Distribution<Double> relativePredictionAmplitudeError, Distribution<Long> absolutePredictionTimeError, Distribution<Integer> absolutePredictionAmplitudeError, Collection<RequestSeries> recurringRequestSeries, Collection<Request> intermittentRequests, Class<? extends PrefetchAlgorithm> algorithm, Map<String, String> algorithmConfiguration, long lookAheadTime) {
       this.totalTicks = totalTicks;
@@ -59,6 +64,30 @@ public class Configuration {
       return seed != null;
    }
 
+   public RandomEngine getRandomEngine() {
+      return randomEngine;
+   }
+
+   public void setRandomEngine(RandomEngine randomEngine) {
+      this.randomEngine = randomEngine;
+   }
+
+   public boolean isProcedural() {
+      return procedural;
+   }
+
+   public void setProcedural(boolean procedural) {
+      this.procedural = procedural;
+   }
+
+   public ClientOptions getClientOptions() {
+      return clientOptions;
+   }
+
+   public void setClientOptions(ClientOptions clientOptions) {
+      this.clientOptions = clientOptions;
+   }
+
    public Distribution<Integer> getAbsoluteJitter() {
       return absoluteJitter;
    }
@@ -0,0 +1,103 @@
+package at.borkowski.prefetchsimulation.configuration;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import at.borkowski.prefetchsimulation.Request;
+import at.borkowski.prefetchsimulation.configuration.distributions.Distribution;
+import at.borkowski.prefetchsimulation.util.RandomEngine;
+
+/**
+ * Computes a stable hash of the fields of a {@link Configuration} which
+ * determine the generated scenario: the network, the predictions and the
+ * requests, and the random engine. The algorithm, its parameters, the
+ * look-ahead time and the seed are not part of the fingerprint.
+ *
+ * Distributions are described by their {@link Object#toString()}, so a
+ * configuration using a distribution which does not override it has no
+ * fingerprint.
+ */
+public class ConfigurationFingerprint {
+
+   /**
+    * Returns the fingerprint of a configuration.
+    *
+    * @param configuration
+    *           the configuration
+    * @return the fingerprint as a hexadecimal SHA-256 hash, or
+    *         <code>null</code> if the configuration cannot be described
+    *         stably
+    */
+   public static String of(Configuration configuration) {
+      String canonical = canonicalForm(configuration);
+      if (canonical == null)
+         return null;
+
+      try {
+         byte[] hash = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+         StringBuilder sb = new StringBuilder(hash.length * 2);
+         for (byte b : hash)
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+         return sb.toString();
+      } catch (NoSuchAlgorithmException nsaEx) {
+         throw new RuntimeException(nsaEx);
+      }
+   }
+
+   /**
+    * Returns the canonical form the fingerprint is computed from, or
+    * <code>null</code> if there is none.
+    */
+   static String canonicalForm(Configuration configuration) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("total-ticks ").append(configuration.getTotalTicks()).append('\n');
+      sb.append("network-uptime ").append(configuration.getNetworkUptime()).append('\n');
+      // omitted for the default engine, which keeps earlier fingerprints
+      if (configuration.getRandomEngine() != RandomEngine.LEGACY)
+         sb.append("random-engine ").append(configuration.getRandomEngine().getName()).append('\n');
+      if (!append(sb, "byterate", configuration.getByterate()))
+         return null;
+      if (!append(sb, "slot-length", configuration.getSlotLength()))
+         return null;
+      if (!append(sb, "relative-jitter", configuration.getRelativeJitter()))
+         return null;
+      if (!append(sb, "absolute-jitter", configuration.getAbsoluteJitter()))
+         return null;
+      if (!append(sb, "relative-prediction-time-error", configuration.getRelativePredictionTimeError()))
+         return null;
+      if (!append(sb, "relative-prediction-amplitude-error", configuration.getRelativePredictionAmplitudeError()))
+         return null;
+      if (!append(sb, "absolute-prediction-time-error", configuration.getAbsolutePredictionTimeError()))
+         return null;
+      if (!append(sb, "absolute-prediction-amplitude-error", configuration.getAbsolutePredictionAmplitudeError()))
+         return null;
+
+      // the order of series matters, since each one forks the random source
+      for (RequestSeries series : configuration.getRecurringRequestSeries()) {
+         sb.append("request-series\n");
+         if (!append(sb, "interval", series.getInterval()) || !append(sb, "size", series.getSize()) || !append(sb, "byterate", series.getByterate()) || !append(sb, "start", series.getStartTick()) || !append(sb, "end", series.getEndTick()))
+            return null;
+      }
+
+      for (Request request : configuration.getIntermittentRequests())
+         sb.append("request ").append(request.getDeadline()).append(' ').append(request.getData()).append(' ').append(request.getAvailableByterate()).append('\n');
+
+      return sb.toString();
+   }
+
+   private static boolean append(StringBuilder sb, String name, Distribution<?> distribution) {
+      if (distribution == null) {
+         sb.append(name).append(" none\n");
+         return true;
+      }
+      try {
+         if (distribution.getClass().getMethod("toString").getDeclaringClass() == Object.class)
+            return false;
+      } catch (NoSuchMethodException nsmEx) {
+         throw new RuntimeException(nsmEx);
+      }
+      sb.append(name).append(' ').append(distribution.getClass().getName()).append(' ').append(distribution).append('\n');
+      return true;
+   }
+}
@@ -1,6 +1,5 @@
 package at.borkowski.prefetchsimulation.configuration;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -10,16 +9,22 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
 
+import at.borkowski.prefetchsimulation.CachePolicy;
+import at.borkowski.prefetchsimulation.ClientOptions;
 import at.borkowski.prefetchsimulation.Request;
 import at.borkowski.prefetchsimulation.algorithms.NullAlgorithm;
 import at.borkowski.prefetchsimulation.algorithms.PrefetchAlgorithm;
 import at.borkowski.prefetchsimulation.configuration.distributions.Distribution;
 import at.borkowski.prefetchsimulation.configuration.distributions.Distributions;
+import at.borkowski.prefetchsimulation.util.LineTokenizer;
+import at.borkowski.prefetchsimulation.util.RandomEngine;
 
 public class ConfigurationReader {
-   private final BufferedReader input;
+   private final LineTokenizer input;
 
    public static final String CMD_SEED = "seed";
+   public static final String CMD_RANDOM_ENGINE = "random-engine";
+   public static final String CMD_RATE_TIMELINE = "rate-timeline";
    public static final String CMD_TOTAL_TICKS = "ticks";
    public static final String CMD_BYTERATE = "byterate";
    public static final String CMD_SLOT_LENGTH = "slot-length";
@@ -35,10 +40,14 @@ public class ConfigurationReader {
    public static final String CMD_LOOK_AHEAD = "look-ahead";
    public static final String CMD_ALGORITHM = "algorithm";
    public static final String CMD_ALGORITHM_PARAMETER = "algorithm-parameter";
+   public static final String CMD_CACHE_SIZE = "cache-size";
+   public static final String CMD_CACHE_POLICY = "cache-policy";
+   public static final String CMD_FETCH_SLOTS = "fetch-slots";
+   public static final String CMD_BATCH_WINDOW = "batch-window";
 
    public ConfigurationReader(InputStream input) {
       try {
-         this.input = new BufferedReader(new InputStreamReader(input, "UTF8"));
+         this.input = new LineTokenizer(new InputStreamReader(input, "UTF8"));
       } catch (UnsupportedEncodingException ueEx) {
          throw new RuntimeException(ueEx);
       }
@@ -46,6 +55,8 @@ public class ConfigurationReader {
 
    public Configuration read() throws IOException, ConfigurationException {
       Long seed = null;
+      RandomEngine randomEngine = RandomEngine.LEGACY;
+      boolean procedural = false;
       Long totalTicks = null;
       Distribution<Integer> byterate = null;
       Distribution<Long> slotLength = null;
@@ -61,27 +72,26 @@ public class ConfigurationReader {
       Long lookAheadTime = null;
       Class<? extends PrefetchAlgorithm> algorithm = NullAlgorithm.class;
       Map<String, String> algorithmConfiguration = new HashMap<>();
-
-      String line;
-      int lineCounter = 0;
-      while ((line = this.input.readLine()) != null) {
-         lineCounter++;
-         line = line.replaceAll("#.*$", "");
-         String[] split = line.split("\\s+");
-         if (split.length == 0)
+      long cacheSize = ClientOptions.UNBOUNDED;
+      CachePolicy cachePolicy = CachePolicy.LRU;
+      int fetchSlots = 1;
+      long batchWindow = ClientOptions.NO_BATCHING;
+
+      int lineCounter;
+      while (input.nextLine()) {
+         lineCounter = input.getLineNumber();
+         if (input.getTokenCount() == 0)
             continue;
 
-         ArrayReader reader = new ArrayReader(split);
-         String command;
-
-         do {
-            command = reader.next();
-         } while (command != null && command.length() == 0);
+         ArrayReader reader = new ArrayReader(input.getTokens());
+         String command = reader.next();
 
-         if (command == null)
-            continue;
-         else if (command.equals(CMD_SEED))
+         if (command.equals(CMD_SEED))
             seed = parseLong(lineCounter, CMD_SEED, reader);
+         else if (command.equals(CMD_RANDOM_ENGINE))
+            randomEngine = parseRandomEngine(lineCounter, reader);
+         else if (command.equals(CMD_RATE_TIMELINE))
+            procedural = parseRateTimeline(lineCounter, reader);
          else if (command.equals(CMD_TOTAL_TICKS))
             totalTicks = parseLong(lineCounter, CMD_TOTAL_TICKS, reader);
          else if (command.equals(CMD_BYTERATE))
@@ -112,6 +122,14 @@ public class ConfigurationReader {
             algorithm = parseAlgorithm(lineCounter, reader);
          else if (command.equals(CMD_ALGORITHM_PARAMETER))
             parseAlgorithmParameter(lineCounter, reader, algorithmConfiguration);
+         else if (command.equals(CMD_CACHE_SIZE))
+            cacheSize = parseCacheSize(lineCounter, reader);
+         else if (command.equals(CMD_CACHE_POLICY))
+            cachePolicy = parseCachePolicy(lineCounter, reader);
+         else if (command.equals(CMD_FETCH_SLOTS))
+            fetchSlots = parseFetchSlots(lineCounter, reader);
+         else if (command.equals(CMD_BATCH_WINDOW))
+            batchWindow = parseBatchWindow(lineCounter, reader);
          else
             throw new ConfigurationException("unknown command: " + command);
       }
@@ -131,6 +149,9 @@ public class ConfigurationReader {
       Configuration configuration = new Configuration(totalTicks, byterate, slotLength, networkUptime, relativeJitter, absoluteJitter, relativePredictionTimeError, relativePredictionAmplitudeError, absolutePredictionTimeError, absolutePredictionAmplitudeError, recurringRequestSeries, intermittentRequests, algorithm, algorithmConfiguration, lookAheadTime);
       if (seed != null)
          configuration.setSeed(seed);
+      configuration.setRandomEngine(randomEngine);
+      configuration.setProcedural(procedural);
+      configuration.setClientOptions(new ClientOptions(cacheSize, cachePolicy, fetchSlots, batchWindow));
       return configuration;
    }
 
@@ -291,6 +312,61 @@ public class ConfigurationReader {
       }
    }
 
+   private RandomEngine parseRandomEngine(int lineCounter, ArrayReader reader) throws ConfigurationException {
+      String param = reader.next();
+      if (param == null)
+         throw new ConfigurationException("line " + lineCounter + ": usage is \"" + CMD_RANDOM_ENGINE + " <engine>");
+
+      RandomEngine engine = RandomEngine.forName(param);
+      if (engine == null)
+         throw new ConfigurationException("line " + lineCounter + ": unknown random engine: " + param);
+      return engine;
+   }
+
+   private boolean parseRateTimeline(int lineCounter, ArrayReader reader) throws ConfigurationException {
+      String param = reader.next();
+      if (param == null)
+         throw new ConfigurationException("line " + lineCounter + ": usage is \"" + CMD_RATE_TIMELINE + " eager|procedural");
+
+      if (param.equals("eager"))
+         return false;
+      else if (param.equals("procedural"))
+         return true;
+      throw new ConfigurationException("line " + lineCounter + ": unknown rate timeline: " + param);
+   }
+
+   private long parseCacheSize(int lineCounter, ArrayReader reader) throws ConfigurationException {
+      long size = parseLong(lineCounter, CMD_CACHE_SIZE, reader);
+      if (size < 0)
+         throw new ConfigurationException("line " + lineCounter + ": negative cache size: " + size);
+      return size;
+   }
+
+   private CachePolicy parseCachePolicy(int lineCounter, ArrayReader reader) throws ConfigurationException {
+      String param = reader.next();
+      if (param == null)
+         throw new ConfigurationException("line " + lineCounter + ": usage is \"" + CMD_CACHE_POLICY + " <policy>");
+
+      CachePolicy policy = CachePolicy.forName(param);
+      if (policy == null)
+         throw new ConfigurationException("line " + lineCounter + ": unknown cache policy: " + param);
+      return policy;
+   }
+
+   private int parseFetchSlots(int lineCounter, ArrayReader reader) throws ConfigurationException {
+      long slots = parseLong(lineCounter, CMD_FETCH_SLOTS, reader);
+      if (slots < 1 || slots > Integer.MAX_VALUE)
+         throw new ConfigurationException("line " + lineCounter + ": invalid number of fetch slots: " + slots);
+      return (int) slots;
+   }
+
+   private long parseBatchWindow(int lineCounter, ArrayReader reader) throws ConfigurationException {
+      long window = parseLong(lineCounter, CMD_BATCH_WINDOW, reader);
+      if (window < 0)
+         throw new ConfigurationException("line " + lineCounter + ": negative batch window: " + window);
+      return window;
+   }
+
    private class ArrayReader {
       private final String[] array;
       private int next = 0;
@@ -2,9 +2,58 @@ package at.borkowski.prefetchsimulation.configuration.distributions;
 
 import at.borkowski.prefetchsimulation.util.RandomSource;
 
+/**
+ * A distribution of numbers. Besides {@link #getValue(RandomSource)}, samples
+ * can be drawn as primitives, one at a time or in blocks, which the
+ * implementations in this package do without boxing. The default
+ * implementations of these methods convert the result of
+ * {@link #getValue(RandomSource)}.
+ */
 public interface Distribution<T extends Number> {
 
    T getValue(RandomSource randomSource);
 
    T getMean();
+
+   default int nextInt(RandomSource randomSource) {
+      return getValue(randomSource).intValue();
+   }
+
+   default long nextLong(RandomSource randomSource) {
+      return getValue(randomSource).longValue();
+   }
+
+   default double nextDouble(RandomSource randomSource) {
+      return getValue(randomSource).doubleValue();
+   }
+
+   /**
+    * Draws a sample for each element of an array, in order. This consumes the
+    * same random numbers as drawing the samples one at a time.
+    * 
+    * @param values
+    *           the array to fill
+    * @param randomSource
+    *           the random source
+    */
+   default void fill(int[] values, RandomSource randomSource) {
+      for (int i = 0; i < values.length; i++)
+         values[i] = nextInt(randomSource);
+   }
+
+   /**
+    * @see #fill(int[], RandomSource)
+    */
+   default void fill(long[] values, RandomSource randomSource) {
+      for (int i = 0; i < values.length; i++)
+         values[i] = nextLong(randomSource);
+   }
+
+   /**
+    * @see #fill(int[], RandomSource)
+    */
+   default void fill(double[] values, RandomSource randomSource) {
+      for (int i = 0; i < values.length; i++)
+         values[i] = nextDouble(randomSource);
+   }
 }
@@ -0,0 +1,28 @@
+package at.borkowski.prefetchsimulation.configuration.distributions;
+
+import at.borkowski.prefetchsimulation.util.RandomSource;
+
+/**
+ * A distribution of {@link Double} values, whose samples are drawn by
+ * {@link #nextDouble(RandomSource)} without boxing.
+ */
+public abstract class DoubleDistribution implements Distribution<Double> {
+
+   @Override
+   public abstract double nextDouble(RandomSource randomSource);
+
+   @Override
+   public Double getValue(RandomSource randomSource) {
+      return nextDouble(randomSource);
+   }
+
+   @Override
+   public int nextInt(RandomSource randomSource) {
+      return (int) nextDouble(randomSource);
+   }
+
+   @Override
+   public long nextLong(RandomSource randomSource) {
+      return (long) nextDouble(randomSource);
+   }
+}
@@ -1,13 +1,21 @@
 package at.borkowski.prefetchsimulation.configuration.distributions;
 
+import java.util.Arrays;
+
 import at.borkowski.prefetchsimulation.util.RandomSource;
 
 public class ExactDistribution<T extends Number> implements Distribution<T> {
 
    private final T value;
+   private final int intValue;
+   private final long longValue;
+   private final double doubleValue;
 
    public ExactDistribution(T value) {
       this.value = value;
+      this.intValue = value.intValue();
+      this.longValue = value.longValue();
+      this.doubleValue = value.doubleValue();
    }
 
    @Override
@@ -20,4 +28,38 @@ public class ExactDistribution<T extends Number> implements Distribution<T> {
       return value;
    }
 
+   @Override
+   public int nextInt(RandomSource randomSource) {
+      return intValue;
+   }
+
+   @Override
+   public long nextLong(RandomSource randomSource) {
+      return longValue;
+   }
+
+   @Override
+   public double nextDouble(RandomSource randomSource) {
+      return doubleValue;
+   }
+
+   @Override
+   public void fill(int[] values, RandomSource randomSource) {
+      Arrays.fill(values, intValue);
+   }
+
+   @Override
+   public void fill(long[] values, RandomSource randomSource) {
+      Arrays.fill(values, longValue);
+   }
+
+   @Override
+   public void fill(double[] values, RandomSource randomSource) {
+      Arrays.fill(values, doubleValue);
+   }
+
+   @Override
+   public String toString() {
+      return "exact(" + value + ")";
+   }
 }
@@ -0,0 +1,28 @@
+package at.borkowski.prefetchsimulation.configuration.distributions;
+
+import at.borkowski.prefetchsimulation.util.RandomSource;
+
+/**
+ * A distribution of {@link Integer} values, whose samples are drawn by
+ * {@link #nextInt(RandomSource)} without boxing.
+ */
+public abstract class IntegerDistribution implements Distribution<Integer> {
+
+   @Override
+   public abstract int nextInt(RandomSource randomSource);
+
+   @Override
+   public Integer getValue(RandomSource randomSource) {
+      return nextInt(randomSource);
+   }
+
+   @Override
+   public long nextLong(RandomSource randomSource) {
+      return nextInt(randomSource);
+   }
+
+   @Override
+   public double nextDouble(RandomSource randomSource) {
+      return nextInt(randomSource);
+   }
+}
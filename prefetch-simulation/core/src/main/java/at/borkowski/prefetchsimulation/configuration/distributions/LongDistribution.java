@@ -0,0 +1,28 @@
+package at.borkowski.prefetchsimulation.configuration.distributions;
+
+import at.borkowski.prefetchsimulation.util.RandomSource;
+
+/**
+ * A distribution of {@link Long} values, whose samples are drawn by
+ * {@link #nextLong(RandomSource)} without boxing.
+ */
+public abstract class LongDistribution implements Distribution<Long> {
+
+   @Override
+   public abstract long nextLong(RandomSource randomSource);
+
+   @Override
+   public Long getValue(RandomSource randomSource) {
+      return nextLong(randomSource);
+   }
+
+   @Override
+   public int nextInt(RandomSource randomSource) {
+      return (int) nextLong(randomSource);
+   }
+
+   @Override
+   public double nextDouble(RandomSource randomSource) {
+      return nextLong(randomSource);
+   }
+}
@@ -1,8 +1,10 @@
 package at.borkowski.prefetchsimulation.configuration.distributions;
 
+import java.util.Arrays;
+
 import at.borkowski.prefetchsimulation.util.RandomSource;
 
-public class NormalDoubleDistribution implements Distribution<Double> {
+public class NormalDoubleDistribution extends DoubleDistribution {
 
    private final double mean, sd;
 
@@ -12,14 +14,29 @@ public class NormalDoubleDistribution implements Distribution<Double> {
    }
 
    @Override
-   public Double getValue(RandomSource randomSource) {
+   public double nextDouble(RandomSource randomSource) {
       if (sd == 0)
          return mean;
-      return (double) (randomSource.nextGaussian() * sd + mean);
+      return (randomSource.nextGaussian() * sd + mean);
+   }
+
+   @Override
+   public void fill(double[] values, RandomSource randomSource) {
+      if (sd == 0) {
+         Arrays.fill(values, mean);
+         return;
+      }
+      for (int i = 0; i < values.length; i++)
+         values[i] = (randomSource.nextGaussian() * sd + mean);
    }
    
    @Override
    public Double getMean() {
       return mean;
    }
+
+   @Override
+   public String toString() {
+      return "normal(" + mean + ", " + sd + ")";
+   }
 }
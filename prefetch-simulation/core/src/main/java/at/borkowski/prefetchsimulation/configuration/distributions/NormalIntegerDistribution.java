@@ -1,8 +1,10 @@
 package at.borkowski.prefetchsimulation.configuration.distributions;
 
+import java.util.Arrays;
+
 import at.borkowski.prefetchsimulation.util.RandomSource;
 
-public class NormalIntegerDistribution implements Distribution<Integer> {
+public class NormalIntegerDistribution extends IntegerDistribution {
 
    private final int mean, sd;
 
@@ -12,14 +14,29 @@ public class NormalIntegerDistribution implements Distribution<Integer> {
    }
 
    @Override
-   public Integer getValue(RandomSource randomSource) {
+   public int nextInt(RandomSource randomSource) {
       if (sd == 0)
          return mean;
       return (int) (randomSource.nextGaussian() * sd + mean);
    }
+
+   @Override
+   public void fill(int[] values, RandomSource randomSource) {
+      if (sd == 0) {
+         Arrays.fill(values, mean);
+         return;
+      }
+      for (int i = 0; i < values.length; i++)
+         values[i] = (int) (randomSource.nextGaussian() * sd + mean);
+   }
    
    @Override
    public Integer getMean() {
       return mean;
    }
+
+   @Override
+   public String toString() {
+      return "normal(" + mean + ", " + sd + ")";
+   }
 }
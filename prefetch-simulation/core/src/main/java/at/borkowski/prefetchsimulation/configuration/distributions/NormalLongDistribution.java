@@ -1,8 +1,10 @@
 package at.borkowski.prefetchsimulation.configuration.distributions;
 
+import java.util.Arrays;
+
 import at.borkowski.prefetchsimulation.util.RandomSource;
 
-public class NormalLongDistribution implements Distribution<Long> {
+public class NormalLongDistribution extends LongDistribution {
 
    private final long mean, sd;
 
@@ -12,14 +14,29 @@ public class NormalLongDistribution implements Distribution<Long> {
    }
 
    @Override
-   public Long getValue(RandomSource randomSource) {
+   public long nextLong(RandomSource randomSource) {
       if (sd == 0)
          return mean;
       return (long) (randomSource.nextGaussian() * sd + mean);
    }
+
+   @Override
+   public void fill(long[] values, RandomSource randomSource) {
+      if (sd == 0) {
+         Arrays.fill(values, mean);
+         return;
+      }
+      for (int i = 0; i < values.length; i++)
+         values[i] = (long) (randomSource.nextGaussian() * sd + mean);
+   }
    
    @Override
    public Long getMean() {
       return mean;
    }
+
+   @Override
+   public String toString() {
+      return "normal(" + mean + ", " + sd + ")";
+   }
 }
@@ -1,8 +1,10 @@
 package at.borkowski.prefetchsimulation.configuration.distributions;
 
+import java.util.Arrays;
+
 import at.borkowski.prefetchsimulation.util.RandomSource;
 
-public class UniformDoubleDistribution implements Distribution<Double> {
+public class UniformDoubleDistribution extends DoubleDistribution {
 
    private final double min, max;
 
@@ -12,16 +14,31 @@ public class UniformDoubleDistribution implements Distribution<Double> {
    }
 
    @Override
-   public Double getValue(RandomSource randomSource) {
+   public double nextDouble(RandomSource randomSource) {
       if (min == max)
          return min;
       double r = randomSource.nextDouble() * (max - min);
       return min + r;
    }
 
+   @Override
+   public void fill(double[] values, RandomSource randomSource) {
+      if (min == max) {
+         Arrays.fill(values, min);
+         return;
+      }
+      double span = max - min;
+      for (int i = 0; i < values.length; i++)
+         values[i] = min + randomSource.nextDouble() * span;
+   }
+
    @Override
    public Double getMean() {
       return min + (max - min) / 2;
    }
 
+   @Override
+   public String toString() {
+      return "uniform(" + min + ", " + max + ")";
+   }
 }
@@ -1,8 +1,10 @@
 package at.borkowski.prefetchsimulation.configuration.distributions;
 
+import java.util.Arrays;
+
 import at.borkowski.prefetchsimulation.util.RandomSource;
 
-public class UniformIntegerDistribution implements Distribution<Integer> {
+public class UniformIntegerDistribution extends IntegerDistribution {
 
    private final int min, max, span;
 
@@ -13,16 +15,32 @@ public class UniformIntegerDistribution implements Distribution<Integer> {
    }
 
    @Override
-   public Integer getValue(RandomSource randomSource) {
+   public int nextInt(RandomSource randomSource) {
       if (span == 0)
          return min;
       long r = ((randomSource.nextLong() % span) + span) % span;
       return (int) (min + r);
    }
 
+   @Override
+   public void fill(int[] values, RandomSource randomSource) {
+      if (span == 0) {
+         Arrays.fill(values, min);
+         return;
+      }
+      for (int i = 0; i < values.length; i++) {
+         long r = ((randomSource.nextLong() % span) + span) % span;
+         values[i] = (int) (min + r);
+      }
+   }
+
    @Override
    public Integer getMean() {
       return min + (max - min) / 2;
    }
 
+   @Override
+   public String toString() {
+      return "uniform(" + min + ", " + max + ")";
+   }
 }
@@ -1,8 +1,10 @@
 package at.borkowski.prefetchsimulation.configuration.distributions;
 
+import java.util.Arrays;
+
 import at.borkowski.prefetchsimulation.util.RandomSource;
 
-public class UniformLongDistribution implements Distribution<Long> {
+public class UniformLongDistribution extends LongDistribution {
 
    private final long min, max, span;
 
@@ -13,16 +15,32 @@ public class UniformLongDistribution implements Distribution<Long> {
    }
 
    @Override
-   public Long getValue(RandomSource randomSource) {
+   public long nextLong(RandomSource randomSource) {
       if (span == 0)
          return min;
       long r = ((randomSource.nextLong() % span) + span) % span;
       return min + r;
    }
 
+   @Override
+   public void fill(long[] values, RandomSource randomSource) {
+      if (span == 0) {
+         Arrays.fill(values, min);
+         return;
+      }
+      for (int i = 0; i < values.length; i++) {
+         long r = ((randomSource.nextLong() % span) + span) % span;
+         values[i] = min + r;
+      }
+   }
+
    @Override
    public Long getMean() {
       return min + (max - min) / 2;
    }
 
+   @Override
+   public String toString() {
+      return "uniform(" + min + ", " + max + ")";
+   }
 }
@@ -0,0 +1,263 @@
+package at.borkowski.prefetchsimulation.genesis;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import at.borkowski.prefetchsimulation.CachePolicy;
+import at.borkowski.prefetchsimulation.ClientOptions;
+import at.borkowski.prefetchsimulation.RateTimeline;
+import at.borkowski.prefetchsimulation.Request;
+import at.borkowski.prefetchsimulation.algorithms.PrefetchAlgorithm;
+
+/**
+ * Reads the binary genesis format written by {@link BinaryGenesisWriter}.
+ * 
+ * The format consists of the {@link #MAGIC} bytes, a version byte, a header
+ * and three columns. All numbers are variable-length integers (7 bits per
+ * byte, least significant group first); signed numbers are zig-zag encoded,
+ * strings are a length followed by UTF-8 bytes.
+ * 
+ * <ul>
+ * <li>header: ticks, look-ahead time (signed), cache size
+ * ({@link ClientOptions#UNBOUNDED} for no limit), cache policy name, number
+ * of fetch slots, batch window (signed, {@link ClientOptions#NO_BATCHING}
+ * for none), algorithm class name, number of algorithm parameters, and
+ * key and value of each parameter</li>
+ * <li>requests: count, deadlines (signed, each as difference to the previous
+ * one), data sizes (signed), byte rates (signed)</li>
+ * <li>real rates and predicted rates: count, ticks (each as difference to the
+ * previous one), rates (signed, {@link RateTimeline#NO_LIMIT} for no
+ * limit)</li>
+ * </ul>
+ * 
+ * Version 1 files, whose header ends before the cache size, are read with
+ * {@link ClientOptions#DEFAULT}.
+ * 
+ * Files are read using memory-mapped buffers, so that loading large files
+ * does not copy them through the Java heap and profits from the page cache.
+ */
+public class BinaryGenesisReader {
+   public static final byte[] MAGIC = { 'P', 'S', 'G', 'B' };
+   public static final int VERSION = 2;
+
+   private static final long SEGMENT_SIZE = 1L << 30;
+
+   private final ByteBuffer[] segments;
+   private int segment = 0;
+   private ByteBuffer current;
+
+   /**
+    * Creates a reader for a genesis held in a buffer, starting at the
+    * buffer's position.
+    * 
+    * @param buffer
+    *           the buffer to read from
+    */
+   public BinaryGenesisReader(ByteBuffer buffer) {
+      this(new ByteBuffer[] { buffer });
+   }
+
+   private BinaryGenesisReader(ByteBuffer[] segments) {
+      this.segments = segments;
+      this.current = segments[0];
+   }
+
+   /**
+    * Creates a reader for a genesis file by mapping it into memory. Files
+    * larger than what a single buffer can address are mapped in several
+    * segments.
+    * 
+    * @param path
+    *           the file to read
+    * @return the reader
+    * @throws IOException
+    *            if mapping the file fails
+    */
+   public static BinaryGenesisReader map(Path path) throws IOException {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+         long size = channel.size();
+         int count = (int) Math.max(1, (size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+         ByteBuffer[] segments = new ByteBuffer[count];
+         for (int i = 0; i < count; i++) {
+            long position = i * SEGMENT_SIZE;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+         }
+         return new BinaryGenesisReader(segments);
+      }
+   }
+
+   /**
+    * Checks whether the given bytes start with the magic number of the binary
+    * format.
+    * 
+    * @param prefix
+    *           the first bytes of the input
+    * @param length
+    *           the number of valid bytes in <code>prefix</code>
+    * @return whether the input is in the binary format
+    */
+   public static boolean isBinary(byte[] prefix, int length) {
+      if (length < MAGIC.length)
+         return false;
+      for (int i = 0; i < MAGIC.length; i++)
+         if (prefix[i] != MAGIC[i])
+            return false;
+      return true;
+   }
+
+   /**
+    * Reads the whole genesis.
+    * 
+    * @return the genesis
+    * @throws GenesisException
+    *            if the input is malformed
+    */
+   public Genesis read() throws GenesisException {
+      for (int i = 0; i < MAGIC.length; i++)
+         if (nextByte() != MAGIC[i])
+            throw new GenesisException("not a binary genesis (bad magic number)");
+      int version = nextByte() & 0xFF;
+      if (version < 1 || version > VERSION)
+         throw new GenesisException("unsupported binary genesis version " + version + " (expected at most " + VERSION + ")");
+
+      long ticks = readVarLong();
+      long lookAhead = readSignedVarLong();
+      ClientOptions clientOptions = ClientOptions.DEFAULT;
+      if (version >= 2)
+         clientOptions = readClientOptions();
+      Class<? extends PrefetchAlgorithm> algorithm = readAlgorithm();
+
+      int parameterCount = readCount("algorithm parameters");
+      Map<String, String> algorithmConfiguration = new HashMap<>();
+      for (int i = 0; i < parameterCount; i++) {
+         String key = readString();
+         algorithmConfiguration.put(key, readString());
+      }
+
+      List<Request> requests = readRequests();
+      RateTimeline real = readRates("real rates");
+      RateTimeline predicted = readRates("predicted rates");
+
+      if (hasRemaining())
+         throw new GenesisException("unexpected data after end of binary genesis");
+
+      return new Genesis(ticks, requests, real, predicted, algorithm, algorithmConfiguration, lookAhead, clientOptions);
+   }
+
+   private ClientOptions readClientOptions() throws GenesisException {
+      long cacheSize = readVarLong();
+      String name = readString();
+      CachePolicy cachePolicy = CachePolicy.forName(name);
+      if (cacheSize < 0 || cachePolicy == null)
+         throw new GenesisException("invalid cache in binary genesis: " + cacheSize + " " + name);
+      long fetchSlots = readVarLong();
+      if (fetchSlots < 1 || fetchSlots > Integer.MAX_VALUE)
+         throw new GenesisException("invalid number of fetch slots in binary genesis: " + fetchSlots);
+      long batchWindow = readSignedVarLong();
+      if (batchWindow < 0 && batchWindow != ClientOptions.NO_BATCHING)
+         throw new GenesisException("invalid batch window in binary genesis: " + batchWindow);
+      return new ClientOptions(cacheSize, cachePolicy, (int) fetchSlots, batchWindow);
+   }
+
+   private Class<? extends PrefetchAlgorithm> readAlgorithm() throws GenesisException {
+      String name = readString();
+      try {
+         @SuppressWarnings("unchecked")
+         Class<? extends PrefetchAlgorithm> clazz = (Class<? extends PrefetchAlgorithm>) Class.forName(name);
+         return clazz;
+      } catch (ClassNotFoundException e) {
+         throw new GenesisException("class not found: " + name, e);
+      }
+   }
+
+   private List<Request> readRequests() throws GenesisException {
+      int count = readCount("requests");
+      long[] deadlines = new long[count];
+      long deadline = 0;
+      for (int i = 0; i < count; i++)
+         deadlines[i] = deadline += readSignedVarLong();
+
+      int[] data = new int[count];
+      for (int i = 0; i < count; i++)
+         data[i] = readSignedVarInt();
+
+      List<Request> requests = new ArrayList<>(count);
+      for (int i = 0; i < count; i++)
+         requests.add(new Request(deadlines[i], data[i], readSignedVarInt()));
+      return requests;
+   }
+
+   private RateTimeline readRates(String column) throws GenesisException {
+      int count = readCount(column);
+      long[] ticks = new long[count];
+      long tick = 0;
+      for (int i = 0; i < count; i++)
+         ticks[i] = tick += readVarLong();
+
+      RateTimeline.Builder builder = RateTimeline.builder();
+      for (int i = 0; i < count; i++)
+         builder.putRaw(ticks[i], readSignedVarInt());
+      return builder.build();
+   }
+
+   private int readCount(String column) throws GenesisException {
+      long count = readVarLong();
+      if (count < 0 || count > Integer.MAX_VALUE)
+         throw new GenesisException("invalid number of " + column + ": " + Long.toUnsignedString(count));
+      return (int) count;
+   }
+
+   private String readString() throws GenesisException {
+      byte[] bytes = new byte[readCount("string bytes")];
+      for (int i = 0; i < bytes.length; i++)
+         bytes[i] = nextByte();
+      return new String(bytes, StandardCharsets.UTF_8);
+   }
+
+   private int readSignedVarInt() throws GenesisException {
+      long value = readSignedVarLong();
+      if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+         throw new GenesisException("value out of range: " + value);
+      return (int) value;
+   }
+
+   private long readSignedVarLong() throws GenesisException {
+      long raw = readVarLong();
+      return (raw >>> 1) ^ -(raw & 1);
+   }
+
+   private long readVarLong() throws GenesisException {
+      long value = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+         byte b = nextByte();
+         value |= (long) (b & 0x7F) << shift;
+         if (b >= 0)
+            return value;
+      }
+      throw new GenesisException("malformed variable-length integer");
+   }
+
+   private boolean hasRemaining() {
+      for (int i = segment; i < segments.length; i++)
+         if (segments[i].hasRemaining())
+            return true;
+      return false;
+   }
+
+   private byte nextByte() throws GenesisException {
+      while (!current.hasRemaining()) {
+         if (segment + 1 == segments.length)
+            throw new GenesisException("unexpected end of binary genesis");
+         current = segments[++segment];
+      }
+      return current.get();
+   }
+}
@@ -0,0 +1,108 @@
+package at.borkowski.prefetchsimulation.genesis;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import at.borkowski.prefetchsimulation.ClientOptions;
+import at.borkowski.prefetchsimulation.RateTimeline;
+import at.borkowski.prefetchsimulation.Request;
+
+/**
+ * Writes a genesis in the binary format described at
+ * {@link BinaryGenesisReader}.
+ */
+public class BinaryGenesisWriter {
+   private static final int BUFFER_SIZE = 64 * 1024;
+
+   private final OutputStream output;
+   private final byte[] buffer = new byte[BUFFER_SIZE];
+   private int position = 0;
+
+   public BinaryGenesisWriter(OutputStream output) {
+      this.output = output;
+   }
+
+   public void write(Genesis genesis) throws IOException {
+      for (byte b : BinaryGenesisReader.MAGIC)
+         writeByte(b);
+      writeByte(BinaryGenesisReader.VERSION);
+
+      writeVarLong(genesis.getTicks());
+      writeSignedVarLong(genesis.getLookAheadTime());
+      ClientOptions clientOptions = genesis.getClientOptions();
+      writeVarLong(clientOptions.getCacheSize());
+      writeString(clientOptions.getCachePolicy().getName());
+      writeVarLong(clientOptions.getFetchSlots());
+      writeSignedVarLong(clientOptions.getBatchWindow());
+      writeString(genesis.getAlgorithm().getName());
+
+      Map<String, String> algorithmConfiguration = genesis.getAlgorithmConfiguration();
+      writeVarLong(algorithmConfiguration.size());
+      for (Map.Entry<String, String> entry : algorithmConfiguration.entrySet()) {
+         writeString(entry.getKey());
+         writeString(entry.getValue());
+      }
+
+      writeRequests(genesis.getRequests());
+      writeRates(genesis.getRateReal());
+      writeRates(genesis.getRatePredicted());
+
+      output.write(buffer, 0, position);
+      position = 0;
+      output.flush();
+   }
+
+   private void writeRequests(List<Request> requests) throws IOException {
+      writeVarLong(requests.size());
+      long deadline = 0;
+      for (Request request : requests) {
+         writeSignedVarLong(request.getDeadline() - deadline);
+         deadline = request.getDeadline();
+      }
+      for (Request request : requests)
+         writeSignedVarLong(request.getData());
+      for (Request request : requests)
+         writeSignedVarLong(request.getAvailableByterate());
+   }
+
+   private void writeRates(RateTimeline rates) throws IOException {
+      writeVarLong(rates.size());
+      long tick = 0;
+      for (int i = 0; i < rates.size(); i++) {
+         writeVarLong(rates.getTick(i) - tick);
+         tick = rates.getTick(i);
+      }
+      for (int i = 0; i < rates.size(); i++)
+         writeSignedVarLong(rates.getRawRate(i));
+   }
+
+   private void writeString(String string) throws IOException {
+      byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+      writeVarLong(bytes.length);
+      for (byte b : bytes)
+         writeByte(b);
+   }
+
+   private void writeSignedVarLong(long value) throws IOException {
+      writeVarLong((value << 1) ^ (value >> 63));
+   }
+
+   private void writeVarLong(long value) throws IOException {
+      while ((value & ~0x7FL) != 0) {
+         writeByte((int) (value & 0x7F) | 0x80);
+         value >>>= 7;
+      }
+      writeByte((int) value);
+   }
+
+   private void writeByte(int b) throws IOException {
+      if (position == buffer.length) {
+         output.write(buffer, 0, position);
+         position = 0;
+      }
+      buffer[position++] = (byte) b;
+   }
+}
@@ -3,18 +3,25 @@ package at.borkowski.prefetchsimulation.genesis;
 import java.util.List;
 import java.util.Map;
 
+import at.borkowski.prefetchsimulation.ClientOptions;
+import at.borkowski.prefetchsimulation.RateTimeline;
 import at.borkowski.prefetchsimulation.Request;
 import at.borkowski.prefetchsimulation.algorithms.PrefetchAlgorithm;
 
 public class Genesis {
    private final long ticks, lookAheadTime;
    private final List<Request> requests;
-   private final Map<Long, Integer> rateReal;
-   private final Map<Long, Integer> ratePredicted;
+   private final RateTimeline rateReal;
+   private final RateTimeline ratePredicted;
    private final Class<? extends PrefetchAlgorithm> algorithm;
    private final Map<String, String> algorithmConfiguration;
+   private final ClientOptions clientOptions;
 
-   public Genesis(long ticks, List<Request> requests, Map<Long, Integer> rateReal, Map<Long, Integer> ratePredicted, Class<? extends PrefetchAlgorithm> algorithm, Map<String, String> algorithmConfiguration, long lookAheadTime) {
+   public Genesis(long ticks, List<Request> requests, RateTimeline rateReal, RateTimeline ratePredicted, Class<? extends PrefetchAlgorithm> algorithm, Map<String, String> algorithmConfiguration, long lookAheadTime) {
+      this(ticks, requests, rateReal, ratePredicted, algorithm, algorithmConfiguration, lookAheadTime, ClientOptions.DEFAULT);
+   }
+
+   public Genesis(long ticks, List<Request> requests, RateTimeline rateReal, RateTimeline ratePredicted, Class<? extends PrefetchAlgorithm> algorithm, Map<String, String> algorithmConfiguration, long lookAheadTime, ClientOptions clientOptions) {
       this.ticks = ticks;
       this.requests = requests;
       this.rateReal = rateReal;
@@ -22,6 +29,11 @@ public class Genesis {
       this.algorithm = algorithm;
       this.lookAheadTime = lookAheadTime;
       this.algorithmConfiguration = algorithmConfiguration;
+      this.clientOptions = clientOptions;
+   }
+
+   public Genesis(long ticks, List<Request> requests, Map<Long, Integer> rateReal, Map<Long, Integer> ratePredicted, Class<? extends PrefetchAlgorithm> algorithm, Map<String, String> algorithmConfiguration, long lookAheadTime) {
+      this(ticks, requests, RateTimeline.of(rateReal), RateTimeline.of(ratePredicted), algorithm, algorithmConfiguration, lookAheadTime);
    }
 
    public long getTicks() {
@@ -32,11 +44,11 @@ public class Genesis {
       return lookAheadTime;
    }
 
-   public Map<Long, Integer> getRatePredicted() {
+   public RateTimeline getRatePredicted() {
       return ratePredicted;
    }
 
-   public Map<Long, Integer> getRateReal() {
+   public RateTimeline getRateReal() {
       return rateReal;
    }
 
@@ -52,4 +64,8 @@ public class Genesis {
       return algorithmConfiguration;
    }
 
+   public ClientOptions getClientOptions() {
+      return clientOptions;
+   }
+
 }
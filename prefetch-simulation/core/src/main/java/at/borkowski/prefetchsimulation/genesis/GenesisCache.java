@@ -0,0 +1,177 @@
+package at.borkowski.prefetchsimulation.genesis;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A cache of generated geneses in a local directory. Entries are stored in the
+ * binary format ({@link BinaryGenesisWriter}), one file per key. When the total
+ * size exceeds the limit, the least recently used entries (by modification
+ * time, which is updated on every hit) are removed.
+ *
+ * The cache is best-effort: entries which cannot be read are treated as
+ * missing and removed, and failures to store entries are ignored. Entries are
+ * written to a temporary file and moved into place, so several processes can
+ * share a directory.
+ */
+public class GenesisCache {
+   /**
+    * The system property specifying the directory of the default cache. If it
+    * is not set, there is no default cache.
+    */
+   public static final String PROPERTY_DIRECTORY = "genesis.cache";
+   /**
+    * The system property specifying the size limit of the default cache in
+    * bytes. Defaults to {@link #DEFAULT_MAX_SIZE}.
+    */
+   public static final String PROPERTY_MAX_SIZE = "genesis.cache.size";
+
+   public static final long DEFAULT_MAX_SIZE = 1024L * 1024 * 1024;
+
+   private static final String SUFFIX = ".genesis";
+
+   private static GenesisCache defaultCache;
+   private static boolean defaultCacheCreated = false;
+
+   private final Path directory;
+   private final long maxSize;
+
+   /**
+    * Creates a cache.
+    *
+    * @param directory
+    *           the directory to store entries in, which is created if
+    *           necessary
+    * @param maxSize
+    *           the maximum total size of entries in bytes
+    */
+   public GenesisCache(Path directory, long maxSize) {
+      this.directory = directory;
+      this.maxSize = maxSize;
+   }
+
+   /**
+    * Returns the cache configured by the system properties
+    * {@link #PROPERTY_DIRECTORY} and {@link #PROPERTY_MAX_SIZE}.
+    *
+    * @return the default cache, or <code>null</code> if none is configured
+    */
+   public static synchronized GenesisCache getDefault() {
+      if (!defaultCacheCreated) {
+         String directory = System.getProperty(PROPERTY_DIRECTORY);
+         if (directory != null && !directory.isEmpty())
+            defaultCache = new GenesisCache(Paths.get(directory), Long.getLong(PROPERTY_MAX_SIZE, DEFAULT_MAX_SIZE));
+         defaultCacheCreated = true;
+      }
+      return defaultCache;
+   }
+
+   /**
+    * Returns a cached genesis.
+    *
+    * @param key
+    *           the key, consisting of characters allowed in file names
+    * @return the genesis, or <code>null</code> if there is none
+    */
+   public synchronized Genesis get(String key) {
+      Path file = directory.resolve(key + SUFFIX);
+      if (!Files.isRegularFile(file))
+         return null;
+
+      try {
+         Genesis genesis = BinaryGenesisReader.map(file).read();
+         Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+         return genesis;
+      } catch (NoSuchFileException nsfEx) {
+         // removed concurrently
+         return null;
+      } catch (IOException | GenesisException ex) {
+         delete(file);
+         return null;
+      }
+   }
+
+   /**
+    * Stores a genesis, replacing any previous entry of the key, and removes
+    * least recently used entries if the cache exceeds its size limit.
+    *
+    * @param key
+    *           the key, consisting of characters allowed in file names
+    * @param genesis
+    *           the genesis
+    */
+   public synchronized void put(String key, Genesis genesis) {
+      Path file = directory.resolve(key + SUFFIX);
+      Path temporary = null;
+      try {
+         Files.createDirectories(directory);
+         temporary = Files.createTempFile(directory, key, ".tmp");
+         try (OutputStream output = Files.newOutputStream(temporary)) {
+            new BinaryGenesisWriter(output).write(genesis);
+         }
+         Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+         temporary = null;
+         evict();
+      } catch (IOException ioEx) {
+         // the cache is best-effort
+      } finally {
+         if (temporary != null)
+            delete(temporary);
+      }
+   }
+
+   private void evict() throws IOException {
+      List<Entry> entries = new ArrayList<>();
+      long size = 0;
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+         for (Path file : stream) {
+            try {
+               Entry entry = new Entry(file, Files.size(file), Files.getLastModifiedTime(file).toMillis());
+               entries.add(entry);
+               size += entry.size;
+            } catch (NoSuchFileException nsfEx) {
+               // removed concurrently
+            }
+         }
+      }
+      if (size <= maxSize)
+         return;
+
+      entries.sort(Comparator.comparingLong((Entry entry) -> entry.lastUsed));
+      for (Entry entry : entries) {
+         if (size <= maxSize)
+            break;
+         delete(entry.file);
+         size -= entry.size;
+      }
+   }
+
+   private static void delete(Path file) {
+      try {
+         Files.deleteIfExists(file);
+      } catch (IOException ioEx) {
+         // the cache is best-effort
+      }
+   }
+
+   private static class Entry {
+      private final Path file;
+      private final long size, lastUsed;
+
+      Entry(Path file, long size, long lastUsed) {
+         this.file = file;
+         this.size = size;
+         this.lastUsed = lastUsed;
+      }
+   }
+}
@@ -0,0 +1,179 @@
+package at.borkowski.prefetchsimulation.genesis;
+
+import java.util.function.UnaryOperator;
+
+import at.borkowski.prefetchsimulation.CachePolicy;
+import at.borkowski.prefetchsimulation.ClientOptions;
+import at.borkowski.prefetchsimulation.Request;
+import at.borkowski.prefetchsimulation.algorithms.PrefetchAlgorithm;
+
+/**
+ * A single event of a genesis file, as returned by
+ * {@link GenesisReader#next()}. Which of the properties are set depends on the
+ * {@link Type} of the event.
+ */
+public class GenesisEvent {
+   public enum Type {
+      /**
+       * A request; {@link GenesisEvent#getRequest()} is set.
+       */
+      REQUEST,
+      /**
+       * A change of the real byte rate; {@link GenesisEvent#getRate()} is set.
+       */
+      RATE_REAL,
+      /**
+       * A change of the predicted byte rate; {@link GenesisEvent#getRate()} is
+       * set.
+       */
+      RATE_PREDICTION,
+      /**
+       * The algorithm (always at tick 0);
+       * {@link GenesisEvent#getAlgorithm()} is set.
+       */
+      ALGORITHM,
+      /**
+       * An algorithm parameter (always at tick 0);
+       * {@link GenesisEvent#getKey()} and {@link GenesisEvent#getValue()} are
+       * set.
+       */
+      ALGORITHM_PARAMETER,
+      /**
+       * The look-ahead time (always at tick 0);
+       * {@link GenesisEvent#getLookAheadTime()} is set.
+       */
+      LOOK_AHEAD,
+      /**
+       * The bounded cache (always at tick 0); see
+       * {@link GenesisEvent#applyTo(ClientOptions)}.
+       */
+      CACHE,
+      /**
+       * The number of fetch slots (always at tick 0); see
+       * {@link GenesisEvent#applyTo(ClientOptions)}.
+       */
+      FETCH_SLOTS,
+      /**
+       * The batch window (always at tick 0); see
+       * {@link GenesisEvent#applyTo(ClientOptions)}.
+       */
+      BATCH_WINDOW,
+      /**
+       * The last tick of the genesis. This is always the last event, also if
+       * the file does not contain an explicit end.
+       */
+      END
+   }
+
+   private final Type type;
+   private final long tick;
+   private Request request;
+   private int rate;
+   private Class<? extends PrefetchAlgorithm> algorithm;
+   private String key, value;
+   private long lookAheadTime;
+   private UnaryOperator<ClientOptions> clientOption;
+
+   // the properties of the type are set by the factory methods below
+   private GenesisEvent(Type type, long tick) {
+      this.type = type;
+      this.tick = tick;
+   }
+
+   static GenesisEvent request(Request request) {
+      GenesisEvent event = new GenesisEvent(Type.REQUEST, request.getDeadline());
+      event.request = request;
+      return event;
+   }
+
+   static GenesisEvent rate(Type type, long tick, int rate) {
+      GenesisEvent event = new GenesisEvent(type, tick);
+      event.rate = rate;
+      return event;
+   }
+
+   static GenesisEvent algorithm(Class<? extends PrefetchAlgorithm> algorithm) {
+      GenesisEvent event = new GenesisEvent(Type.ALGORITHM, 0);
+      event.algorithm = algorithm;
+      return event;
+   }
+
+   static GenesisEvent algorithmParameter(String key, String value) {
+      GenesisEvent event = new GenesisEvent(Type.ALGORITHM_PARAMETER, 0);
+      event.key = key;
+      event.value = value;
+      return event;
+   }
+
+   static GenesisEvent lookAhead(long lookAheadTime) {
+      GenesisEvent event = new GenesisEvent(Type.LOOK_AHEAD, 0);
+      event.lookAheadTime = lookAheadTime;
+      return event;
+   }
+
+   static GenesisEvent cache(long size, CachePolicy policy) {
+      return clientOption(Type.CACHE, options -> options.withCache(size, policy));
+   }
+
+   static GenesisEvent fetchSlots(int slots) {
+      return clientOption(Type.FETCH_SLOTS, options -> options.withFetchSlots(slots));
+   }
+
+   static GenesisEvent batchWindow(long window) {
+      return clientOption(Type.BATCH_WINDOW, options -> options.withBatchWindow(window));
+   }
+
+   private static GenesisEvent clientOption(Type type, UnaryOperator<ClientOptions> clientOption) {
+      GenesisEvent event = new GenesisEvent(type, 0);
+      event.clientOption = clientOption;
+      return event;
+   }
+
+   static GenesisEvent end(long tick) {
+      return new GenesisEvent(Type.END, tick);
+   }
+
+   public Type getType() {
+      return type;
+   }
+
+   public long getTick() {
+      return tick;
+   }
+
+   public Request getRequest() {
+      return request;
+   }
+
+   public int getRate() {
+      return rate;
+   }
+
+   public Class<? extends PrefetchAlgorithm> getAlgorithm() {
+      return algorithm;
+   }
+
+   public String getKey() {
+      return key;
+   }
+
+   public String getValue() {
+      return value;
+   }
+
+   public long getLookAheadTime() {
+      return lookAheadTime;
+   }
+
+   /**
+    * Applies the client option of this event to the given options. Events
+    * which don't set a client option leave them unchanged.
+    * 
+    * @param options
+    *           the options set by the preceding events
+    * @return the options including the one set by this event
+    */
+   public ClientOptions applyTo(ClientOptions options) {
+      return clientOption == null ? options : clientOption.apply(options);
+   }
+}
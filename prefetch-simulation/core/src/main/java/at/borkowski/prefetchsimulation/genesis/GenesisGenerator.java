@@ -1,23 +1,53 @@
 package at.borkowski.prefetchsimulation.genesis;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
+import at.borkowski.prefetchsimulation.ClientOptions;
+import at.borkowski.prefetchsimulation.RateTimeline;
 import at.borkowski.prefetchsimulation.Request;
 import at.borkowski.prefetchsimulation.algorithms.PrefetchAlgorithm;
 import at.borkowski.prefetchsimulation.configuration.Configuration;
+import at.borkowski.prefetchsimulation.configuration.ConfigurationFingerprint;
 import at.borkowski.prefetchsimulation.configuration.RequestSeries;
 import at.borkowski.prefetchsimulation.configuration.distributions.Distribution;
-import at.borkowski.prefetchsimulation.util.RepeatableRandom;
+import at.borkowski.prefetchsimulation.util.RandomEngine;
+import at.borkowski.prefetchsimulation.util.RandomSource;
 
 public class GenesisGenerator {
+   /**
+    * The version of the generation procedure, which is part of the cache key.
+    * It must be increased whenever the output for a given configuration and
+    * seed changes.
+    */
+   static final int VERSION = 1;
+
+   /**
+    * The number of samples drawn at once from a distribution in the loops of
+    * the generation. Each block is drawn from a random stream used for nothing
+    * else, so the samples left over at the end have no effect.
+    */
+   private static final int BLOCK_SIZE = 256;
 
    private static Random seedSource = new Random();
-   private final RepeatableRandom random;
+   private final RandomEngine randomEngine;
+   private RandomSource random;
+
+   private final String fingerprint;
+   private GenesisCache cache = GenesisCache.getDefault();
+   // the explicitly set seed and the number of geneses generated since, if
+   // known; only then the output is reproducible and can be cached
+   private Long seed = null;
+   private int generation = 0;
+   private boolean parallel = false;
+   private boolean procedural;
 
    private final long totalTicks, lookAheadTime;
    private final Distribution<Integer> absoluteJitter;
@@ -33,9 +63,11 @@ public class GenesisGenerator {
    private final Collection<Request> intermittentRequests;
    private final Class<? extends PrefetchAlgorithm> algorithm;
    private final Map<String, String> algorithmConfiguration;
+   private final ClientOptions clientOptions;
 
    public GenesisGenerator(Configuration configuration) {
-      random = new RepeatableRandom(seedSource.nextLong());
+      randomEngine = configuration.getRandomEngine();
+      random = randomEngine.create(seedSource.nextLong());
 
       this.totalTicks = configuration.getTotalTicks();
       this.byterate = configuration.getByterate();
@@ -52,13 +84,61 @@ public class GenesisGenerator {
       this.algorithmConfiguration = configuration.getAlgorithmConfiguration();
       this.algorithm = configuration.getAlgorithm();
       this.lookAheadTime = configuration.getLookAheadTime();
+      this.clientOptions = configuration.getClientOptions();
+      this.procedural = configuration.isProcedural();
+      this.fingerprint = ConfigurationFingerprint.of(configuration);
 
       if (configuration.hasSeed())
-         random.setSeed(configuration.getSeed());
+         seed(configuration.getSeed());
    }
 
    public void seed(long seed) {
-      random.setSeed(seed);
+      random = randomEngine.create(seed);
+      this.seed = seed;
+      this.generation = 0;
+   }
+
+   /**
+    * Sets the cache consulted by {@link #generate()}. By default, this is
+    * {@link GenesisCache#getDefault()}. Geneses are only cached if the seed has
+    * been set explicitly, either in the configuration or using
+    * {@link #seed(long)}.
+    * 
+    * @param cache
+    *           the cache, or <code>null</code> to disable caching
+    */
+   public void setCache(GenesisCache cache) {
+      this.cache = cache;
+   }
+
+   /**
+    * Sets whether independent stages of {@link #generate()} are run
+    * concurrently on the common fork-join pool: the request series, and the
+    * prediction and graining of the network quality. Each stage uses its own
+    * random stream, forked in the same order as when generating sequentially,
+    * so the output is identical.
+    * 
+    * @param parallel
+    *           whether to generate in parallel
+    */
+   public void setParallel(boolean parallel) {
+      this.parallel = parallel;
+   }
+
+   /**
+    * Sets whether the grained network quality is computed on demand (see
+    * {@link ProceduralRateTimeline}) instead of being generated up front. This
+    * needs memory only for the slots of the network quality, independently of
+    * the number of ticks, but results in different jitter than the default
+    * generation. Procedural geneses are not cached, since generating them is
+    * cheaper than reading them. The default is taken from the configuration
+    * (see {@link Configuration#isProcedural()}).
+    * 
+    * @param procedural
+    *           whether to compute the grained network quality on demand
+    */
+   public void setProcedural(boolean procedural) {
+      this.procedural = procedural;
    }
 
    private long clamp(long min, long value, long max) {
@@ -78,34 +158,81 @@ public class GenesisGenerator {
    }
 
    public Genesis generate() {
-      RepeatableRandom randomNetworkQuality = random.fork();
-      RepeatableRandom randomNetworkPrediction = random.fork();
-      RepeatableRandom randomNetworkGrain = random.fork();
-      RepeatableRandom randomSeries = random.fork();
-
-      Map<Long, Integer> networkQuality = generateNetworkQuality(randomNetworkQuality);
-      Map<Long, Integer> prediction = generateNetworkQualityPrediction(randomNetworkPrediction, networkQuality);
+      RandomSource randomNetworkQuality = random.fork();
+      RandomSource randomNetworkPrediction = random.fork();
+      RandomSource randomNetworkGrain = random.fork();
+      RandomSource randomSeries = random.fork();
+
+      String key = cacheKey();
+      generation++;
+      if (key != null) {
+         Genesis cached = cache.get(key);
+         if (cached != null)
+            return new Genesis(totalTicks, cached.getRequests(), cached.getRateReal(), cached.getRatePredicted(), algorithm, algorithmConfiguration, lookAheadTime, clientOptions);
+      }
 
-      networkQuality = grainNetworkQuality(randomNetworkGrain, networkQuality);
+      // the series streams are forked up front, in order, so that the stages
+      // are independent of each other
+      List<SeriesRandom> seriesRandoms = new ArrayList<>(recurringSeries.size());
+      for (int i = 0; i < recurringSeries.size(); i++)
+         seriesRandoms.add(new SeriesRandom(randomSeries));
 
       List<Request> requests = new LinkedList<>();
-
       requests.addAll(intermittentRequests);
 
-      for (RequestSeries series : recurringSeries)
-         generateSeries(randomSeries, requests, series);
+      Map<Long, Integer> networkQuality;
+      RateTimeline prediction;
+      RateTimeline grainedNetworkQuality;
 
-      Genesis genesis = new Genesis(totalTicks, requests, networkQuality, prediction, algorithm, algorithmConfiguration, lookAheadTime);
+      if (parallel) {
+         ForkJoinPool pool = ForkJoinPool.commonPool();
+
+         List<ForkJoinTask<List<Request>>> seriesTasks = new ArrayList<>(recurringSeries.size());
+         int index = 0;
+         for (RequestSeries series : recurringSeries) {
+            SeriesRandom seriesRandom = seriesRandoms.get(index++);
+            seriesTasks.add(pool.submit(() -> generateSeries(seriesRandom, series)));
+         }
+
+         networkQuality = generateNetworkQuality(randomNetworkQuality);
+         ForkJoinTask<RateTimeline> predictionTask = pool.submit(() -> generateNetworkQualityPrediction(randomNetworkPrediction, networkQuality));
+         grainedNetworkQuality = grain(randomNetworkGrain, RateTimeline.of(networkQuality));
+         prediction = predictionTask.join();
+
+         for (ForkJoinTask<List<Request>> task : seriesTasks)
+            requests.addAll(task.join());
+      } else {
+         networkQuality = generateNetworkQuality(randomNetworkQuality);
+         prediction = generateNetworkQualityPrediction(randomNetworkPrediction, networkQuality);
+         grainedNetworkQuality = grain(randomNetworkGrain, RateTimeline.of(networkQuality));
+
+         int index = 0;
+         for (RequestSeries series : recurringSeries)
+            requests.addAll(generateSeries(seriesRandoms.get(index++), series));
+      }
+
+      Genesis genesis = new Genesis(totalTicks, requests, grainedNetworkQuality, prediction, algorithm, algorithmConfiguration, lookAheadTime, clientOptions);
+      if (key != null)
+         cache.put(key, genesis);
       return genesis;
    }
 
-   private void generateSeries(RepeatableRandom random, List<Request> requests, RequestSeries series) {
-      RepeatableRandom randomSize = random.fork();
-      RepeatableRandom randomByterate = random.fork();
-      RepeatableRandom randomInterval = random.fork();
+   /**
+    * Returns the cache key of the next genesis, or <code>null</code> if it
+    * cannot be cached. The random source has been forked already at this
+    * point, so a cache hit leaves it in the same state as generating.
+    */
+   private String cacheKey() {
+      if (cache == null || seed == null || fingerprint == null || procedural)
+         return null;
+      return "v" + VERSION + "-" + fingerprint + "-" + Long.toHexString(seed) + "-" + generation;
+   }
+
+   private List<Request> generateSeries(SeriesRandom random, RequestSeries series) {
+      List<Request> requests = new ArrayList<>();
 
-      long start = series.getStartTick().getValue(random.fork());
-      long end = series.getEndTick().getValue(random.fork());
+      long start = series.getStartTick().nextLong(random.start);
+      long end = series.getEndTick().nextLong(random.end);
 
       start = clamp(0, start, totalTicks - 1);
       end = clamp(start, end, totalTicks - 1);
@@ -113,22 +240,25 @@ public class GenesisGenerator {
       long current = start;
 
       while (current <= end) {
-         int data = series.getSize().getValue(randomSize);
-         int byterate = series.getByterate().getValue(randomByterate);
+         random.next(series);
+         int data = random.sizes[random.position];
+         int byterate = random.byterates[random.position];
 
          data = clamp(1, data, Integer.MAX_VALUE);
          byterate = clamp(1, byterate, Integer.MAX_VALUE);
 
          requests.add(new Request(current, data, byterate));
 
-         current += clamp(1, series.getInterval().getValue(randomInterval), Long.MAX_VALUE);
+         current += clamp(1, random.intervals[random.position], Long.MAX_VALUE);
       }
+
+      return requests;
    }
 
-   private Map<Long, Integer> generateNetworkQuality(RepeatableRandom random) {
-      RepeatableRandom randomByterate = random.fork();
-      RepeatableRandom randomUptime = random.fork();
-      RepeatableRandom randomLength = random.fork();
+   private Map<Long, Integer> generateNetworkQuality(RandomSource random) {
+      RandomSource randomByterate = random.fork();
+      RandomSource randomUptime = random.fork();
+      RandomSource randomLength = random.fork();
 
       Map<Long, Integer> ret = new HashMap<>();
       long tick = 0;
@@ -154,21 +284,40 @@ public class GenesisGenerator {
       return ret;
    }
 
-   private Map<Long, Integer> grainNetworkQuality(RepeatableRandom random, Map<Long, Integer> networkQuality) {
-      RepeatableRandom randomRelative = random.fork();
-      RepeatableRandom randomAbsolute = random.fork();
+   private RateTimeline grain(RandomSource random, RateTimeline networkQuality) {
+      if (!procedural)
+         return grainNetworkQuality(random, networkQuality);
+      long tickStep = Math.max(1, slotLength.getMean() / 10);
+      return new ProceduralRateTimeline(networkQuality, totalTicks, tickStep, random.nextLong(), random.nextLong(), relativeJitter, absoluteJitter);
+   }
 
-      Map<Long, Integer> ret = new HashMap<>();
+   private RateTimeline grainNetworkQuality(RandomSource random, RateTimeline networkQuality) {
+      RandomSource randomRelative = random.fork();
+      RandomSource randomAbsolute = random.fork();
+
+      RateTimeline.Builder ret = RateTimeline.builder();
       int lastRate = -1;
+      int slot = 0;
 
       long tickStep = Math.max(1, slotLength.getMean() / 10);
 
-      for (long tick = 0; tick < totalTicks; tick++) {
-         if (networkQuality.containsKey(tick))
-            lastRate = networkQuality.get(tick);
+      double[] relativeJitters = new double[BLOCK_SIZE];
+      int[] absoluteJitters = new int[BLOCK_SIZE];
+      int position = BLOCK_SIZE;
 
-         double relativeJitter = this.relativeJitter.getValue(randomRelative);
-         int absoluteJitter = this.absoluteJitter.getValue(randomAbsolute);
+      for (long tick = 0; tick < totalTicks; tick++) {
+         if (slot < networkQuality.size() && networkQuality.getTick(slot) == tick)
+            lastRate = networkQuality.getRawRate(slot++);
+
+         // a sample is drawn for every tick, not only the stored ones, which
+         // keeps the output of previous versions
+         if (position == BLOCK_SIZE) {
+            this.relativeJitter.fill(relativeJitters, randomRelative);
+            this.absoluteJitter.fill(absoluteJitters, randomAbsolute);
+            position = 0;
+         }
+         double relativeJitter = relativeJitters[position];
+         int absoluteJitter = absoluteJitters[position++];
 
          if (tick % tickStep == 0) {
             int byterate = lastRate;
@@ -176,18 +325,20 @@ public class GenesisGenerator {
             if (byterate != 0)
                byterate = (int) ((1D + relativeJitter) * byterate + absoluteJitter);
 
-            ret.put(tick, clamp(0, byterate, Integer.MAX_VALUE));
+            ret.putRaw(tick, clamp(0, byterate, Integer.MAX_VALUE));
          }
       }
 
-      return ret;
+      return ret.build();
    }
 
-   private Map<Long, Integer> generateNetworkQualityPrediction(RepeatableRandom random, Map<Long, Integer> networkQuality) {
-      RepeatableRandom randomTick = random.fork();
-      RepeatableRandom randomAmplitude = random.fork();
+   private RateTimeline generateNetworkQualityPrediction(RandomSource random, Map<Long, Integer> networkQuality) {
+      RandomSource randomTick = random.fork();
+      RandomSource randomAmplitude = random.fork();
 
-      Map<Long, Integer> ret = new HashMap<>();
+      // iterates the slots in map order, which determines both the random
+      // numbers drawn per slot and which of colliding predictions wins
+      RateTimeline.Builder ret = RateTimeline.builder();
 
       for (long tick : networkQuality.keySet()) {
          long predictionTick = 0;
@@ -205,9 +356,48 @@ public class GenesisGenerator {
          int predictionByterate = networkQuality.get(tick);
          predictionByterate = (int) (predictionByterate * (1D + relativeAmplitudeError)) + absoluteAmplitudeError;
          predictionByterate = clamp(0, predictionByterate, Integer.MAX_VALUE);
-         ret.put(predictionTick, predictionByterate);
+         ret.putRaw(predictionTick, predictionByterate);
       }
 
-      return ret;
+      return ret.build();
+   }
+
+   /**
+    * The random streams of a request series.
+    */
+   private static class SeriesRandom {
+      private final RandomSource size, byterate, interval, start, end;
+
+      // the current block of request values and the position in it
+      private int[] sizes, byterates;
+      private long[] intervals;
+      private int position = BLOCK_SIZE - 1;
+
+      SeriesRandom(RandomSource random) {
+         size = random.fork();
+         byterate = random.fork();
+         interval = random.fork();
+         start = random.fork();
+         end = random.fork();
+      }
+
+      /**
+       * Advances to the values of the next request, drawing a new block if
+       * necessary.
+       */
+      void next(RequestSeries series) {
+         if (++position < BLOCK_SIZE)
+            return;
+
+         if (sizes == null) {
+            sizes = new int[BLOCK_SIZE];
+            byterates = new int[BLOCK_SIZE];
+            intervals = new long[BLOCK_SIZE];
+         }
+         series.getSize().fill(sizes, size);
+         series.getByterate().fill(byterates, byterate);
+         series.getInterval().fill(intervals, interval);
+         position = 0;
+      }
    }
 }
@@ -0,0 +1,84 @@
+package at.borkowski.prefetchsimulation.genesis;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads a genesis in either the text format ({@link GenesisReader}) or the
+ * binary format ({@link BinaryGenesisReader}), detecting the format by the
+ * magic number of the binary format.
+ */
+public class GenesisLoader {
+
+   /**
+    * Reads a genesis from a file. Binary files are memory-mapped, large text
+    * files are parsed in parallel using {@link ParallelGenesisReader}.
+    *
+    * @param path
+    *           the file to read
+    * @return the genesis
+    * @throws IOException
+    *            if reading fails
+    * @throws GenesisException
+    *            if the file is malformed
+    */
+   public static Genesis load(Path path) throws IOException, GenesisException {
+      byte[] prefix = new byte[BinaryGenesisReader.MAGIC.length];
+      int length;
+      try (InputStream input = Files.newInputStream(path)) {
+         length = readFully(input, prefix);
+      }
+
+      if (BinaryGenesisReader.isBinary(prefix, length))
+         return BinaryGenesisReader.map(path).read();
+      if (Files.size(path) > ParallelGenesisReader.DEFAULT_CHUNK_SIZE)
+         return new ParallelGenesisReader(path).read();
+
+      try (InputStream input = Files.newInputStream(path)) {
+         return new GenesisReader(input).read();
+      }
+   }
+
+   /**
+    * Reads a genesis from a stream. Binary input is read into memory
+    * completely; use {@link #load(Path)} to avoid this for files.
+    *
+    * @param input
+    *           the stream to read
+    * @return the genesis
+    * @throws IOException
+    *            if reading fails
+    * @throws GenesisException
+    *            if the input is malformed
+    */
+   public static Genesis load(InputStream input) throws IOException, GenesisException {
+      BufferedInputStream buffered = new BufferedInputStream(input);
+      byte[] prefix = new byte[BinaryGenesisReader.MAGIC.length];
+      buffered.mark(prefix.length);
+      int length = readFully(buffered, prefix);
+      buffered.reset();
+
+      if (!BinaryGenesisReader.isBinary(prefix, length))
+         return new GenesisReader(buffered).read();
+
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] chunk = new byte[64 * 1024];
+      int read;
+      while ((read = buffered.read(chunk)) >= 0)
+         bytes.write(chunk, 0, read);
+      return new BinaryGenesisReader(ByteBuffer.wrap(bytes.toByteArray())).read();
+   }
+
+   private static int readFully(InputStream input, byte[] buffer) throws IOException {
+      int length = 0;
+      int read;
+      while (length < buffer.length && (read = input.read(buffer, length, buffer.length - length)) >= 0)
+         length += read;
+      return length;
+   }
+}
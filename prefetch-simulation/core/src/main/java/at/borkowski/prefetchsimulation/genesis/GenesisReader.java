@@ -1,22 +1,31 @@
 package at.borkowski.prefetchsimulation.genesis;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
+import at.borkowski.prefetchsimulation.CachePolicy;
+import at.borkowski.prefetchsimulation.ClientOptions;
+import at.borkowski.prefetchsimulation.RateTimeline;
 import at.borkowski.prefetchsimulation.Request;
 import at.borkowski.prefetchsimulation.algorithms.NullAlgorithm;
 import at.borkowski.prefetchsimulation.algorithms.PrefetchAlgorithm;
+import at.borkowski.prefetchsimulation.util.LineTokenizer;
 
 public class GenesisReader {
-   private final BufferedReader input;
+   private final LineTokenizer input;
+   private final int lineOffset;
+   private final boolean implicitEnd;
+
+   private int lineCounter = 0;
+   private long tick = 0, lastTick, end;
+   private boolean finished = false;
 
    public static final String CMD_END = "end";
    public static final String CMD_REQUEST = "request";
@@ -25,42 +34,134 @@ public class GenesisReader {
    public static final String CMD_ALGORITHM = "algorithm";
    public static final String CMD_ALGORITHM_PARAMETER = "algorithm-parameter";
    public static final String CMD_LOOK_AHEAD = "look-ahead";
+   public static final String CMD_CACHE = "cache";
+   public static final String CMD_FETCH_SLOTS = "fetch-slots";
+   public static final String CMD_BATCH_WINDOW = "batch-window";
 
    public GenesisReader(InputStream input) {
+      this(reader(input), 0, -1, -1, true);
+   }
+
+   /**
+    * Creates a reader for a part of a genesis file, continuing after the
+    * given state of the preceding part.
+    * 
+    * @param input
+    *           the part of the file, starting at the beginning of a line
+    * @param lineOffset
+    *           the number of lines preceding the part
+    * @param lastTick
+    *           the tick of the last event preceding the part, or
+    *           <code>-1</code>
+    * @param end
+    *           the end tick if it precedes the part, or <code>-1</code>
+    * @param implicitEnd
+    *           whether to generate an end event if the input contains none
+    */
+   GenesisReader(Reader input, int lineOffset, long lastTick, long end, boolean implicitEnd) {
+      this.input = new LineTokenizer(input);
+      this.lineOffset = lineOffset;
+      this.lastTick = lastTick;
+      this.end = end;
+      this.implicitEnd = implicitEnd;
+   }
+
+   private static Reader reader(InputStream input) {
       try {
-         this.input = new BufferedReader(new InputStreamReader(input, "UTF8"));
+         return new InputStreamReader(input, "UTF8");
       } catch (UnsupportedEncodingException ueEx) {
          throw new RuntimeException(ueEx);
       }
    }
 
+   /**
+    * Reads the whole genesis into memory. For large files, consider
+    * {@link #next()} instead.
+    * 
+    * @return the genesis
+    * @throws IOException
+    *            if reading fails
+    * @throws GenesisException
+    *            if the file is malformed
+    */
    public Genesis read() throws IOException, GenesisException {
       List<Request> requests = new LinkedList<>();
-      Map<Long, Integer> real = new HashMap<>();
-      Map<Long, Integer> predicted = new HashMap<>();
+      RateTimeline.Builder real = RateTimeline.builder();
+      RateTimeline.Builder predicted = RateTimeline.builder();
       Class<? extends PrefetchAlgorithm> algorithm = NullAlgorithm.class;
       Map<String, String> algorithmConfiguration = new HashMap<>();
 
       Long lookAhead = null;
+      ClientOptions clientOptions = ClientOptions.DEFAULT;
+      long end = -1;
 
-      String line;
-      long tick = 0, lastTick = -1, end = -1;
-      int lineCounter = 0;
-      while ((line = this.input.readLine()) != null) {
-         lineCounter++;
-         line = line.replaceAll("#.*$", "");
-         String[] split = line.split("\\s+");
+      GenesisEvent event;
+      while ((event = next()) != null) {
+         switch (event.getType()) {
+            case REQUEST:
+               requests.add(event.getRequest());
+               break;
+            case RATE_REAL:
+               real.putRaw(event.getTick(), event.getRate());
+               break;
+            case RATE_PREDICTION:
+               predicted.putRaw(event.getTick(), event.getRate());
+               break;
+            case ALGORITHM:
+               algorithm = event.getAlgorithm();
+               break;
+            case ALGORITHM_PARAMETER:
+               algorithmConfiguration.put(event.getKey(), event.getValue());
+               break;
+            case LOOK_AHEAD:
+               lookAhead = event.getLookAheadTime();
+               break;
+            case CACHE:
+            case FETCH_SLOTS:
+            case BATCH_WINDOW:
+               clientOptions = event.applyTo(clientOptions);
+               break;
+            case END:
+               end = event.getTick();
+               break;
+         }
+      }
 
-         while (split.length > 0 && split[0].length() == 0)
-            split = Arrays.copyOfRange(split, 1, split.length);
-         
-         if (split.length == 0)
+      if (lookAhead == null)
+         lookAhead = end + 1;
+
+      return new Genesis(end + 1, requests, real.build(), predicted.build(), algorithm, algorithmConfiguration, lookAhead, clientOptions);
+   }
+
+   /**
+    * Reads the next event of the genesis. Events are returned in the order of
+    * the file, which is validated to be ordered by tick, so that a genesis can
+    * be consumed while it is being read, without holding all of it in memory.
+    * 
+    * The last event is always of type {@link GenesisEvent.Type#END}; if the
+    * file contains no explicit end, it is generated at the tick of the last
+    * event. Malformed lines are only detected when they are reached.
+    * 
+    * @return the next event, or <code>null</code> if there are no more events
+    * @throws IOException
+    *            if reading fails
+    * @throws GenesisException
+    *            if the next line is malformed
+    */
+   public GenesisEvent next() throws IOException, GenesisException {
+      if (finished)
+         return null;
+
+      while (input.nextLine()) {
+         lineCounter = lineOffset + input.getLineNumber();
+
+         if (input.getTokenCount() == 0)
             continue;
          
          try {
-            tick = Long.parseLong(split[0]);
+            tick = input.parseLong(0);
          } catch (NumberFormatException nfEx) {
-            throw new GenesisException("could not parse tick number on line " + lineCounter + ": " + split[0], nfEx);
+            throw new GenesisException("could not parse tick number on line " + lineCounter + ": " + input.getToken(0), nfEx);
          }
          if (tick < 0)
             throw new GenesisException("negative tick on line " + lineCounter + ": " + tick);
@@ -69,107 +170,174 @@ public class GenesisReader {
          if (end != -1)
             throw new GenesisException("line " + lineCounter + ": no events after \"" + CMD_END + "\" are allowed");
 
-         if (split[1].equals(CMD_END))
-            if (split.length != 2)
+         GenesisEvent event;
+         if (input.tokenEquals(1, CMD_END))
+            if (input.getTokenCount() != 2)
                throw new GenesisException("no parameters allowed for \"" + CMD_END + "\"");
             else
-               end = tick;
-         else if (split[1].equals(CMD_REQUEST))
-            requests.add(parseRequest(tick, lineCounter, split));
-         else if (split[1].equals(CMD_RATE_REAL))
-            parseRate(tick, lineCounter, CMD_RATE_REAL, real, split);
-         else if (split[1].equals(CMD_RATE_PREDICTION))
-            parseRate(tick, lineCounter, CMD_RATE_PREDICTION, predicted, split);
-         else if (split[1].equals(CMD_ALGORITHM))
-            algorithm = parseAlgorithm(tick, lineCounter, split);
-         else if (split[1].equals(CMD_ALGORITHM_PARAMETER))
-            parseAlgorithmParam(tick, lineCounter, split, algorithmConfiguration);
-         else if (split[1].equals(CMD_LOOK_AHEAD))
-            lookAhead = parseLookAhead(tick, lineCounter, split);
+               event = GenesisEvent.end(end = tick);
+         else if (input.tokenEquals(1, CMD_REQUEST))
+            event = GenesisEvent.request(parseRequest(tick, lineCounter));
+         else if (input.tokenEquals(1, CMD_RATE_REAL))
+            event = GenesisEvent.rate(GenesisEvent.Type.RATE_REAL, tick, parseRate(lineCounter, CMD_RATE_REAL));
+         else if (input.tokenEquals(1, CMD_RATE_PREDICTION))
+            event = GenesisEvent.rate(GenesisEvent.Type.RATE_PREDICTION, tick, parseRate(lineCounter, CMD_RATE_PREDICTION));
+         else if (input.tokenEquals(1, CMD_ALGORITHM))
+            event = GenesisEvent.algorithm(parseAlgorithm(tick, lineCounter));
+         else if (input.tokenEquals(1, CMD_ALGORITHM_PARAMETER))
+            event = parseAlgorithmParam(tick, lineCounter);
+         else if (input.tokenEquals(1, CMD_LOOK_AHEAD))
+            event = GenesisEvent.lookAhead(parseLookAhead(tick, lineCounter));
+         else if (input.tokenEquals(1, CMD_CACHE))
+            event = parseCache(tick, lineCounter);
+         else if (input.tokenEquals(1, CMD_FETCH_SLOTS))
+            event = GenesisEvent.fetchSlots(parseFetchSlots(tick, lineCounter));
+         else if (input.tokenEquals(1, CMD_BATCH_WINDOW))
+            event = GenesisEvent.batchWindow(parseBatchWindow(tick, lineCounter));
          else
-            throw new GenesisException("unknown command: " + split[1]);
+            throw new GenesisException("unknown command: " + input.getToken(1));
 
          lastTick = tick;
+         return event;
       }
 
-      if (end == -1)
-         end = tick;
-
-      if (lookAhead == null)
-         lookAhead = end + 1;
+      finished = true;
+      if (end != -1 || !implicitEnd)
+         return null;
+      return GenesisEvent.end(end = tick);
+   }
 
-      return new Genesis(end + 1, requests, real, predicted, algorithm, algorithmConfiguration, lookAhead);
+   /**
+    * Returns the number of lines read so far, not counting the line offset.
+    */
+   int getLineCount() {
+      return input.getLineNumber();
    }
 
-   private void parseAlgorithmParam(long tick, int lineCounter, String[] split, Map<String, String> algorithmConfiguration) throws GenesisException {
+   private GenesisEvent parseAlgorithmParam(long tick, int lineCounter) throws GenesisException {
       if (tick != 0)
          throw new GenesisException("line " + lineCounter + ": algorithm parameters must be set at tick 0");
-      if (split.length != 4)
+      if (input.getTokenCount() != 4)
          throw new GenesisException("line " + lineCounter + ": usage is \"0 " + CMD_ALGORITHM_PARAMETER + " <key> <value>");
 
-      String k = split[2];
-      String v = split[3];
-      algorithmConfiguration.put(k, v);
+      String k = input.getToken(2);
+      String v = input.getToken(3);
+      return GenesisEvent.algorithmParameter(k, v);
    }
 
-   private Long parseLookAhead(long tick, int lineCounter, String[] split) throws GenesisException {
+   private Long parseLookAhead(long tick, int lineCounter) throws GenesisException {
       if (tick != 0)
          throw new GenesisException("line " + lineCounter + ": look-ahead time must be set at tick 0");
-      if (split.length != 3)
+      if (input.getTokenCount() != 3)
          throw new GenesisException("line " + lineCounter + ": usage is \"0 " + CMD_LOOK_AHEAD + " <look-ahead-time>");
 
       try {
-         return Long.parseLong(split[2]);
+         return input.parseLong(2);
+      } catch (NumberFormatException nfEx) {
+         throw new GenesisException("could not parse look-ahead-time on line " + lineCounter + ": " + input.getToken(2), nfEx);
+      }
+   }
+
+   private GenesisEvent parseCache(long tick, int lineCounter) throws GenesisException {
+      if (tick != 0)
+         throw new GenesisException("line " + lineCounter + ": cache must be set at tick 0");
+      if (input.getTokenCount() != 4)
+         throw new GenesisException("line " + lineCounter + ": usage is \"0 " + CMD_CACHE + " <size> <policy>");
+
+      long size;
+      try {
+         size = input.parseLong(2);
+      } catch (NumberFormatException nfEx) {
+         throw new GenesisException("could not parse cache size on line " + lineCounter + ": " + input.getToken(2), nfEx);
+      }
+      if (size < 0)
+         throw new GenesisException("line " + lineCounter + ": negative cache size: " + size);
+
+      CachePolicy policy = CachePolicy.forName(input.getToken(3));
+      if (policy == null)
+         throw new GenesisException("line " + lineCounter + ": unknown cache policy: " + input.getToken(3));
+      return GenesisEvent.cache(size, policy);
+   }
+
+   private int parseFetchSlots(long tick, int lineCounter) throws GenesisException {
+      if (tick != 0)
+         throw new GenesisException("line " + lineCounter + ": fetch slots must be set at tick 0");
+      if (input.getTokenCount() != 3)
+         throw new GenesisException("line " + lineCounter + ": usage is \"0 " + CMD_FETCH_SLOTS + " <slots>");
+
+      int slots;
+      try {
+         slots = input.parseInt(2);
+      } catch (NumberFormatException nfEx) {
+         throw new GenesisException("could not parse fetch slots on line " + lineCounter + ": " + input.getToken(2), nfEx);
+      }
+      if (slots < 1)
+         throw new GenesisException("line " + lineCounter + ": at least one fetch slot required: " + slots);
+      return slots;
+   }
+
+   private long parseBatchWindow(long tick, int lineCounter) throws GenesisException {
+      if (tick != 0)
+         throw new GenesisException("line " + lineCounter + ": batch window must be set at tick 0");
+      if (input.getTokenCount() != 3)
+         throw new GenesisException("line " + lineCounter + ": usage is \"0 " + CMD_BATCH_WINDOW + " <ticks>");
+
+      long window;
+      try {
+         window = input.parseLong(2);
       } catch (NumberFormatException nfEx) {
-         throw new GenesisException("could not parse look-ahead-time on line " + lineCounter + ": " + split[2], nfEx);
+         throw new GenesisException("could not parse batch window on line " + lineCounter + ": " + input.getToken(2), nfEx);
       }
+      if (window < 0)
+         throw new GenesisException("line " + lineCounter + ": negative batch window: " + window);
+      return window;
    }
 
-   private Class<? extends PrefetchAlgorithm> parseAlgorithm(long tick, int lineCounter, String[] split) throws GenesisException {
+   private Class<? extends PrefetchAlgorithm> parseAlgorithm(long tick, int lineCounter) throws GenesisException {
       if (tick != 0)
          throw new GenesisException("line " + lineCounter + ": algorithm must be set at tick 0");
-      if (split.length != 3)
+      if (input.getTokenCount() != 3)
          throw new GenesisException("line " + lineCounter + ": usage is \"0 " + CMD_ALGORITHM + " <algorithm-class>");
 
       try {
          @SuppressWarnings("unchecked")
-         Class<? extends PrefetchAlgorithm> clazz = (Class<? extends PrefetchAlgorithm>) Class.forName(split[2]);
+         Class<? extends PrefetchAlgorithm> clazz = (Class<? extends PrefetchAlgorithm>) Class.forName(input.getToken(2));
          return clazz;
       } catch (ClassNotFoundException e) {
-         throw new GenesisException("line " + lineCounter + ": class not found: " + split[2], e);
+         throw new GenesisException("line " + lineCounter + ": class not found: " + input.getToken(2), e);
       }
    }
 
-   private void parseRate(long tick, int lineCounter, String cmd, Map<Long, Integer> map, String[] split) throws GenesisException {
-      if (split.length != 3)
+   private int parseRate(int lineCounter, String cmd) throws GenesisException {
+      if (input.getTokenCount() != 3)
          throw new GenesisException("line " + lineCounter + ": usage is \"<tick> " + cmd + " <rate>");
 
       int rate;
       try {
-         rate = Integer.parseInt(split[2]);
+         rate = input.parseInt(2);
       } catch (NumberFormatException nfEx) {
-         throw new GenesisException("could not parse rate on line " + lineCounter + ": " + split[2], nfEx);
+         throw new GenesisException("could not parse rate on line " + lineCounter + ": " + input.getToken(2), nfEx);
       }
 
-      map.put(tick, rate);
+      return rate;
    }
 
-   private Request parseRequest(long tick, int lineCounter, String[] split) throws GenesisException {
-      if (split.length != 4)
+   private Request parseRequest(long tick, int lineCounter) throws GenesisException {
+      if (input.getTokenCount() != 4)
          throw new GenesisException("line " + lineCounter + ": usage is \"<tick> " + CMD_REQUEST + " <data> <byterate>");
 
       int data;
       int byterate;
 
       try {
-         data = Integer.parseInt(split[2]);
+         data = input.parseInt(2);
       } catch (NumberFormatException nfEx) {
-         throw new GenesisException("could not parse request data length on line " + lineCounter + ": " + split[2], nfEx);
+         throw new GenesisException("could not parse request data length on line " + lineCounter + ": " + input.getToken(2), nfEx);
       }
       try {
-         byterate = Integer.parseInt(split[3]);
+         byterate = input.parseInt(3);
       } catch (NumberFormatException nfEx) {
-         throw new GenesisException("could not parse request byte rate on line " + lineCounter + ": " + split[3], nfEx);
+         throw new GenesisException("could not parse request byte rate on line " + lineCounter + ": " + input.getToken(3), nfEx);
       }
 
       return new Request(tick, data, byterate);
@@ -1,77 +1,227 @@
 package at.borkowski.prefetchsimulation.genesis;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.UnsupportedEncodingException;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 
+import at.borkowski.prefetchsimulation.ClientOptions;
+import at.borkowski.prefetchsimulation.RateTimeline;
 import at.borkowski.prefetchsimulation.Request;
 
+/**
+ * Writes a genesis in the text format read by {@link GenesisReader}.
+ * 
+ * Lines are ordered by tick. The sources of lines (algorithm settings, real
+ * rates, predicted rates, the end and the requests) are each sorted already,
+ * so they are merged while writing; lines of the same tick are written in that
+ * order of sources.
+ */
 public class GenesisWriter {
+   private static final int BUFFER_SIZE = 64 * 1024;
+   private static final byte[] NULL = { 'n', 'u', 'l', 'l' };
 
-   private final BufferedWriter output;
+   private final OutputStream output;
+   private final byte[] buffer = new byte[BUFFER_SIZE];
+   private int position = 0;
 
    public GenesisWriter(OutputStream output) {
-      try {
-         this.output = new BufferedWriter(new OutputStreamWriter(output, "UTF8"));
-      } catch (UnsupportedEncodingException ueEx) {
-         throw new RuntimeException(ueEx);
-      }
+      this.output = output;
    }
 
    public void write(Genesis genesis) throws IOException {
-      Map<Long, Collection<String>> lines = new HashMap<>();
+      RateTimeline real = genesis.getRateReal();
+      RateTimeline predicted = genesis.getRatePredicted();
+      Request[] requests = sortedRequests(genesis.getRequests());
+      long end = genesis.getTicks() - 1;
+
+      boolean metaWritten = false, endWritten = false;
+      int realIndex = 0, predictedIndex = 0, requestIndex = 0;
+
+      while (true) {
+         // Long.MAX_VALUE is neutral for min, so "remaining" tracks whether any source is left
+         long tick = Long.MAX_VALUE;
+         boolean remaining = !metaWritten || !endWritten;
+         if (!metaWritten)
+            tick = 0;
+         if (!endWritten)
+            tick = Math.min(tick, end);
+         if (realIndex < real.size()) {
+            tick = Math.min(tick, real.getTick(realIndex));
+            remaining = true;
+         }
+         if (predictedIndex < predicted.size()) {
+            tick = Math.min(tick, predicted.getTick(predictedIndex));
+            remaining = true;
+         }
+         if (requestIndex < requests.length) {
+            tick = Math.min(tick, requests[requestIndex].getDeadline());
+            remaining = true;
+         }
+         if (!remaining)
+            break;
+
+         if (!metaWritten && tick == 0) {
+            writeMeta(genesis);
+            metaWritten = true;
+         }
+         if (realIndex < real.size() && real.getTick(realIndex) == tick)
+            writeRate(tick, GenesisReader.CMD_RATE_REAL, real, realIndex++);
+         if (predictedIndex < predicted.size() && predicted.getTick(predictedIndex) == tick)
+            writeRate(tick, GenesisReader.CMD_RATE_PREDICTION, predicted, predictedIndex++);
+         if (!endWritten && end == tick) {
+            writeCommand(tick, GenesisReader.CMD_END);
+            writeByte('\n');
+            endWritten = true;
+         }
+         while (requestIndex < requests.length && requests[requestIndex].getDeadline() == tick)
+            writeRequest(requests[requestIndex++]);
+      }
 
-      add(lines, 0, GenesisReader.CMD_ALGORITHM, genesis.getAlgorithm().getName());
-      for (String key : genesis.getAlgorithmConfiguration().keySet())
-         add(lines, 0, GenesisReader.CMD_ALGORITHM_PARAMETER, key, genesis.getAlgorithmConfiguration().get(key));
-      add(lines, 0, GenesisReader.CMD_LOOK_AHEAD, String.valueOf(genesis.getLookAheadTime()));
+      output.write(buffer, 0, position);
+      position = 0;
+      output.flush();
+   }
 
-      addRates(lines, genesis.getRateReal(), GenesisReader.CMD_RATE_REAL);
-      addRates(lines, genesis.getRatePredicted(), GenesisReader.CMD_RATE_PREDICTION);
+   /**
+    * Returns the requests ordered by deadline, keeping the order of requests
+    * with the same deadline. Usually, the requests are sorted already.
+    */
+   private static Request[] sortedRequests(List<Request> list) {
+      Request[] requests = list.toArray(new Request[list.size()]);
+      for (int i = 1; i < requests.length; i++)
+         if (requests[i].getDeadline() < requests[i - 1].getDeadline()) {
+            Arrays.sort(requests, Comparator.comparingLong(Request::getDeadline));
+            break;
+         }
+      return requests;
+   }
 
-      add(lines, genesis.getTicks() - 1, GenesisReader.CMD_END);
+   private void writeMeta(Genesis genesis) throws IOException {
+      writeCommand(0, GenesisReader.CMD_ALGORITHM);
+      writeByte(' ');
+      writeString(genesis.getAlgorithm().getName());
+      writeByte('\n');
+
+      for (Map.Entry<String, String> entry : genesis.getAlgorithmConfiguration().entrySet()) {
+         writeCommand(0, GenesisReader.CMD_ALGORITHM_PARAMETER);
+         writeByte(' ');
+         writeString(entry.getKey());
+         writeByte(' ');
+         writeString(entry.getValue());
+         writeByte('\n');
+      }
 
-      for (Request request : genesis.getRequests())
-         add(lines, request.getDeadline(), GenesisReader.CMD_REQUEST, String.valueOf(request.getData()), String.valueOf(request.getAvailableByterate()));
+      writeCommand(0, GenesisReader.CMD_LOOK_AHEAD);
+      writeByte(' ');
+      writeLong(genesis.getLookAheadTime());
+      writeByte('\n');
+
+      ClientOptions clientOptions = genesis.getClientOptions();
+      if (clientOptions.getCacheSize() != ClientOptions.UNBOUNDED) {
+         writeCommand(0, GenesisReader.CMD_CACHE);
+         writeByte(' ');
+         writeLong(clientOptions.getCacheSize());
+         writeByte(' ');
+         writeString(clientOptions.getCachePolicy().getName());
+         writeByte('\n');
+      }
 
-      List<Long> ticks = new LinkedList<>();
-      for (long tick : lines.keySet())
-         if (!ticks.contains(tick))
-            ticks.add(tick);
+      if (clientOptions.getFetchSlots() != 1) {
+         writeCommand(0, GenesisReader.CMD_FETCH_SLOTS);
+         writeByte(' ');
+         writeLong(clientOptions.getFetchSlots());
+         writeByte('\n');
+      }
+
+      if (clientOptions.getBatchWindow() != ClientOptions.NO_BATCHING) {
+         writeCommand(0, GenesisReader.CMD_BATCH_WINDOW);
+         writeByte(' ');
+         writeLong(clientOptions.getBatchWindow());
+         writeByte('\n');
+      }
+   }
 
-      Collections.sort(ticks);
-      for (long tick : ticks)
-         for (String line : lines.get(tick))
-            output.write(line);
+   private void writeRate(long tick, String command, RateTimeline rates, int index) throws IOException {
+      writeCommand(tick, command);
+      writeByte(' ');
+      int rate = rates.getRawRate(index);
+      if (rate == RateTimeline.NO_LIMIT)
+         writeBytes(NULL);
+      else
+         writeLong(rate);
+      writeByte('\n');
+   }
 
-      output.flush();
+   private void writeRequest(Request request) throws IOException {
+      writeCommand(request.getDeadline(), GenesisReader.CMD_REQUEST);
+      writeByte(' ');
+      writeLong(request.getData());
+      writeByte(' ');
+      writeLong(request.getAvailableByterate());
+      writeByte('\n');
    }
 
-   private void addRates(Map<Long, Collection<String>> lines, Map<Long, Integer> rates, String command) {
-      for (long tick : rates.keySet())
-         add(lines, tick, command, String.valueOf(rates.get(tick)));
+   private void writeCommand(long tick, String command) throws IOException {
+      writeLong(tick);
+      writeByte(' ');
+      // commands are ASCII
+      ensure(command.length());
+      for (int i = 0; i < command.length(); i++)
+         buffer[position++] = (byte) command.charAt(i);
    }
 
-   private void add(Map<Long, Collection<String>> lines, long tick, String... tokens) {
-      StringBuilder sb = new StringBuilder();
-      sb.append(tick);
-      for (String token : tokens) {
-         sb.append(' ');
-         sb.append(token);
+   private void writeString(String string) throws IOException {
+      writeBytes(string.getBytes(StandardCharsets.UTF_8));
+   }
+
+   private void writeBytes(byte[] bytes) throws IOException {
+      if (bytes.length > buffer.length) {
+         output.write(buffer, 0, position);
+         position = 0;
+         output.write(bytes);
+         return;
+      }
+      ensure(bytes.length);
+      System.arraycopy(bytes, 0, buffer, position, bytes.length);
+      position += bytes.length;
+   }
+
+   private void writeLong(long value) throws IOException {
+      if (value == Long.MIN_VALUE) {
+         writeString(String.valueOf(value));
+         return;
+      }
+
+      // at most 19 digits and a sign
+      ensure(20);
+      if (value < 0) {
+         buffer[position++] = '-';
+         value = -value;
       }
-      sb.append('\n');
-      String line = sb.toString();
 
-      if (!lines.containsKey(tick))
-         lines.put(tick, new LinkedList<>());
-      lines.get(tick).add(line);
+      int digits = 1;
+      for (long rest = value / 10; rest != 0; rest /= 10)
+         digits++;
+      for (int i = position + digits - 1; i >= position; i--) {
+         buffer[i] = (byte) ('0' + value % 10);
+         value /= 10;
+      }
+      position += digits;
+   }
+
+   private void writeByte(int b) throws IOException {
+      ensure(1);
+      buffer[position++] = (byte) b;
+   }
+
+   private void ensure(int length) throws IOException {
+      if (buffer.length - position < length) {
+         output.write(buffer, 0, position);
+         position = 0;
+      }
    }
 }
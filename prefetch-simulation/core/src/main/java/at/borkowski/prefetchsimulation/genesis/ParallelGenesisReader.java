@@ -0,0 +1,334 @@
+package at.borkowski.prefetchsimulation.genesis;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import at.borkowski.prefetchsimulation.ClientOptions;
+import at.borkowski.prefetchsimulation.RateTimeline;
+import at.borkowski.prefetchsimulation.Request;
+import at.borkowski.prefetchsimulation.algorithms.NullAlgorithm;
+import at.borkowski.prefetchsimulation.algorithms.PrefetchAlgorithm;
+
+/**
+ * Reads a genesis text file in parallel. The file is split into chunks at line
+ * boundaries, each chunk is memory-mapped and parsed on a fork-join pool, and
+ * the results are concatenated.
+ * 
+ * Each chunk is validated on its own; ordering of ticks and the position of
+ * the end across chunks is validated while concatenating. If a chunk is
+ * invalid, it is parsed again with the state of the preceding chunks, so that
+ * the reported error (including its line number) is the same as the one
+ * reported by {@link GenesisReader}.
+ */
+public class ParallelGenesisReader {
+   public static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+
+   private static final int SCAN_SIZE = 64 * 1024;
+
+   private final Path path;
+   private final ForkJoinPool pool;
+   private final int chunkSize;
+
+   public ParallelGenesisReader(Path path) {
+      this(path, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+   }
+
+   /**
+    * Creates a reader.
+    * 
+    * @param path
+    *           the file to read
+    * @param pool
+    *           the pool to parse chunks on
+    * @param chunkSize
+    *           the approximate size of chunks in bytes
+    */
+   public ParallelGenesisReader(Path path, ForkJoinPool pool, int chunkSize) {
+      if (chunkSize <= 0)
+         throw new IllegalArgumentException("chunk size must be positive");
+      this.path = path;
+      this.pool = pool;
+      this.chunkSize = chunkSize;
+   }
+
+   /**
+    * Reads the whole genesis.
+    * 
+    * @return the genesis
+    * @throws IOException
+    *            if reading fails
+    * @throws GenesisException
+    *            if the file is malformed
+    */
+   public Genesis read() throws IOException, GenesisException {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+         long[] boundaries = split(channel);
+
+         List<ForkJoinTask<Chunk>> tasks = new ArrayList<>(boundaries.length - 1);
+         for (int i = 0; i < boundaries.length - 1; i++) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, boundaries[i], boundaries[i + 1] - boundaries[i]);
+            tasks.add(pool.submit(() -> Chunk.parse(buffer)));
+         }
+
+         List<Chunk> chunks = new ArrayList<>(tasks.size());
+         for (ForkJoinTask<Chunk> task : tasks)
+            chunks.add(join(task));
+
+         return concatenate(chunks, boundaries, channel);
+      }
+   }
+
+   /**
+    * Returns the offsets at which chunks start, plus the file size. Each
+    * chunk but the first starts right after a <code>\n</code>, which is never
+    * part of a multi-byte UTF-8 sequence.
+    */
+   private long[] split(FileChannel channel) throws IOException {
+      long size = channel.size();
+      List<Long> boundaries = new ArrayList<>();
+      boundaries.add(0L);
+
+      ByteBuffer scan = ByteBuffer.allocate(SCAN_SIZE);
+      long position = chunkSize;
+      while (position < size) {
+         long boundary = -1;
+         while (boundary == -1 && position < size) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read < 0)
+               break;
+            for (int i = 0; i < read; i++)
+               if (scan.get(i) == '\n') {
+                  boundary = position + i + 1;
+                  break;
+               }
+            if (boundary == -1)
+               position += read;
+         }
+         if (boundary == -1 || boundary >= size)
+            break;
+         boundaries.add(boundary);
+         position = boundary + chunkSize;
+      }
+
+      boundaries.add(size);
+      long[] result = new long[boundaries.size()];
+      for (int i = 0; i < result.length; i++)
+         result[i] = boundaries.get(i);
+      return result;
+   }
+
+   private Genesis concatenate(List<Chunk> chunks, long[] boundaries, FileChannel channel) throws IOException, GenesisException {
+      Class<? extends PrefetchAlgorithm> algorithm = NullAlgorithm.class;
+      Map<String, String> algorithmConfiguration = new HashMap<>();
+      Long lookAhead = null;
+      ClientOptions clientOptions = ClientOptions.DEFAULT;
+      int requestCount = 0;
+
+      int lineOffset = 0;
+      long lastTick = -1, end = -1;
+      for (int i = 0; i < chunks.size(); i++) {
+         Chunk chunk = chunks.get(i);
+
+         boolean seamValid = chunk.events == 0 || (end == -1 && chunk.firstTick >= lastTick);
+         if (chunk.error != null || !seamValid) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, boundaries[i], boundaries[i + 1] - boundaries[i]);
+            GenesisReader reader = new GenesisReader(reader(buffer), lineOffset, lastTick, end, false);
+            while (reader.next() != null)
+               ;
+            // the chunk is invalid also with the preceding state, so this is unreachable
+            throw new IllegalStateException("chunk " + i + " could not be validated", chunk.error);
+         }
+
+         if (chunk.algorithm != null)
+            algorithm = chunk.algorithm;
+         algorithmConfiguration.putAll(chunk.algorithmConfiguration);
+         if (chunk.lookAhead != null)
+            lookAhead = chunk.lookAhead;
+         for (GenesisEvent event : chunk.clientOptions)
+            clientOptions = event.applyTo(clientOptions);
+         requestCount += chunk.requests.size;
+
+         lineOffset += chunk.lines;
+         if (chunk.events != 0)
+            lastTick = chunk.lastTick;
+         if (chunk.end != -1)
+            end = chunk.end;
+      }
+
+      if (end == -1)
+         end = Math.max(lastTick, 0);
+      if (lookAhead == null)
+         lookAhead = end + 1;
+
+      List<Request> requests = new ArrayList<>(requestCount);
+      RateTimeline.Builder real = RateTimeline.builder();
+      RateTimeline.Builder predicted = RateTimeline.builder();
+      for (Chunk chunk : chunks) {
+         Column column = chunk.requests;
+         for (int i = 0; i < column.size; i++)
+            requests.add(new Request(column.ticks[i], column.values[i], column.extra[i]));
+         chunk.real.addTo(real);
+         chunk.predicted.addTo(predicted);
+      }
+
+      return new Genesis(end + 1, requests, real.build(), predicted.build(), algorithm, algorithmConfiguration, lookAhead, clientOptions);
+   }
+
+   private static Chunk join(ForkJoinTask<Chunk> task) throws IOException {
+      try {
+         return task.get();
+      } catch (InterruptedException iEx) {
+         Thread.currentThread().interrupt();
+         throw new IOException("interrupted while parsing", iEx);
+      } catch (ExecutionException eEx) {
+         if (eEx.getCause() instanceof IOException)
+            throw (IOException) eEx.getCause();
+         throw new RuntimeException(eEx.getCause());
+      }
+   }
+
+   private static Reader reader(ByteBuffer buffer) {
+      return new InputStreamReader(new ByteBufferInputStream(buffer), StandardCharsets.UTF_8);
+   }
+
+   /**
+    * The result of parsing a chunk on its own.
+    */
+   private static class Chunk {
+      int lines, events;
+      long firstTick, lastTick, end = -1;
+      GenesisException error;
+
+      Class<? extends PrefetchAlgorithm> algorithm;
+      final Map<String, String> algorithmConfiguration = new HashMap<>();
+      Long lookAhead;
+      final List<GenesisEvent> clientOptions = new ArrayList<>();
+
+      final Column requests = new Column(true);
+      final Column real = new Column(false);
+      final Column predicted = new Column(false);
+
+      static Chunk parse(ByteBuffer buffer) throws IOException {
+         Chunk chunk = new Chunk();
+         GenesisReader reader = new GenesisReader(reader(buffer), 0, -1, -1, false);
+         try {
+            GenesisEvent event;
+            while ((event = reader.next()) != null)
+               chunk.add(event);
+         } catch (GenesisException gEx) {
+            chunk.error = gEx;
+         }
+         chunk.lines = reader.getLineCount();
+         return chunk;
+      }
+
+      private void add(GenesisEvent event) {
+         if (events++ == 0)
+            firstTick = event.getTick();
+         lastTick = event.getTick();
+
+         switch (event.getType()) {
+            case REQUEST:
+               Request request = event.getRequest();
+               requests.add(request.getDeadline(), request.getData(), request.getAvailableByterate());
+               break;
+            case RATE_REAL:
+               real.add(event.getTick(), event.getRate(), 0);
+               break;
+            case RATE_PREDICTION:
+               predicted.add(event.getTick(), event.getRate(), 0);
+               break;
+            case ALGORITHM:
+               algorithm = event.getAlgorithm();
+               break;
+            case ALGORITHM_PARAMETER:
+               algorithmConfiguration.put(event.getKey(), event.getValue());
+               break;
+            case LOOK_AHEAD:
+               lookAhead = event.getLookAheadTime();
+               break;
+            case CACHE:
+            case FETCH_SLOTS:
+            case BATCH_WINDOW:
+               clientOptions.add(event);
+               break;
+            case END:
+               end = event.getTick();
+               break;
+         }
+      }
+   }
+
+   /**
+    * A growable column of ticks with one or two <code>int</code> values each.
+    */
+   private static class Column {
+      long[] ticks = new long[16];
+      int[] values = new int[16];
+      int[] extra;
+      int size = 0;
+
+      Column(boolean hasExtra) {
+         extra = hasExtra ? new int[16] : null;
+      }
+
+      void add(long tick, int value, int extraValue) {
+         if (size == ticks.length) {
+            ticks = Arrays.copyOf(ticks, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+            if (extra != null)
+               extra = Arrays.copyOf(extra, size * 2);
+         }
+         ticks[size] = tick;
+         values[size] = value;
+         if (extra != null)
+            extra[size] = extraValue;
+         size++;
+      }
+
+      void addTo(RateTimeline.Builder builder) {
+         for (int i = 0; i < size; i++)
+            builder.putRaw(ticks[i], values[i]);
+      }
+   }
+
+   private static class ByteBufferInputStream extends InputStream {
+      private final ByteBuffer buffer;
+
+      ByteBufferInputStream(ByteBuffer buffer) {
+         this.buffer = buffer;
+      }
+
+      @Override
+      public int read() {
+         return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) {
+         if (len == 0)
+            return 0;
+         if (!buffer.hasRemaining())
+            return -1;
+         len = Math.min(len, buffer.remaining());
+         buffer.get(b, off, len);
+         return len;
+      }
+   }
+}
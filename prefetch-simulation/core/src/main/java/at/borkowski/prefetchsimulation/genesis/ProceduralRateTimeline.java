@@ -0,0 +1,85 @@
+package at.borkowski.prefetchsimulation.genesis;
+
+import at.borkowski.prefetchsimulation.RateTimeline;
+import at.borkowski.prefetchsimulation.configuration.distributions.Distribution;
+import at.borkowski.prefetchsimulation.util.CounterRandom;
+
+/**
+ * The grained network quality, computed on demand. There is an entry every
+ * <code>tickStep</code> ticks, whose rate is the rate of the slot it lies in
+ * with relative and absolute jitter applied. The jitter of an entry is drawn
+ * from a {@link CounterRandom} keyed by the entry index, so entries can be
+ * computed in any order and only the slots are kept in memory.
+ */
+class ProceduralRateTimeline extends RateTimeline {
+   private final RateTimeline slots;
+   private final long tickStep;
+   private final int size;
+   private final long relativeKey, absoluteKey;
+   private final Distribution<Double> relativeJitter;
+   private final Distribution<Integer> absoluteJitter;
+
+   /**
+    * Creates a timeline.
+    *
+    * @param slots
+    *           the network quality, which must have an entry at tick 0
+    * @param totalTicks
+    *           the number of ticks to cover
+    * @param tickStep
+    *           the distance between entries
+    * @param relativeKey
+    *           the key of the random streams of the relative jitter
+    * @param absoluteKey
+    *           the key of the random streams of the absolute jitter
+    * @param relativeJitter
+    *           the relative jitter
+    * @param absoluteJitter
+    *           the absolute jitter
+    */
+   ProceduralRateTimeline(RateTimeline slots, long totalTicks, long tickStep, long relativeKey, long absoluteKey, Distribution<Double> relativeJitter, Distribution<Integer> absoluteJitter) {
+      long size = totalTicks <= 0 ? 0 : (totalTicks - 1) / tickStep + 1;
+      if (size > Integer.MAX_VALUE)
+         throw new IllegalArgumentException("too many entries: " + size);
+
+      this.slots = slots;
+      this.tickStep = tickStep;
+      this.size = (int) size;
+      this.relativeKey = relativeKey;
+      this.absoluteKey = absoluteKey;
+      this.relativeJitter = relativeJitter;
+      this.absoluteJitter = absoluteJitter;
+   }
+
+   @Override
+   public int size() {
+      return size;
+   }
+
+   @Override
+   public long getTick(int index) {
+      return index * tickStep;
+   }
+
+   @Override
+   public int getRawRate(int index) {
+      int byterate = slots.getRawRate(slots.floorIndex(getTick(index)));
+      if (byterate == 0)
+         return 0;
+
+      double relative = relativeJitter.nextDouble(new CounterRandom(relativeKey, index));
+      int absolute = absoluteJitter.nextInt(new CounterRandom(absoluteKey, index));
+      byterate = (int) ((1D + relative) * byterate + absolute);
+      return byterate < 0 ? 0 : byterate;
+   }
+
+   @Override
+   protected int search(long tick) {
+      if (tick < 0)
+         return -1;
+      long index = tick / tickStep;
+      if (index >= size)
+         return -(size + 1);
+      return tick % tickStep == 0 ? (int) index : -((int) index + 2);
+   }
+}
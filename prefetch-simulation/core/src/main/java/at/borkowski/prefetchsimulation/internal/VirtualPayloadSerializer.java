@@ -1,16 +1,20 @@
 package at.borkowski.prefetchsimulation.internal;
 
-import java.nio.ByteBuffer;
-
 import at.borkowski.scovillej.services.comm.Serializer;
 
+/**
+ * Serializes {@link VirtualPayload} objects into frames consisting of a
+ * four-byte big-endian size header, followed by zero padding up to the
+ * declared size if the payload is to be transferred.
+ */
 public class VirtualPayloadSerializer implements Serializer<VirtualPayload> {
+   public static final int HEADER_LENGTH = 4;
+
    @Override
    public VirtualPayload deserialize(byte[] bytes) {
-      if (bytes.length < 4)
+      if (bytes.length < HEADER_LENGTH)
          throw new IllegalArgumentException("frame must be at least four bytes long");
-      ByteBuffer wrapper = ByteBuffer.wrap(bytes);
-      return new VirtualPayload(wrapper.getInt(0));
+      return new VirtualPayload(decodeHeader(bytes));
    }
 
    public java.lang.Class<VirtualPayload> getSerializedClass() {
@@ -19,10 +23,20 @@ public class VirtualPayloadSerializer implements Serializer<VirtualPayload> {
 
    @Override
    public byte[] serialize(VirtualPayload object) {
-      byte[] ret = new byte[4 + Math.max(0, object.getTransferPayload() ? object.getSize() - 4 : 0)];
-      ByteBuffer wrapper = ByteBuffer.allocate(4);
-      wrapper.putInt(0, object.getSize());
-      wrapper.get(ret, 0, 4);
-      return ret;
+      int length = HEADER_LENGTH + Math.max(0, object.getTransferPayload() ? object.getSize() - HEADER_LENGTH : 0);
+      return createFrame(object.getSize(), length);
+   }
+
+   static int decodeHeader(byte[] bytes) {
+      return (bytes[0] & 0xFF) << 24 | (bytes[1] & 0xFF) << 16 | (bytes[2] & 0xFF) << 8 | (bytes[3] & 0xFF);
+   }
+
+   static byte[] createFrame(int header, int length) {
+      byte[] frame = new byte[length];
+      frame[0] = (byte) (header >>> 24);
+      frame[1] = (byte) (header >>> 16);
+      frame[2] = (byte) (header >>> 8);
+      frame[3] = (byte) header;
+      return frame;
    }
 }
@@ -0,0 +1,25 @@
+package at.borkowski.prefetchsimulation.members;
+
+/**
+ * Represents a simulation member (or a part of one) which is able to tell the
+ * next tick at which it has work to do. Executing it at any tick before that
+ * is guaranteed to have no effect, so the execution may be skipped.
+ */
+public interface WakeUpAware {
+   /**
+    * The value returned by {@link #getNextWakeUp(long)} if there is no further
+    * work.
+    */
+   long NEVER = Long.MAX_VALUE;
+
+   /**
+    * Returns the next tick at which execution is required, after the member
+    * has been executed at the given tick.
+    * 
+    * @param tick
+    *           the tick of the last execution
+    * @return the next tick requiring execution (greater than
+    *         <code>tick</code>), or {@link #NEVER}
+    */
+   long getNextWakeUp(long tick);
+}
@@ -2,5 +2,16 @@ package at.borkowski.prefetchsimulation.members.aux;
 
 
 public interface RateControlService {
-   void setRequestSpecificRate(Integer rate);
+   /**
+    * Sets the byte rate of the transfer in progress on a fetch slot. The
+    * global rate is shared fairly among the slots with a transfer in
+    * progress, none of which gets more than its own rate.
+    * 
+    * @param slot
+    *           the fetch slot
+    * @param rate
+    *           the rate of the transfer, or <code>null</code> if the slot is
+    *           idle
+    */
+   void setRequestSpecificRate(int slot, Integer rate);
 }
@@ -0,0 +1,37 @@
+package at.borkowski.prefetchsimulation.members.aux;
+
+/**
+ * A cursor over the predictions of a {@link RatePredictionService}. Cursors
+ * are intended for sequential walks over the timeline (forwards or backwards)
+ * and may keep state in order to answer such lookups in amortized constant
+ * time. A cursor must not be shared between threads.
+ */
+public interface RatePredictionCursor {
+   /**
+    * Moves the cursor to the given tick and returns the prediction for it.
+    * 
+    * @param tick
+    *           the tick to move to
+    * @return the predicted rate, or <code>null</code> for no limit
+    */
+   Integer seek(long tick);
+
+   /**
+    * Returns the first tick of the segment the cursor is positioned in. All
+    * ticks from {@link #getSegmentStart()} to {@link #getSegmentEnd()}
+    * (inclusive) have the same prediction as the current tick. Implementations
+    * may return a segment smaller than the actual range of constant
+    * prediction, but it always contains the current tick.
+    * 
+    * @return the first tick of the current segment
+    */
+   long getSegmentStart();
+
+   /**
+    * Returns the last tick (inclusive) of the segment the cursor is positioned
+    * in. See {@link #getSegmentStart()}.
+    * 
+    * @return the last tick of the current segment
+    */
+   long getSegmentEnd();
+}
@@ -2,4 +2,33 @@ package at.borkowski.prefetchsimulation.members.aux;
 
 public interface RatePredictionService {
    Integer predict(long tick);
+
+   /**
+    * Returns a new cursor over the predictions of this service. The default
+    * implementation delegates each lookup to {@link #predict(long)} and reports
+    * single-tick segments.
+    * 
+    * @return a new cursor
+    */
+   default RatePredictionCursor cursor() {
+      return new RatePredictionCursor() {
+         private long tick;
+
+         @Override
+         public Integer seek(long tick) {
+            this.tick = tick;
+            return predict(tick);
+         }
+
+         @Override
+         public long getSegmentStart() {
+            return tick;
+         }
+
+         @Override
+         public long getSegmentEnd() {
+            return tick;
+         }
+      };
+   }
 }
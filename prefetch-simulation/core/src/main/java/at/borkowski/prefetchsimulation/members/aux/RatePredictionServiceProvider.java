@@ -3,6 +3,7 @@ package at.borkowski.prefetchsimulation.members.aux;
 import java.util.Collection;
 import java.util.Map;
 
+import at.borkowski.prefetchsimulation.RateTimeline;
 import at.borkowski.scovillej.simulation.PhaseHandler;
 import at.borkowski.scovillej.simulation.ServiceProvider;
 import at.borkowski.scovillej.simulation.Simulation;
@@ -10,9 +11,13 @@ import at.borkowski.scovillej.simulation.SimulationEvent;
 import at.borkowski.scovillej.simulation.SimulationInitializationContext;
 
 public class RatePredictionServiceProvider implements ServiceProvider<RatePredictionService>, RatePredictionService {
-   private final Map<Long, Integer> predictions;
+   private final RateTimeline predictions;
 
    public RatePredictionServiceProvider(Map<Long, Integer> predictions) {
+      this(RateTimeline.of(predictions));
+   }
+
+   public RatePredictionServiceProvider(RateTimeline predictions) {
       this.predictions = predictions;
    }
 
@@ -41,15 +46,46 @@ public class RatePredictionServiceProvider implements ServiceProvider<RatePredic
 
    @Override
    public Integer predict(long tick) {
-      Long latestBeforeTick = null;
+      return predictions.rateAt(tick);
+   }
+
+   @Override
+   public RatePredictionCursor cursor() {
+      return new Cursor();
+   }
+
+   private boolean contains(int index, long tick) {
+      if (index >= 0 && predictions.getTick(index) > tick)
+         return false;
+      return index + 1 == predictions.size() || predictions.getTick(index + 1) > tick;
+   }
+
+   private class Cursor implements RatePredictionCursor {
+      private int index = -1;
+
+      @Override
+      public Integer seek(long tick) {
+         // sequential walks either stay in the current segment or move to one
+         // of its neighbors, only jumps require a binary search
+         if (!contains(index, tick)) {
+            if (index + 1 < predictions.size() && contains(index + 1, tick))
+               index++;
+            else if (index >= 0 && contains(index - 1, tick))
+               index--;
+            else
+               index = predictions.floorIndex(tick);
+         }
+         return index < 0 ? null : predictions.getRate(index);
+      }
 
-      for (long key : predictions.keySet())
-         if (key <= tick && (latestBeforeTick == null || key > latestBeforeTick))
-            latestBeforeTick = key;
+      @Override
+      public long getSegmentStart() {
+         return index < 0 ? Long.MIN_VALUE : predictions.getTick(index);
+      }
 
-      if (latestBeforeTick == null)
-         return null;
-      else
-         return predictions.get(latestBeforeTick);
+      @Override
+      public long getSegmentEnd() {
+         return index + 1 == predictions.size() ? Long.MAX_VALUE : predictions.getTick(index + 1) - 1;
+      }
    }
 }
@@ -2,10 +2,10 @@ package at.borkowski.prefetchsimulation.members.aux;
 
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
+import at.borkowski.prefetchsimulation.RateTimeline;
 import at.borkowski.scovillej.services.comm.CommunicationService;
 import at.borkowski.scovillej.simulation.PhaseHandler;
 import at.borkowski.scovillej.simulation.ServiceProvider;
@@ -14,39 +14,62 @@ import at.borkowski.scovillej.simulation.SimulationContext;
 import at.borkowski.scovillej.simulation.SimulationEvent;
 import at.borkowski.scovillej.simulation.SimulationInitializationContext;
 
-public class RateSetter implements ServiceProvider<RateControlService>, RateControlService {
+/**
+ * Sets the rates of the fetch sockets according to a {@link RateTimeline}. The
+ * limits are read from the timeline as the simulation reaches them, so
+ * timelines computing their entries on demand are never materialised.
+ * 
+ * With several sockets (one per fetch slot), the limit is the capacity of the
+ * link shared by all of them: it is divided max-min fairly among the sockets
+ * with a transfer in progress, such that no transfer gets more than its own
+ * rate and the rest is split evenly among the others.
+ */
+public class RateSetter implements ServiceProvider<RateControlService>, RateControlService, PhaseHandler {
 
    private CommunicationService communicationService;
-   private final String socketName;
-
-   private List<SimulationEvent> events = new LinkedList<>();
-   private Integer requestSpecific;
+   private final String phase;
+   private final List<String> socketNames;
+
+   private final RateTimeline limits;
+   // the index of the next entry to set
+   private int cursor = 0;
+   // by slot, null if the slot is idle
+   private final Integer[] requestSpecific;
    private Integer global;
 
    public RateSetter(String phase, String socketName, Map<Long, Integer> limits) {
-      this.socketName = socketName;
-
-      for (Long tick : limits.keySet()) {
-         Integer limit = limits.get(tick);
-         events.add(new SimulationEvent() {
-
-            @Override
-            public Collection<String> getPhaseSubcription() {
-               return Arrays.asList(phase);
-            }
-
-            @Override
-            public void executePhase(SimulationContext context) {
-               global = limit;
-               refreshRates();
-            }
-
-            @Override
-            public long getScheduledTick() {
-               return tick;
-            }
-         });
-      }
+      this(phase, socketName, RateTimeline.of(limits));
+   }
+
+   /**
+    * Creates a new rate setter.
+    * 
+    * @param phase
+    *           the phase in which to set the rates
+    * @param socketName
+    *           the socket whose rates to set
+    * @param limits
+    *           the limits to set over time
+    */
+   public RateSetter(String phase, String socketName, RateTimeline limits) {
+      this(phase, Arrays.asList(socketName), limits);
+   }
+
+   /**
+    * Creates a new rate setter for several fetch slots.
+    * 
+    * @param phase
+    *           the phase in which to set the rates
+    * @param socketNames
+    *           the sockets whose rates to set, by fetch slot
+    * @param limits
+    *           the limits to set over time
+    */
+   public RateSetter(String phase, List<String> socketNames, RateTimeline limits) {
+      this.phase = phase;
+      this.socketNames = socketNames;
+      this.limits = limits;
+      requestSpecific = new Integer[socketNames.size()];
    }
 
    @Override
@@ -56,27 +79,88 @@ public class RateSetter implements ServiceProvider<RateControlService>, RateCont
 
    @Override
    public Collection<SimulationEvent> generateEvents() {
-      return events;
+      return null;
    }
 
    @Override
    public Collection<PhaseHandler> getPhaseHandlers() {
-      return null;
+      return Arrays.asList(this);
+   }
+
+   @Override
+   public Collection<String> getPhaseSubcription() {
+      return Arrays.asList(phase);
    }
 
+   /**
+    * Sets the limit of the entry at the current tick, if there is one. Like
+    * scheduled events, entries at ticks which are not executed have no effect.
+    */
    @Override
-   public void setRequestSpecificRate(Integer requestSpecific) {
-      this.requestSpecific = requestSpecific;
+   public void executePhase(SimulationContext context) {
+      long tick = context.getCurrentTick();
+      if (cursor < limits.size() && limits.getTick(cursor) < tick)
+         cursor = limits.ceilingIndex(tick);
+      if (cursor < limits.size() && limits.getTick(cursor) == tick) {
+         global = limits.getRate(cursor++);
+         refreshRates();
+      }
+   }
+
+   @Override
+   public void setRequestSpecificRate(int slot, Integer requestSpecific) {
+      this.requestSpecific[slot] = requestSpecific;
       refreshRates();
    }
 
    private void refreshRates() {
-      Integer uplink, downlink;
-      downlink = uplink = global;
-      
-      if(requestSpecific != null && (global == null || global > requestSpecific)) downlink = requestSpecific;
-      
-      communicationService.setRates(socketName, uplink, downlink);
+      Integer[] downlinks = share();
+      for (int slot = 0; slot < socketNames.size(); slot++)
+         communicationService.setRates(socketNames.get(slot), global, downlinks[slot]);
+   }
+
+   /**
+    * Divides the global limit among the active slots by water-filling: the
+    * transfers are visited by ascending rate, and each gets its own rate or
+    * an even share of what the previous ones left, whichever is smaller. The
+    * remainder of the division goes to the lower slots. Idle slots are given
+    * the global limit.
+    */
+   private Integer[] share() {
+      Integer[] downlinks = new Integer[requestSpecific.length];
+      Integer[] active = new Integer[requestSpecific.length];
+      int count = 0;
+      for (int slot = 0; slot < requestSpecific.length; slot++) {
+         if (requestSpecific[slot] == null)
+            downlinks[slot] = global;
+         else
+            active[count++] = slot;
+      }
+
+      if (global == null) {
+         for (int i = 0; i < count; i++)
+            downlinks[active[i]] = requestSpecific[active[i]];
+         return downlinks;
+      }
+
+      Arrays.sort(active, 0, count, (a, b) -> Integer.compare(requestSpecific[a], requestSpecific[b]));
+      long remaining = global;
+      for (int i = 0; i < count; i++) {
+         long share = remaining / (count - i);
+         if (requestSpecific[active[i]] <= share) {
+            downlinks[active[i]] = requestSpecific[active[i]];
+            remaining -= requestSpecific[active[i]];
+            continue;
+         }
+
+         // the rates of all remaining transfers exceed the share
+         Arrays.sort(active, i, count);
+         long extra = remaining % (count - i);
+         for (int j = i; j < count; j++)
+            downlinks[active[j]] = (int) (share + (j - i < extra ? 1 : 0));
+         break;
+      }
+      return downlinks;
    }
 
    @Override
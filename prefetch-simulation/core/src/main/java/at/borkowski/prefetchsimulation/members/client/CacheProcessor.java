@@ -1,18 +1,72 @@
 package at.borkowski.prefetchsimulation.members.client;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
 
+import at.borkowski.prefetchsimulation.CachePolicy;
+import at.borkowski.prefetchsimulation.ClientOptions;
 import at.borkowski.prefetchsimulation.Request;
+import at.borkowski.prefetchsimulation.RequestIndex;
+import at.borkowski.prefetchsimulation.profiling.PrefetchProfilingService;
+import at.borkowski.prefetchsimulation.util.IndexedPriorityQueue;
+import at.borkowski.prefetchsimulation.util.LongColumn;
 
 /**
  * Represents the cache sub-processor of {@link FetchClient}. It is responsible
  * for caching results of requests (actually, since content is irrelevant, it
  * only caches the fact that they have been fetched along with a timestamp).
+ * 
+ * By default, the cache is unbounded and keeps every request forever. With a
+ * capacity (see {@link #setCapacity(long)}), the data sizes of the cached
+ * requests are accounted, and requests are evicted according to a
+ * {@link CachePolicy} when a new request does not fit. A request larger than
+ * the capacity evicts all others and is kept on its own. Requests the client
+ * code is waiting for (see {@link #pin(Request)}) are not evicted until they
+ * are consumed, so the occupancy may exceed the capacity until then.
  */
 public class CacheProcessor {
-   private Map<Request, Long> cache = new HashMap<>();
-   private Map<Request, Long> requestCache = new HashMap<>();
+   private final FetchClient owner;
+
+   private final RequestIndex index;
+   // by request id
+   private final LongColumn cache = new LongColumn();
+   private final LongColumn requestCache = new LongColumn();
+
+   private long capacity = ClientOptions.UNBOUNDED;
+   private CachePolicy policy = CachePolicy.LRU;
+   private long occupancy = 0;
+
+   // eviction state, only kept if bounded
+   private final IndexedPriorityQueue<Request> entries;
+   private final LongColumn accesses = new LongColumn();
+   private final BitSet consumed = new BitSet();
+   private final BitSet pinned = new BitSet();
+   private double inflation = 0;
+
+   /**
+    * Creates a new cache processor with the given owner
+    * 
+    * @param owner
+    *           the owner
+    */
+   public CacheProcessor(FetchClient owner) {
+      this(owner, new RequestIndex());
+   }
+
+   /**
+    * Creates a new cache processor with the given owner, keeping per-request
+    * state by the ids of the given index.
+    * 
+    * @param owner
+    *           the owner
+    * @param index
+    *           the request index shared by the members of the simulation
+    */
+   public CacheProcessor(FetchClient owner, RequestIndex index) {
+      this.owner = owner;
+      this.index = index;
+      entries = new IndexedPriorityQueue<>(index::idOf);
+   }
 
    /**
     * Returns <code>true</code> if the cache contains the given request
@@ -22,24 +76,25 @@ public class CacheProcessor {
     * @return whether the cache contains the request
     */
    public boolean hasFile(Request request) {
-      return cache.containsKey(request);
+      return cache.contains(index.idOf(request));
    }
 
    /**
     * Returns the timestamp with which the request has been saved. Behavior is
-    * undefined (currently throws a {@link NullPointerException}) if the request
-    * is not stored (see {@link #hasFile(Request)}).
+    * undefined (currently throws a {@link NoSuchElementException}) if the
+    * request is not stored (see {@link #hasFile(Request)}).
     * 
     * @param request
     *           the request to be checked
     * @return the timestamp at which the request has been saved
     */
    public long getTimestamp(Request request) {
-      return cache.get(request);
+      return cache.get(index.idOf(request));
    }
 
    /**
-    * Saves a request to the cache.
+    * Saves a request to the cache, evicting other requests if the cache is
+    * bounded and the request does not fit.
     * 
     * @param request
     *           the request to save
@@ -49,14 +104,95 @@ public class CacheProcessor {
     *           the tick at which the data has been requested
     */
    public void save(Request request, long tick, long requestTick) {
-      cache.put(request, tick);
-      requestCache.put(request, requestTick);
+      int id = index.add(request);
+      boolean contained = cache.contains(id);
+      cache.put(id, tick);
+      requestCache.put(id, requestTick);
+
+      if (!contained) {
+         if (capacity != ClientOptions.UNBOUNDED)
+            while (!entries.isEmpty() && occupancy + request.getData() > capacity)
+               evict();
+         occupancy += request.getData();
+
+         PrefetchProfilingService profiling = getProfilingService();
+         if (profiling != null)
+            profiling.cacheOccupancy(occupancy);
+      }
+
+      if (capacity != ClientOptions.UNBOUNDED) {
+         accesses.put(id, contained ? accesses.get(id) + 1 : 1);
+         consumed.clear(id);
+         if (!pinned.get(id))
+            prioritize(request, tick);
+      }
+   }
+
+   /**
+    * Protects a request from eviction from the time it is saved until the
+    * client code consumes it. The client code pins a request it has missed
+    * and is waiting for, since it only looks for the request on the tick
+    * after it arrives, when other requests saved meanwhile might have evicted
+    * it.
+    * 
+    * @param request
+    *           the request to protect
+    */
+   public void pin(Request request) {
+      if (capacity != ClientOptions.UNBOUNDED)
+         pinned.set(index.add(request));
+   }
+
+   /**
+    * Notifies the cache that the client code has consumed a request, which
+    * counts as an access for the eviction policy.
+    * 
+    * @param request
+    *           the consumed request
+    * @param tick
+    *           the current tick
+    */
+   public void consume(Request request, long tick) {
+      if (capacity == ClientOptions.UNBOUNDED || !hasFile(request))
+         return;
+
+      int id = index.idOf(request);
+      accesses.put(id, accesses.get(id) + 1);
+      consumed.set(id);
+      pinned.clear(id);
+      prioritize(request, tick);
+   }
+
+   private void prioritize(Request request, long tick) {
+      int id = index.idOf(request);
+      entries.put(request, policy.priority(request, tick, accesses.get(id), consumed.get(id), inflation));
+   }
+
+   private void evict() {
+      inflation = policy.inflation(entries.peekPriority());
+      Request victim = entries.poll();
+
+      int id = index.idOf(victim);
+      cache.remove(id);
+      requestCache.remove(id);
+      accesses.remove(id);
+      consumed.clear(id);
+      occupancy -= victim.getData();
+
+      PrefetchProfilingService profiling = getProfilingService();
+      if (profiling != null)
+         profiling.cacheEviction(victim);
+   }
+
+   private PrefetchProfilingService getProfilingService() {
+      // null if the simulation is not yet initialized
+      return owner.getProfilingService();
    }
 
    /**
     * Returns the timestamp with which the request has been requested from the
     * server. Behavior is undefined (currently throws a
-    * {@link NullPointerException}) if the request is not stored (see
+    * {@link NoSuchElementException}) if the request is not stored (see
     * {@link #hasFile(Request)}).
     * 
     * @param request
@@ -64,6 +200,46 @@ public class CacheProcessor {
     * @return the timestamp at which the request has been requested
     */
    public long getRequestTimestamp(Request request) {
-      return requestCache.get(request);
+      return requestCache.get(index.idOf(request));
+   }
+
+   /**
+    * Sets the capacity of the cache. Must be set before requests are saved.
+    * 
+    * @param capacity
+    *           the capacity in bytes, or {@link ClientOptions#UNBOUNDED}
+    */
+   public void setCapacity(long capacity) {
+      if (capacity < 0)
+         throw new IllegalArgumentException("negative cache capacity: " + capacity);
+      this.capacity = capacity;
+   }
+
+   public long getCapacity() {
+      return capacity;
+   }
+
+   /**
+    * Sets the eviction policy of the cache. Must be set before requests are
+    * saved.
+    * 
+    * @param policy
+    *           the eviction policy
+    */
+   public void setPolicy(CachePolicy policy) {
+      this.policy = policy;
+   }
+
+   public CachePolicy getPolicy() {
+      return policy;
+   }
+
+   /**
+    * Returns the total data size of the cached requests.
+    * 
+    * @return the occupancy in bytes
+    */
+   public long getOccupancy() {
+      return occupancy;
    }
 }
@@ -1,22 +1,40 @@
 package at.borkowski.prefetchsimulation.members.client;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Comparator;
 
 import at.borkowski.prefetchsimulation.Request;
+import at.borkowski.prefetchsimulation.RequestIndex;
+import at.borkowski.prefetchsimulation.members.WakeUpAware;
 import at.borkowski.scovillej.simulation.SimulationContext;
 
 /**
  * Represents the client code sub-processor of {@link FetchClient}. It is
  * responsible for simulation client code behavior.
  */
-public class ClientCodeProcessor {
+public class ClientCodeProcessor implements WakeUpAware {
+
+   private static final int INITIAL_CAPACITY = 16;
+   private static final Comparator<Request> BY_DEADLINE = Comparator.comparingLong(Request::getDeadline);
 
    private final FetchClient owner;
 
-   private Set<Request> required = new HashSet<>();
-   private Set<Request> missed = new HashSet<>();
+   // requests whose deadline has not been reached yet; the ones from cursor to
+   // size are sorted by deadline unless requests have been added since
+   private Request[] upcoming = new Request[INITIAL_CAPACITY];
+   private int cursor = 0;
+   private int size = 0;
+   private boolean sorted = true;
+
+   // all requests added, and the missed ones waiting for their fetch to
+   // finish by request id
+   private final RequestIndex index;
+   private final BitSet added = new BitSet();
+   private final BitSet waiting = new BitSet();
+
+   private long nextDeadline = NEVER;
 
    /**
     * Creates a new client code processor with the given owner
@@ -25,7 +43,21 @@ public class ClientCodeProcessor {
     *           the owner
     */
    public ClientCodeProcessor(FetchClient owner) {
+      this(owner, new RequestIndex());
+   }
+
+   /**
+    * Creates a new client code processor with the given owner, keeping
+    * per-request state by the ids of the given index.
+    * 
+    * @param owner
+    *           the owner
+    * @param index
+    *           the request index shared by the members of the simulation
+    */
+   public ClientCodeProcessor(FetchClient owner, RequestIndex index) {
       this.owner = owner;
+      this.index = index;
    }
 
    /**
@@ -37,22 +69,50 @@ public class ClientCodeProcessor {
    public void executePhase(SimulationContext context) {
       long tick = context.getCurrentTick();
 
-      Set<Request> done = new HashSet<>();
-      for (Request request : required) {
-         if (request.getDeadline() <= tick) {
-            if (owner.getCacheProcessor().hasFile(request)) {
-               if (request.getDeadline() == tick)
-                  owner.getProfilingService().cacheHit(request);
-               owner.getProfilingService().arrival(request, tick - request.getDeadline(), tick - owner.getCacheProcessor().getRequestTimestamp(request), request.getData());
-               done.add(request);
-            } else if (!missed.contains(request)) {
-               owner.getFetchProcessor().urge(tick, request);
-               missed.add(request);
-            }
+      for (int id = waiting.nextSetBit(0); id >= 0; id = waiting.nextSetBit(id + 1)) {
+         Request request = index.get(id);
+         if (owner.getCacheProcessor().hasFile(request)) {
+            arrival(tick, request);
+            waiting.clear(id);
+         }
+      }
+
+      sort();
+      while (cursor < size && upcoming[cursor].getDeadline() <= tick) {
+         Request request = upcoming[cursor];
+         upcoming[cursor++] = null;
+
+         if (owner.getCacheProcessor().hasFile(request)) {
+            if (request.getDeadline() == tick)
+               owner.getProfilingService().cacheHit(request);
+            arrival(tick, request);
+         } else {
+            owner.getCacheProcessor().pin(request);
+            owner.getFetchProcessor().urge(tick, request);
+            waiting.set(index.idOf(request));
          }
       }
+      nextDeadline = cursor < size ? upcoming[cursor].getDeadline() : NEVER;
+   }
 
-      required.removeAll(done);
+   private void arrival(long tick, Request request) {
+      owner.getProfilingService().arrival(request, tick - request.getDeadline(), tick - owner.getCacheProcessor().getRequestTimestamp(request), request.getData());
+      owner.getCacheProcessor().consume(request, tick);
+   }
+
+   /**
+    * Sorts the upcoming requests after requests have been added, moving them
+    * to the start of the array.
+    */
+   private void sort() {
+      if (sorted)
+         return;
+      System.arraycopy(upcoming, cursor, upcoming, 0, size - cursor);
+      Arrays.fill(upcoming, size - cursor, size, null);
+      size -= cursor;
+      cursor = 0;
+      Arrays.sort(upcoming, 0, size, BY_DEADLINE);
+      sorted = true;
    }
 
    /**
@@ -62,7 +122,28 @@ public class ClientCodeProcessor {
     *           the new requests
     */
    public void addRequests(Collection<Request> requests) {
-      required.addAll(requests);
+      if (size + requests.size() > upcoming.length)
+         upcoming = Arrays.copyOf(upcoming, Math.max(upcoming.length * 2, size + requests.size()));
+      for (Request request : requests) {
+         // requests added before are ignored
+         int id = index.add(request);
+         if (added.get(id))
+            continue;
+         added.set(id);
+         upcoming[size++] = request;
+         nextDeadline = Math.min(nextDeadline, request.getDeadline());
+      }
+      sorted = false;
+   }
+
+   /**
+    * Returns the next deadline of a required request. Requests which have
+    * been missed and wait for their fetch to finish are not considered, the
+    * owner has to wake up the processor after fetches finish.
+    */
+   @Override
+   public long getNextWakeUp(long tick) {
+      return Math.max(tick + 1, nextDeadline);
    }
 
 }
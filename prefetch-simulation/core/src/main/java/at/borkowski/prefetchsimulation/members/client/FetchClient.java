@@ -2,8 +2,11 @@ package at.borkowski.prefetchsimulation.members.client;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
 import at.borkowski.prefetchsimulation.Request;
+import at.borkowski.prefetchsimulation.RequestIndex;
+import at.borkowski.prefetchsimulation.members.WakeUpAware;
 import at.borkowski.prefetchsimulation.profiling.PrefetchProfilingService;
 import at.borkowski.scovillej.simulation.PhaseHandler;
 import at.borkowski.scovillej.simulation.Simulation;
@@ -18,7 +21,7 @@ import at.borkowski.scovillej.simulation.SimulationMember;
  * applications; in this simulation component, the client code is simulated by a
  * sub-processor (see {@link ClientCodeProcessor}).
  */
-public class FetchClient implements SimulationMember, PhaseHandler {
+public class FetchClient implements SimulationMember, PhaseHandler, WakeUpAware {
 
    private final SocketProcessor socketProcessor;
    private final ClientCodeProcessor clientCodeProcessor;
@@ -27,6 +30,9 @@ public class FetchClient implements SimulationMember, PhaseHandler {
 
    private PrefetchProfilingService profiling;
 
+   private boolean eventDriven = false;
+   private long nextWakeUp = 0;
+
    /**
     * Testability constructor.
     * 
@@ -52,10 +58,35 @@ public class FetchClient implements SimulationMember, PhaseHandler {
     * @param socketName the socket to use
     */
    public FetchClient(String socketName) {
-      socketProcessor = new SocketProcessor(socketName);
-      clientCodeProcessor = new ClientCodeProcessor(this);
-      cacheProcessor = new CacheProcessor();
-      fetchProcessor = new FetchProcessor(this);
+      this(Arrays.asList(socketName));
+   }
+
+   /**
+    * Creates a new fetch client fetching up to one request per socket at the
+    * same time.
+    * 
+    * @param socketNames
+    *           the sockets to use, one per fetch slot
+    */
+   public FetchClient(List<String> socketNames) {
+      this(socketNames, new RequestIndex());
+   }
+
+   /**
+    * Creates a new fetch client fetching up to one request per socket at the
+    * same time, whose sub-processors keep per-request state by the ids of the
+    * given index.
+    * 
+    * @param socketNames
+    *           the sockets to use, one per fetch slot
+    * @param index
+    *           the request index shared by the members of the simulation
+    */
+   public FetchClient(List<String> socketNames, RequestIndex index) {
+      socketProcessor = new SocketProcessor(socketNames);
+      clientCodeProcessor = new ClientCodeProcessor(this, index);
+      cacheProcessor = new CacheProcessor(this, index);
+      fetchProcessor = new FetchProcessor(this, socketNames.size(), index);
    }
 
    @Override
@@ -78,6 +109,10 @@ public class FetchClient implements SimulationMember, PhaseHandler {
 
    @Override
    public void executePhase(SimulationContext context) {
+      long tick = context.getCurrentTick();
+      if (eventDriven && tick < nextWakeUp)
+         return;
+
       try {
          socketProcessor.executePhase(context);
 
@@ -88,9 +123,42 @@ public class FetchClient implements SimulationMember, PhaseHandler {
          fetchProcessor.executePhase(context);
       } catch (Exception ex) {
          throw new RuntimeException(ex);
+      } finally {
+         if (eventDriven)
+            nextWakeUp = getNextWakeUp(tick);
       }
    }
 
+   /**
+    * Returns the next tick at which the client has work to do. The client is
+    * executed on every tick until the connection is established, and on the
+    * tick after a fetch finished (so that client code waiting for the data is
+    * served).
+    */
+   @Override
+   public long getNextWakeUp(long tick) {
+      if (!socketProcessor.isReady() || fetchProcessor.getLastArrival() == tick)
+         return tick + 1;
+      return Math.min(clientCodeProcessor.getNextWakeUp(tick), fetchProcessor.getNextWakeUp(tick));
+   }
+
+   /**
+    * Sets whether the client skips ticks before its next wake-up (see
+    * {@link #getNextWakeUp(long)}). Skipping these ticks does not change the
+    * simulation results.
+    * 
+    * @param eventDriven
+    *           <code>true</code> to skip ticks without work
+    */
+   public void setEventDriven(boolean eventDriven) {
+      this.eventDriven = eventDriven;
+      this.nextWakeUp = 0;
+   }
+
+   public boolean isEventDriven() {
+      return eventDriven;
+   }
+
    @Override
    public Collection<String> getPhaseSubcription() {
       return null;
@@ -105,6 +173,7 @@ public class FetchClient implements SimulationMember, PhaseHandler {
    public void addRequests(Collection<Request> requests) {
       clientCodeProcessor.addRequests(requests);
       fetchProcessor.addRequests(requests);
+      nextWakeUp = 0;
    }
 
    /**
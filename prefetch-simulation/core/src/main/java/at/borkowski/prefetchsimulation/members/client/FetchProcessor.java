@@ -1,18 +1,31 @@
 package at.borkowski.prefetchsimulation.members.client;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 
+import at.borkowski.prefetchsimulation.ClientOptions;
 import at.borkowski.prefetchsimulation.Request;
+import at.borkowski.prefetchsimulation.RequestIndex;
+import at.borkowski.prefetchsimulation.algorithms.IncrementalPrefetchAlgorithm;
 import at.borkowski.prefetchsimulation.algorithms.NullAlgorithm;
+import at.borkowski.prefetchsimulation.algorithms.ParallelPrefetchAlgorithm;
 import at.borkowski.prefetchsimulation.algorithms.PrefetchAlgorithm;
 import at.borkowski.prefetchsimulation.internal.VirtualPayload;
+import at.borkowski.prefetchsimulation.members.WakeUpAware;
 import at.borkowski.prefetchsimulation.members.aux.RateControlService;
 import at.borkowski.prefetchsimulation.members.aux.RatePredictionService;
+import at.borkowski.prefetchsimulation.util.IndexedPriorityQueue;
+import at.borkowski.prefetchsimulation.util.LongColumn;
 import at.borkowski.scovillej.simulation.Simulation;
 import at.borkowski.scovillej.simulation.SimulationContext;
 import at.borkowski.scovillej.simulation.SimulationInitializationContext;
@@ -21,78 +34,347 @@ import at.borkowski.scovillej.simulation.SimulationInitializationContext;
  * Represents the fetch sub-processor of {@link FetchClient}. It is responsible
  * for fetching requests.
  */
-public class FetchProcessor {
-
+public class FetchProcessor implements WakeUpAware {
    private final FetchClient owner;
    private RateControlService rateControlService;
    private RatePredictionService ratePredictionService;
 
-   private final Set<Request> toFetch = new HashSet<>();
-   private Map<Request, Long> scheduled = new HashMap<>();
+   // the per-request state below is kept by request id
+   private final RequestIndex index;
+
+   private final BitSet toFetch = new BitSet();
+   private final IndexedPriorityQueue<Request> scheduled;
+
+   // requests not yet inside the look-ahead window, ordered by deadline and id
+   private final PriorityQueue<Request> notAdmitted;
+   // requests inside the look-ahead window in the order of their admission,
+   // which is the order both the full and the incremental algorithm see
+   private final Set<Request> admitted = new LinkedHashSet<>();
+   // the admitted requests not scheduled
+   private final BitSet unscheduled = new BitSet();
 
    private PrefetchAlgorithm algorithm = new NullAlgorithm();
+   private IncrementalPrefetchAlgorithm incrementalAlgorithm = null;
    private long lookAheadTime = Long.MAX_VALUE;
 
-   private Request current = null;
-   private long currentRequested = -1;
+   // state of incremental scheduling, see rescheduleIncremental
+   private final List<Request> pendingAdmissions = new ArrayList<>();
+   private final LongColumn planned = new LongColumn();
+   private final BitSet deviating = new BitSet();
+   private final BitSet unreported = new BitSet();
+
+   // the transfer in progress on each slot, null if the slot is idle, and
+   // the requests of these transfers, which are kept out of the schedule
+   private final Transfer[] current;
+   private final BitSet inFlight = new BitSet();
+   private long batchWindow = ClientOptions.NO_BATCHING;
+   private long lastArrival = -1;
 
    public FetchProcessor(FetchClient owner) {
+      this(owner, 1);
+   }
+
+   /**
+    * Creates a fetch sub-processor which fetches up to the given number of
+    * requests at the same time, each on its own slot of the socket
+    * sub-processor. Requests are dispatched to idle slots in the order of
+    * their scheduled start, so algorithms express parallelism by scheduling
+    * overlapping fetches.
+    * 
+    * @param owner
+    *           the owner
+    * @param slots
+    *           the number of fetch slots
+    */
+   public FetchProcessor(FetchClient owner, int slots) {
+      this(owner, slots, new RequestIndex());
+   }
+
+   /**
+    * Creates a fetch sub-processor as {@link #FetchProcessor(FetchClient, int)}
+    * does, keeping per-request state by the ids of the given index.
+    * 
+    * @param owner
+    *           the owner
+    * @param slots
+    *           the number of fetch slots
+    * @param index
+    *           the request index shared by the members of the simulation
+    */
+   public FetchProcessor(FetchClient owner, int slots, RequestIndex index) {
+      if (slots < 1)
+         throw new IllegalArgumentException("at least one fetch slot required: " + slots);
       this.owner = owner;
+      this.index = index;
+      current = new Transfer[slots];
+      scheduled = new IndexedPriorityQueue<>(index::idOf);
+      notAdmitted = new PriorityQueue<>(Comparator.comparingLong(Request::getDeadline).thenComparingInt(index::idOf));
    }
 
    public void executePhase(SimulationContext context) throws IOException {
       long tick = context.getCurrentTick();
 
-      if (current != null) {
-         VirtualPayload payload = owner.getSocketProcessor().readIfPossible();
-         if (payload != null) {
-            owner.getProfilingService().response(current);
-            rateControlService.setRequestSpecificRate(null);
-            owner.getCacheProcessor().save(current, tick, currentRequested);
-            toFetch.remove(current);
-            scheduled.remove(current);
-
-            current = null;
-         }
-      } else {
-         current = null;
-         for (Request request : scheduled.keySet())
-            if (scheduled.get(request) <= tick && (current == null || scheduled.get(request) < scheduled.get(current)))
-               current = request;
-
-         scheduled.remove(current);
-
-         if (current != null) {
-            currentRequested = tick;
-            owner.getProfilingService().request(current);
-            owner.getSocketProcessor().request(current);
-            rateControlService.setRequestSpecificRate(current.getAvailableByterate());
+      // a slot whose fetch finishes is only reused on the next tick
+      for (int slot = 0; slot < current.length; slot++) {
+         if (current[slot] != null) {
+            receive(slot, tick);
+            continue;
          }
+
+         List<Request> batch = pollBatch(tick);
+         if (batch != null)
+            dispatch(slot, tick, batch);
       }
 
       reschedule(tick, false);
    }
 
+   /**
+    * Polls the next due request from the schedule and, if batching, the
+    * requests scheduled to start within the batch window after the current
+    * tick.
+    * 
+    * @return the requests to fetch in one transfer, or <code>null</code> if
+    *         no request is due
+    */
+   private List<Request> pollBatch(long tick) {
+      List<Request> batch = null;
+      long data = 0;
+      while (!scheduled.isEmpty()) {
+         long start = scheduled.peekPriority();
+         if (start > (batch == null ? tick : getBatchEnd(tick)))
+            break;
+
+         Request request = scheduled.peek();
+         // the size of a transfer is limited to the range of int
+         if (batch != null && data + request.getData() > Integer.MAX_VALUE)
+            break;
+
+         scheduled.poll();
+         if (batch == null)
+            batch = new ArrayList<>();
+         batch.add(request);
+         data += request.getData();
+
+         if (batchWindow == ClientOptions.NO_BATCHING)
+            break;
+      }
+      return batch;
+   }
+
+   private long getBatchEnd(long tick) {
+      // tick + batchWindow, saturated at the range of long
+      long end = tick + batchWindow;
+      return end < tick ? Long.MAX_VALUE : end;
+   }
+
+   private void dispatch(int slot, long tick, List<Request> batch) throws IOException {
+      for (Request request : batch) {
+         unscheduled(request);
+         inFlight.set(index.idOf(request));
+      }
+
+      current[slot] = new Transfer(batch, tick);
+      for (Request request : batch)
+         owner.getProfilingService().request(request);
+      if (batch.size() == 1)
+         owner.getSocketProcessor().request(slot, batch.get(0));
+      else
+         owner.getSocketProcessor().request(slot, batch);
+      rateControlService.setRequestSpecificRate(slot, getByterate(batch));
+   }
+
+   /**
+    * Returns the byte rate at which a batch takes as long as fetching its
+    * requests one after the other at their own rates, i.e. only the
+    * connection overhead is saved.
+    */
+   private static int getByterate(List<Request> batch) {
+      if (batch.size() == 1)
+         return batch.get(0).getAvailableByterate();
+
+      long data = 0;
+      double duration = 0;
+      for (Request request : batch) {
+         if (request.getData() == 0)
+            continue;
+         data += request.getData();
+         duration += (double) request.getData() / request.getAvailableByterate();
+      }
+      if (data == 0)
+         return batch.get(0).getAvailableByterate();
+      return (int) Math.min(Integer.MAX_VALUE, Math.ceil(data / duration));
+   }
+
+   private void receive(int slot, long tick) throws IOException {
+      VirtualPayload payload = owner.getSocketProcessor().readIfPossible(slot);
+      if (payload == null)
+         return;
+
+      // the response is split into the requests of the batch
+      Transfer transfer = current[slot];
+      for (Request request : transfer.requests)
+         owner.getProfilingService().response(request);
+      rateControlService.setRequestSpecificRate(slot, null);
+      for (Request request : transfer.requests) {
+         owner.getCacheProcessor().save(request, tick, transfer.requested);
+         toFetch.clear(index.idOf(request));
+         inFlight.clear(index.idOf(request));
+         scheduled.remove(request);
+         completed(request);
+      }
+
+      lastArrival = tick;
+      current[slot] = null;
+   }
+
    private void reschedule(long tick, boolean force) {
-      HashSet<Request> current = new HashSet<>();
-      for (Request req : toFetch)
-         if (req.getDeadline() - tick <= lookAheadTime)
-            current.add(req);
-
-      boolean newRequest = force;
-      if (!force)
-         for (Request req : current)
-            newRequest |= !scheduled.containsKey(req);
-
-      if (newRequest) {
-         Map<Request, Long> newSchedules = algorithm.schedule(current, ratePredictionService);
-         scheduled.putAll(newSchedules);
-
-         // prevent null pointer exception if simulation is not yet initialized
-         if (owner.getProfilingService() != null)
-            for (Request req : scheduled.keySet())
-               owner.getProfilingService().scheduled(req, scheduled.get(req));
+      admit(tick);
+
+      // the schedule is recomputed whenever a request inside the look-ahead
+      // window is not scheduled (new, dispatched or not scheduled by the
+      // algorithm)
+      if (!force && unscheduled.isEmpty())
+         return;
+
+      if (incrementalAlgorithm != null) {
+         rescheduleIncremental();
+         return;
       }
+
+      Map<Request, Long> newSchedules = algorithm.schedule(Collections.unmodifiableSet(admitted), ratePredictionService);
+      for (Map.Entry<Request, Long> entry : newSchedules.entrySet())
+         putScheduled(entry.getKey(), entry.getValue());
+
+      // prevent null pointer exception if simulation is not yet initialized
+      if (owner.getProfilingService() != null)
+         for (Request req : scheduled.elements())
+            owner.getProfilingService().scheduled(req, scheduled.getPriority(req));
+   }
+
+   /**
+    * Moves requests entering the look-ahead window from the deadline queue to
+    * the admitted requests. The window is assumed to only grow over time,
+    * i.e. the look-ahead time is not decreased during the simulation.
+    */
+   private void admit(long tick) {
+      while (!notAdmitted.isEmpty() && notAdmitted.peek().getDeadline() - tick <= lookAheadTime) {
+         Request req = notAdmitted.poll();
+         if (!toFetch.get(index.idOf(req)) || !admitted.add(req))
+            continue;
+
+         if (incrementalAlgorithm != null)
+            pendingAdmissions.add(req);
+         if (!scheduled.contains(req))
+            unscheduled.set(index.idOf(req));
+      }
+   }
+
+   private void putScheduled(Request request, long start) {
+      int id = index.add(request);
+      unscheduled.clear(id);
+      // a request being fetched on one slot is not fetched again on another
+      if (!inFlight.get(id))
+         scheduled.put(request, start);
+   }
+
+   /**
+    * Performs the same rescheduling as the full variant, but using an
+    * incremental algorithm. The scheduled map is kept equal to the one the
+    * full variant would produce: requests inside the look-ahead window are
+    * admitted to the algorithm, and whenever the full variant would
+    * recompute the schedule (an admitted request is not scheduled), the
+    * changed entries of the algorithm's plan are applied and entries which
+    * deviate from the plan (urged or dispatched requests) are reset to it.
+    */
+   private void rescheduleIncremental() {
+      Map<Request, Long> changed = incrementalAlgorithm.onRequestsAdded(pendingAdmissions, ratePredictionService);
+      pendingAdmissions.clear();
+      for (Map.Entry<Request, Long> entry : changed.entrySet()) {
+         int id = index.add(entry.getKey());
+         planned.put(id, entry.getValue());
+         deviating.set(id);
+      }
+
+      for (int id = deviating.nextSetBit(0); id >= 0; id = deviating.nextSetBit(id + 1)) {
+         if (planned.contains(id)) {
+            putScheduled(index.get(id), planned.get(id));
+            unreported.set(id);
+         }
+      }
+      deviating.clear();
+
+      // prevent null pointer exception if simulation is not yet initialized
+      if (owner.getProfilingService() != null) {
+         for (int id = unreported.nextSetBit(0); id >= 0; id = unreported.nextSetBit(id + 1)) {
+            Request req = index.get(id);
+            if (scheduled.contains(req))
+               owner.getProfilingService().scheduled(req, scheduled.getPriority(req));
+         }
+         unreported.clear();
+      }
+   }
+
+   private void unscheduled(Request request) {
+      if (admitted.contains(request)) {
+         int id = index.idOf(request);
+         unscheduled.set(id);
+         if (incrementalAlgorithm != null)
+            deviating.set(id);
+      }
+   }
+
+   private void completed(Request request) {
+      boolean wasAdmitted = admitted.remove(request);
+      int id = index.idOf(request);
+      unscheduled.clear(id);
+
+      if (incrementalAlgorithm != null) {
+         if (wasAdmitted && !pendingAdmissions.remove(request))
+            incrementalAlgorithm.onRequestCompleted(request);
+         planned.remove(id);
+         deviating.clear(id);
+         unreported.clear(id);
+      }
+   }
+
+   /**
+    * Returns the next tick at which the processor has work to do. While a
+    * fetch is in progress on any slot, the sockets are polled on every tick.
+    * Otherwise, the processor wakes up for the next scheduled start or the
+    * next request entering the look-ahead window.
+    */
+   @Override
+   public long getNextWakeUp(long tick) {
+      for (Transfer transfer : current)
+         if (transfer != null)
+            return tick + 1;
+
+      long next = NEVER;
+      if (!scheduled.isEmpty())
+         next = Math.min(next, scheduled.peekPriority());
+      if (!notAdmitted.isEmpty())
+         next = Math.min(next, getAdmissionTick(notAdmitted.peek()));
+      return Math.max(tick + 1, next);
+   }
+
+   private long getAdmissionTick(Request request) {
+      // deadline - lookAheadTime, saturated at the range of long
+      long admission = request.getDeadline() - lookAheadTime;
+      if (lookAheadTime > 0 && admission > request.getDeadline())
+         return Long.MIN_VALUE;
+      if (lookAheadTime < 0 && admission < request.getDeadline())
+         return NEVER;
+      return admission;
+   }
+
+   /**
+    * Returns the tick at which the last fetch finished.
+    * 
+    * @return the tick of the last finished fetch, or -1 if there was none
+    */
+   public long getLastArrival() {
+      return lastArrival;
    }
 
    public void initialize(Simulation simulation, SimulationInitializationContext context) {
@@ -102,23 +384,54 @@ public class FetchProcessor {
    }
 
    public void addRequests(Collection<Request> requests) {
-      toFetch.addAll(requests);
+      for (Request request : requests)
+         toFetch.set(index.add(request));
+      notAdmitted.addAll(requests);
    }
 
    public void setAlgorithm(PrefetchAlgorithm algorithm) {
       this.algorithm = algorithm;
+      if (algorithm instanceof ParallelPrefetchAlgorithm)
+         ((ParallelPrefetchAlgorithm) algorithm).setFetchSlots(current.length);
+      if (algorithm instanceof IncrementalPrefetchAlgorithm)
+         incrementalAlgorithm = (IncrementalPrefetchAlgorithm) algorithm;
+      else
+         incrementalAlgorithm = null;
    }
 
    public void urge(long tick, Request request) {
-      scheduled.put(request, tick);
+      putScheduled(request, tick);
+      int id = index.idOf(request);
+
+      if (incrementalAlgorithm != null) {
+         deviating.set(id);
+         unreported.set(id);
+      }
    }
 
    public PrefetchAlgorithm getAlgorithm() {
       return algorithm;
    }
 
+   /**
+    * Returns the requests not yet fetched.
+    * 
+    * @return a snapshot of the pending requests
+    */
    public Set<Request> getPendingRequests() {
-      return toFetch;
+      Set<Request> pending = new HashSet<>();
+      for (int id = toFetch.nextSetBit(0); id >= 0; id = toFetch.nextSetBit(id + 1))
+         pending.add(index.get(id));
+      return pending;
+   }
+
+   /**
+    * Returns the number of requests which can be fetched at the same time.
+    * 
+    * @return the number of fetch slots
+    */
+   public int getSlots() {
+      return current.length;
    }
 
    public long getLookAheadTime() {
@@ -128,4 +441,37 @@ public class FetchProcessor {
    public void setLookAheadTime(long lookAheadTime) {
       this.lookAheadTime = lookAheadTime;
    }
+
+   public long getBatchWindow() {
+      return batchWindow;
+   }
+
+   /**
+    * Sets the batch window. When a request is dispatched, all requests
+    * scheduled to start within this number of ticks are fetched along with
+    * it in one transfer, which pays the connection overhead only once. The
+    * response is split back into the individual requests when it arrives.
+    * 
+    * @param batchWindow
+    *           the batch window in ticks, or {@link ClientOptions#NO_BATCHING} to fetch
+    *           each request on its own
+    */
+   public void setBatchWindow(long batchWindow) {
+      if (batchWindow < 0 && batchWindow != ClientOptions.NO_BATCHING)
+         throw new IllegalArgumentException("negative batch window: " + batchWindow);
+      this.batchWindow = batchWindow;
+   }
+
+   /**
+    * The requests fetched together in one transfer.
+    */
+   private static class Transfer {
+      private final List<Request> requests;
+      private final long requested;
+
+      private Transfer(List<Request> requests, long requested) {
+         this.requests = requests;
+         this.requested = requested;
+      }
+   }
 }
@@ -1,6 +1,10 @@
 package at.borkowski.prefetchsimulation.members.client;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 
 import at.borkowski.prefetchsimulation.Request;
 import at.borkowski.prefetchsimulation.internal.VirtualPayload;
@@ -12,18 +16,28 @@ import at.borkowski.scovillej.simulation.SimulationInitializationContext;
 
 /**
  * Represents the socket sub-processor of {@link FetchClient}. It is responsible
- * for communicating with the server member using a socket.
+ * for communicating with the server member using a socket per fetch slot.
  */
 public class SocketProcessor {
-   private final String socketName;
+   private final List<String> socketNames;
 
    private CommunicationService comm;
-   private SimulationSocket<VirtualPayload> socket;
+   private List<SimulationSocket<VirtualPayload>> sockets;
 
    private boolean initialized = false;
 
    public SocketProcessor(String socketName) {
-      this.socketName = socketName;
+      this(Arrays.asList(socketName));
+   }
+
+   /**
+    * Creates a socket sub-processor with a socket for each fetch slot.
+    * 
+    * @param socketNames
+    *           the socket names, by fetch slot
+    */
+   public SocketProcessor(List<String> socketNames) {
+      this.socketNames = socketNames;
    }
 
    public void initialize(Simulation simulation, SimulationInitializationContext context) {
@@ -36,21 +50,65 @@ public class SocketProcessor {
    }
 
    private void initialize(SimulationContext context) throws IOException {
-      socket = comm.beginConnect(socketName, VirtualPayload.class);
+      sockets = new ArrayList<>(socketNames.size());
+      for (String socketName : socketNames)
+         sockets.add(comm.beginConnect(socketName, VirtualPayload.class));
       initialized = true;
    }
 
-   public VirtualPayload readIfPossible() throws IOException {
+   public VirtualPayload readIfPossible(int slot) throws IOException {
+      SimulationSocket<VirtualPayload> socket = sockets.get(slot);
       if (socket.available() != 0)
          return (VirtualPayload) socket.read();
       return null;
    }
 
-   public void request(Request request) throws IOException {
-      socket.write(new VirtualPayload(request.getData(), false));
+   public void request(int slot, Request request) throws IOException {
+      sockets.get(slot).write(new VirtualPayload(request.getData(), false));
+   }
+
+   /**
+    * Requests several requests in one transfer, whose response carries their
+    * total data.
+    * 
+    * @param slot
+    *           the fetch slot
+    * @param requests
+    *           the requests
+    * @throws IOException
+    *            if writing to the socket fails
+    * @throws IllegalArgumentException
+    *            if the total data exceeds the range of int
+    */
+   public void request(int slot, Collection<Request> requests) throws IOException {
+      long data = 0;
+      for (Request request : requests)
+         data += request.getData();
+      if (data > Integer.MAX_VALUE)
+         throw new IllegalArgumentException("transfer too large: " + data);
+      sockets.get(slot).write(new VirtualPayload((int) data, false));
    }
 
+   /**
+    * Returns whether the sockets of all fetch slots are established.
+    * 
+    * @return whether the sub-processor is ready
+    */
    public boolean isReady() {
-      return socket != null && socket.established();
+      if (sockets == null)
+         return false;
+      for (SimulationSocket<VirtualPayload> socket : sockets)
+         if (socket == null || !socket.established())
+            return false;
+      return true;
+   }
+
+   /**
+    * Returns the number of fetch slots, i.e. of sockets.
+    * 
+    * @return the number of fetch slots
+    */
+   public int getSlots() {
+      return socketNames.size();
    }
 }
@@ -1,5 +1,6 @@
 package at.borkowski.prefetchsimulation.members.server;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedList;
@@ -19,7 +20,7 @@ import at.borkowski.scovillej.simulation.SimulationMember;
  */
 public class FetchServer implements SimulationMember, PhaseHandler {
 
-   private final SocketProcessor socketProcessor;
+   private final List<SocketProcessor> socketProcessors = new ArrayList<>();
 
    private final List<ClientProcessor> clientProcessors = new LinkedList<>();
 
@@ -30,7 +31,7 @@ public class FetchServer implements SimulationMember, PhaseHandler {
     *           the (mocked) socket processor
     */
    FetchServer(SocketProcessor socketProcessor) {
-      this.socketProcessor = socketProcessor;
+      socketProcessors.add(socketProcessor);
    }
 
    /**
@@ -40,12 +41,25 @@ public class FetchServer implements SimulationMember, PhaseHandler {
     *           the socket name
     */
    public FetchServer(String socketName) {
-      this.socketProcessor = new SocketProcessor(this, socketName);
+      this(Arrays.asList(socketName));
+   }
+
+   /**
+    * Creates a new fetch server listening on each of the given socket names
+    * (one per fetch slot of the client).
+    * 
+    * @param socketNames
+    *           the socket names
+    */
+   public FetchServer(List<String> socketNames) {
+      for (String socketName : socketNames)
+         socketProcessors.add(new SocketProcessor(this, socketName));
    }
 
    @Override
    public void initialize(Simulation simulation, SimulationInitializationContext context) {
-      socketProcessor.initialize(simulation, context);
+      for (SocketProcessor socketProcessor : socketProcessors)
+         socketProcessor.initialize(simulation, context);
    }
 
    @Override
@@ -61,10 +75,12 @@ public class FetchServer implements SimulationMember, PhaseHandler {
    @Override
    public void executePhase(SimulationContext context) {
       try {
-         socketProcessor.executePhase(context);
+         for (SocketProcessor socketProcessor : socketProcessors)
+            socketProcessor.executePhase(context);
 
-         if (clientProcessors.size() > 0)
-            clientProcessors.get((int) (context.getCurrentTick() % clientProcessors.size())).handle(context);
+         // client processors deregister themselves when closing
+         for (ClientProcessor clientProcessor : new ArrayList<>(clientProcessors))
+            clientProcessor.handle(context);
 
       } catch (Exception ex) {
          throw new RuntimeException(ex);
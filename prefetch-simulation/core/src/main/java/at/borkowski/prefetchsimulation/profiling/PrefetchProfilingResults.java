@@ -29,6 +29,28 @@ public interface PrefetchProfilingResults {
 
    Set<Request> getCacheHitRequests();
 
+   /**
+    * Returns the cache eviction series.
+    * 
+    * @return the cache eviction series
+    */
+   SeriesResult<Void> getCacheEvictions();
+
+   /**
+    * Returns the series of cache occupancies in bytes, measured whenever a
+    * request is added to the cache.
+    * 
+    * @return the cache occupancy series
+    */
+   SeriesResult<Long> getCacheOccupancy();
+
+   /**
+    * Returns the highest cache occupancy.
+    * 
+    * @return the peak occupancy in bytes
+    */
+   long getPeakCacheOccupancy();
+
    Long getFetchStart(Request request);
 
    Long getFetchFinish(Request request);
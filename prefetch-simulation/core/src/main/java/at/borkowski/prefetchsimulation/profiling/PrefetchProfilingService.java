@@ -16,4 +16,20 @@ public interface PrefetchProfilingService {
    void request(Request request);
 
    void response(Request request);
+
+   /**
+    * Reports that a request has been evicted from a bounded cache.
+    * 
+    * @param request
+    *           the evicted request
+    */
+   void cacheEviction(Request request);
+
+   /**
+    * Reports the total data size of the cached requests after it changed.
+    * 
+    * @param bytes
+    *           the occupancy in bytes
+    */
+   void cacheOccupancy(long bytes);
 }
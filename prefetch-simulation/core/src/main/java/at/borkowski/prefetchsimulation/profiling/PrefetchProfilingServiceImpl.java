@@ -1,12 +1,13 @@
 package at.borkowski.prefetchsimulation.profiling;
 
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
 import at.borkowski.prefetchsimulation.Request;
+import at.borkowski.prefetchsimulation.RequestIndex;
+import at.borkowski.prefetchsimulation.util.LongColumn;
 import at.borkowski.scovillej.profile.Series;
 import at.borkowski.scovillej.profile.SeriesResult;
 import at.borkowski.scovillej.simulation.PhaseHandler;
@@ -20,7 +21,7 @@ import at.borkowski.scovillej.simulation.SimulationInitializationContext;
  * {@link PrefetchProfilingResults}).
  * 
  * @author michael
- *
+ * 
  */
 public class PrefetchProfilingServiceImpl implements PrefetchProfilingService, PrefetchProfilingResults, ServiceProvider<PrefetchProfilingService> {
 
@@ -28,6 +29,8 @@ public class PrefetchProfilingServiceImpl implements PrefetchProfilingService, P
    private static String DATA_AGE = "prefetch-profiling-data-age";
    private static String DATA_VOLUME = "prefetch-profiling-data-volume";
    private static String HIT = "prefetch-profiling-cache-hit";
+   private static String EVICTION = "prefetch-profiling-cache-eviction";
+   private static String OCCUPANCY = "prefetch-profiling-cache-occupancy";
 
    private Simulation simulation;
 
@@ -35,11 +38,31 @@ public class PrefetchProfilingServiceImpl implements PrefetchProfilingService, P
    private Series<Long> seriesDataAge;
    private Series<Long> seriesDataVolume;
    private Series<Void> seriesHits;
+   private Series<Void> seriesEvictions;
+   private Series<Long> seriesOccupancy;
+
+   // by request id
+   private final RequestIndex index;
+   private final BitSet cacheHitRequests = new BitSet();
+   private final LongColumn scheduleStart = new LongColumn();
+   private final LongColumn fetchStart = new LongColumn();
+   private final LongColumn fetchFinish = new LongColumn();
+   private long peakOccupancy = 0;
+
+   public PrefetchProfilingServiceImpl() {
+      this(new RequestIndex());
+   }
 
-   private Set<Request> cacheHitRequests = new HashSet<>();
-   private Map<Request, Long> scheduleStart = new HashMap<>();
-   private Map<Request, Long> fetchStart = new HashMap<>();
-   private Map<Request, Long> fetchFinish = new HashMap<>();
+   /**
+    * Creates a profiling service keeping per-request results by the ids of
+    * the given index.
+    * 
+    * @param index
+    *           the request index shared by the members of the simulation
+    */
+   public PrefetchProfilingServiceImpl(RequestIndex index) {
+      this.index = index;
+   }
 
    @Override
    public void initialize(Simulation simulation, SimulationInitializationContext context) {
@@ -48,6 +71,8 @@ public class PrefetchProfilingServiceImpl implements PrefetchProfilingService, P
       seriesDataAge = context.getSeries(DATA_AGE, Long.class);
       seriesDataVolume = context.getSeries(DATA_VOLUME, Long.class);
       seriesHits = context.getSeries(HIT, Void.class);
+      seriesEvictions = context.getSeries(EVICTION, Void.class);
+      seriesOccupancy = context.getSeries(OCCUPANCY, Long.class);
    }
 
    @Override
@@ -72,23 +97,27 @@ public class PrefetchProfilingServiceImpl implements PrefetchProfilingService, P
 
    @Override
    public void cacheHit(Request request) {
-      cacheHitRequests.add(request);
+      cacheHitRequests.set(index.add(request));
       seriesHits.measure(null);
    }
    
    @Override
    public void scheduled(Request request, Long scheduledTime) {
-      scheduleStart.put(request, scheduledTime);
+      int id = index.add(request);
+      if (scheduledTime == null)
+         scheduleStart.remove(id);
+      else
+         scheduleStart.put(id, scheduledTime);
    }
    
    @Override
    public void request(Request request) {
-      fetchStart.put(request, simulation.getCurrentTick());
+      fetchStart.put(index.add(request), simulation.getCurrentTick());
    }
 
    @Override
    public void response(Request request) {
-      fetchFinish.put(request, simulation.getCurrentTick());
+      fetchFinish.put(index.add(request), simulation.getCurrentTick());
    }
    
    @Override
@@ -98,6 +127,17 @@ public class PrefetchProfilingServiceImpl implements PrefetchProfilingService, P
       seriesDataVolume.measure((long) dataVolume);
    }
 
+   @Override
+   public void cacheEviction(Request request) {
+      seriesEvictions.measure(null);
+   }
+
+   @Override
+   public void cacheOccupancy(long bytes) {
+      seriesOccupancy.measure(bytes);
+      peakOccupancy = Math.max(peakOccupancy, bytes);
+   }
+
    @Override
    public SeriesResult<Long> getResponseTime() {
       return simulation.getSeries(RESPONSE_TIME, Long.class);
@@ -118,23 +158,45 @@ public class PrefetchProfilingServiceImpl implements PrefetchProfilingService, P
       return simulation.getSeries(HIT, Void.class);
    }
 
+   @Override
+   public SeriesResult<Void> getCacheEvictions() {
+      return simulation.getSeries(EVICTION, Void.class);
+   }
+
+   @Override
+   public SeriesResult<Long> getCacheOccupancy() {
+      return simulation.getSeries(OCCUPANCY, Long.class);
+   }
+
+   @Override
+   public long getPeakCacheOccupancy() {
+      return peakOccupancy;
+   }
+
    @Override
    public Set<Request> getCacheHitRequests() {
-      return cacheHitRequests;
+      Set<Request> requests = new HashSet<>();
+      for (int id = cacheHitRequests.nextSetBit(0); id >= 0; id = cacheHitRequests.nextSetBit(id + 1))
+         requests.add(index.get(id));
+      return requests;
    }
 
    @Override
    public Long getFetchFinish(Request request) {
-      return fetchFinish.get(request);
+      return get(fetchFinish, request);
    }
 
    @Override
    public Long getFetchStart(Request request) {
-      return fetchStart.get(request);
+      return get(fetchStart, request);
    }
 
    @Override
    public Long getScheduledStart(Request request) {
-      return scheduleStart.get(request);
+      return get(scheduleStart, request);
+   }
+
+   private Long get(LongColumn column, Request request) {
+      return column.getOrNull(index.idOf(request));
    }
 }
@@ -0,0 +1,79 @@
+package at.borkowski.prefetchsimulation.util;
+
+/**
+ * A counter-based random source: the numbers drawn depend only on a key and a
+ * counter, so the stream of any counter can be obtained directly, without
+ * drawing the numbers of all previous counters. Key and counter are scrambled
+ * with the SplitMix64 finalizer, and successive numbers of a stream are drawn
+ * like with SplitMix64.
+ */
+public final class CounterRandom implements RandomSource {
+
+   private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+   private static final double DOUBLE_UNIT = 0x1.0p-53; // 1.0 / (1L << 53)
+
+   private long state;
+
+   private double nextNextGaussian;
+   private boolean haveNextNextGaussian = false;
+
+   /**
+    * Creates the stream of a counter.
+    *
+    * @param key
+    *           the key, which selects the family of streams
+    * @param counter
+    *           the counter, which selects the stream within the family
+    */
+   public CounterRandom(long key, long counter) {
+      state = mix(key + mix(counter * GOLDEN_GAMMA));
+   }
+
+   /**
+    * Scrambles a value, such that close inputs result in unrelated outputs.
+    *
+    * @param z
+    *           the value
+    * @return the scrambled value
+    */
+   public static long mix(long z) {
+      z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+      z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+      return z ^ (z >>> 31);
+   }
+
+   @Override
+   public long nextLong() {
+      return mix(state += GOLDEN_GAMMA);
+   }
+
+   @Override
+   public double nextGaussian() {
+      // the polar method, like RepeatableRandom
+      if (haveNextNextGaussian) {
+         haveNextNextGaussian = false;
+         return nextNextGaussian;
+      }
+
+      double v1, v2, s;
+      do {
+         v1 = 2 * nextDouble() - 1;
+         v2 = 2 * nextDouble() - 1;
+         s = v1 * v1 + v2 * v2;
+      } while (s >= 1 || s == 0);
+      double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+      nextNextGaussian = v2 * multiplier;
+      haveNextNextGaussian = true;
+      return v1 * multiplier;
+   }
+
+   @Override
+   public double nextDouble() {
+      return (nextLong() >>> 11) * DOUBLE_UNIT;
+   }
+
+   @Override
+   public CounterRandom fork() {
+      return new CounterRandom(nextLong(), 0);
+   }
+}
@@ -0,0 +1,246 @@
+package at.borkowski.prefetchsimulation.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.ToIntFunction;
+
+/**
+ * A priority queue of elements with <code>long</code> priorities, where the
+ * element with the smallest priority is at the head. In addition to a plain
+ * binary heap, the position of each element is indexed, so that the priority
+ * of any element can be changed (both decreased and increased) or the element
+ * can be removed in logarithmic time.
+ *
+ * Elements are identified using {@link Object#equals(Object)} and
+ * {@link Object#hashCode()}, unless the queue is created with an indexer
+ * mapping each element to a distinct non-negative integer, in which case the
+ * positions are kept in an array indexed by it. Each element is contained at
+ * most once. The order of elements with equal priority is unspecified.
+ *
+ * @param <T>
+ *           the element type
+ */
+public class IndexedPriorityQueue<T> {
+   private static final int INITIAL_CAPACITY = 16;
+
+   private Object[] elements = new Object[INITIAL_CAPACITY];
+   private long[] priorities = new long[INITIAL_CAPACITY];
+   private int size = 0;
+
+   private final Map<T, Integer> positions;
+   private final ToIntFunction<? super T> indexer;
+   // by index, the position plus one, or 0 if not contained
+   private int[] indexedPositions;
+
+   public IndexedPriorityQueue() {
+      positions = new HashMap<>();
+      indexer = null;
+   }
+
+   /**
+    * Creates a queue whose elements are identified by an integer index instead
+    * of {@link Object#equals(Object)}.
+    *
+    * @param indexer
+    *           maps each element to a distinct non-negative integer, which
+    *           should be small since it is used as array index
+    */
+   public IndexedPriorityQueue(ToIntFunction<? super T> indexer) {
+      positions = null;
+      this.indexer = indexer;
+      indexedPositions = new int[INITIAL_CAPACITY];
+   }
+
+   /**
+    * Inserts an element or changes the priority of an element already
+    * contained.
+    *
+    * @param element
+    *           the element
+    * @param priority
+    *           the (new) priority
+    */
+   public void put(T element, long priority) {
+      int position = position(element);
+      if (position < 0) {
+         if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+            priorities = Arrays.copyOf(priorities, size * 2);
+         }
+         set(size, element, priority);
+         siftUp(size++);
+      } else {
+         long previous = priorities[position];
+         priorities[position] = priority;
+         if (priority < previous)
+            siftUp(position);
+         else
+            siftDown(position);
+      }
+   }
+
+   /**
+    * Removes an element.
+    *
+    * @param element
+    *           the element to remove
+    * @return <code>true</code> if the element was contained
+    */
+   public boolean remove(T element) {
+      int position = position(element);
+      if (position < 0)
+         return false;
+      forget(element);
+
+      size--;
+      if (position != size) {
+         set(position, element(size), priorities[size]);
+         siftDown(position);
+         siftUp(position);
+      }
+      elements[size] = null;
+      return true;
+   }
+
+   /**
+    * Removes and returns the element with the smallest priority.
+    *
+    * @return the head of the queue, or <code>null</code> if the queue is empty
+    */
+   public T poll() {
+      if (size == 0)
+         return null;
+      T head = element(0);
+      remove(head);
+      return head;
+   }
+
+   /**
+    * Returns the element with the smallest priority without removing it.
+    *
+    * @return the head of the queue, or <code>null</code> if the queue is empty
+    */
+   public T peek() {
+      return size == 0 ? null : element(0);
+   }
+
+   /**
+    * Returns the smallest priority in the queue.
+    *
+    * @return the priority of the head of the queue
+    * @throws NoSuchElementException
+    *            if the queue is empty
+    */
+   public long peekPriority() {
+      if (size == 0)
+         throw new NoSuchElementException();
+      return priorities[0];
+   }
+
+   /**
+    * Returns the priority of an element.
+    *
+    * @param element
+    *           the element
+    * @return the priority, or <code>null</code> if the element is not contained
+    */
+   public Long getPriority(T element) {
+      int position = position(element);
+      return position < 0 ? null : priorities[position];
+   }
+
+   public boolean contains(T element) {
+      return position(element) >= 0;
+   }
+
+   public int size() {
+      return size;
+   }
+
+   public boolean isEmpty() {
+      return size == 0;
+   }
+
+   /**
+    * Returns an unmodifiable view of the contained elements, in no particular
+    * order.
+    *
+    * @return the elements
+    */
+   @SuppressWarnings("unchecked")
+   public Collection<T> elements() {
+      return Collections.unmodifiableList((List<T>) Arrays.asList(elements).subList(0, size));
+   }
+
+   private void siftUp(int position) {
+      while (position > 0) {
+         int parent = (position - 1) >>> 1;
+         if (priorities[parent] <= priorities[position])
+            break;
+         swap(position, parent);
+         position = parent;
+      }
+   }
+
+   private void siftDown(int position) {
+      while (true) {
+         int child = 2 * position + 1;
+         if (child >= size)
+            break;
+         if (child + 1 < size && priorities[child + 1] < priorities[child])
+            child++;
+         if (priorities[position] <= priorities[child])
+            break;
+         swap(position, child);
+         position = child;
+      }
+   }
+
+   private void swap(int a, int b) {
+      T elementA = element(a);
+      long priorityA = priorities[a];
+      set(a, element(b), priorities[b]);
+      set(b, elementA, priorityA);
+   }
+
+   private void set(int position, T element, long priority) {
+      elements[position] = element;
+      priorities[position] = priority;
+      if (indexer == null) {
+         positions.put(element, position);
+         return;
+      }
+
+      int index = indexer.applyAsInt(element);
+      if (index >= indexedPositions.length)
+         indexedPositions = Arrays.copyOf(indexedPositions, Math.max(index + 1, indexedPositions.length * 2));
+      indexedPositions[index] = position + 1;
+   }
+
+   private int position(T element) {
+      if (indexer == null) {
+         Integer position = positions.get(element);
+         return position == null ? -1 : position;
+      }
+
+      int index = indexer.applyAsInt(element);
+      return index >= 0 && index < indexedPositions.length ? indexedPositions[index] - 1 : -1;
+   }
+
+   private void forget(T element) {
+      if (indexer == null)
+         positions.remove(element);
+      else
+         indexedPositions[indexer.applyAsInt(element)] = 0;
+   }
+
+   @SuppressWarnings("unchecked")
+   private T element(int position) {
+      return (T) elements[position];
+   }
+}
@@ -0,0 +1,276 @@
+package at.borkowski.prefetchsimulation.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Splits a character stream into lines and lines into whitespace-separated
+ * tokens, dropping comments starting with <code>#</code>. This is equivalent
+ * to reading lines using {@link java.io.BufferedReader#readLine()}, removing
+ * <code>#.*$</code> and splitting at <code>\s+</code>, but works on a single
+ * reusable buffer: tokens are only turned into strings when requested, and
+ * numbers are parsed in place.
+ *
+ * Lines are terminated by <code>\n</code>, <code>\r</code> or
+ * <code>\r\n</code>, like with {@link java.io.BufferedReader}. Tokens are never
+ * empty.
+ */
+public class LineTokenizer {
+   private static final int INITIAL_CAPACITY = 64 * 1024;
+
+   private final Reader input;
+
+   private char[] buffer = new char[INITIAL_CAPACITY];
+   private int position = 0, limit = 0;
+   private boolean eof = false, skipLF = false;
+
+   private int[] starts = new int[8], ends = new int[8];
+   private int count = 0;
+   private int lineNumber = 0;
+
+   public LineTokenizer(Reader input) {
+      this.input = input;
+   }
+
+   /**
+    * Advances to the next line. Lines without tokens (empty lines and lines
+    * containing only whitespace or comments) are not skipped.
+    *
+    * @return <code>false</code> if the end of the input has been reached
+    * @throws IOException
+    *            if reading fails
+    */
+   public boolean nextLine() throws IOException {
+      count = 0;
+
+      if (skipLF) {
+         if (position == limit)
+            fill();
+         if (position < limit && buffer[position] == '\n')
+            position++;
+         skipLF = false;
+      }
+
+      int scan = position;
+      while (true) {
+         while (scan < limit && buffer[scan] != '\n' && buffer[scan] != '\r')
+            scan++;
+         if (scan < limit || eof)
+            break;
+         scan -= position;
+         fill();
+         scan += position;
+      }
+
+      if (scan == position && scan == limit)
+         return false;
+
+      tokenize(position, scan);
+      lineNumber++;
+
+      if (scan < limit) {
+         if (buffer[scan] == '\r') {
+            if (scan + 1 < limit) {
+               if (buffer[scan + 1] == '\n')
+                  scan++;
+            } else {
+               skipLF = true;
+            }
+         }
+         scan++;
+      }
+      position = scan;
+      return true;
+   }
+
+   /**
+    * Returns the number of the current line, starting at 1.
+    *
+    * @return the line number
+    */
+   public int getLineNumber() {
+      return lineNumber;
+   }
+
+   /**
+    * Returns the number of tokens on the current line.
+    *
+    * @return the number of tokens
+    */
+   public int getTokenCount() {
+      return count;
+   }
+
+   /**
+    * Returns a token of the current line as a string.
+    *
+    * @param index
+    *           the index of the token
+    * @return the token
+    * @throws ArrayIndexOutOfBoundsException
+    *            if there is no such token
+    */
+   public String getToken(int index) {
+      check(index);
+      return new String(buffer, starts[index], ends[index] - starts[index]);
+   }
+
+   /**
+    * Returns all tokens of the current line as strings.
+    *
+    * @return the tokens
+    */
+   public String[] getTokens() {
+      String[] tokens = new String[count];
+      for (int i = 0; i < count; i++)
+         tokens[i] = getToken(i);
+      return tokens;
+   }
+
+   /**
+    * Checks whether a token equals the given string, without creating a
+    * string for the token.
+    *
+    * @param index
+    *           the index of the token
+    * @param string
+    *           the string to compare to
+    * @return whether the token equals the string
+    * @throws ArrayIndexOutOfBoundsException
+    *            if there is no such token
+    */
+   public boolean tokenEquals(int index, String string) {
+      check(index);
+      int start = starts[index];
+      int length = ends[index] - start;
+      if (length != string.length())
+         return false;
+      for (int i = 0; i < length; i++)
+         if (buffer[start + i] != string.charAt(i))
+            return false;
+      return true;
+   }
+
+   /**
+    * Parses a token like {@link Long#parseLong(String)}.
+    *
+    * @param index
+    *           the index of the token
+    * @return the value
+    * @throws NumberFormatException
+    *            if the token is not a valid <code>long</code>
+    * @throws ArrayIndexOutOfBoundsException
+    *            if there is no such token
+    */
+   public long parseLong(int index) {
+      check(index);
+      // up to 18 digits cannot overflow; anything else is left to the JDK
+      long value = parseDigits(index, 18);
+      return value >= 0 ? value : Long.parseLong(getToken(index));
+   }
+
+   /**
+    * Parses a token like {@link Integer#parseInt(String)}.
+    *
+    * @param index
+    *           the index of the token
+    * @return the value
+    * @throws NumberFormatException
+    *            if the token is not a valid <code>int</code>
+    * @throws ArrayIndexOutOfBoundsException
+    *            if there is no such token
+    */
+   public int parseInt(int index) {
+      check(index);
+      long value = parseDigits(index, 9);
+      return value >= 0 ? (int) value : Integer.parseInt(getToken(index));
+   }
+
+   /**
+    * Returns the value of a token consisting of an optional plus sign and at
+    * most <code>maxDigits</code> ASCII digits, or <code>-1</code> if the token
+    * has any other form (including negative numbers, which are rare enough to
+    * be left to the JDK).
+    */
+   private long parseDigits(int index, int maxDigits) {
+      int i = starts[index];
+      int end = ends[index];
+      char first = buffer[i];
+      if (first == '-')
+         return -1;
+      if (first == '+')
+         i++;
+      if (i == end || end - i > maxDigits)
+         return -1;
+
+      long value = 0;
+      for (; i < end; i++) {
+         int digit = buffer[i] - '0';
+         if (digit < 0 || digit > 9)
+            return -1;
+         value = value * 10 + digit;
+      }
+      return value;
+   }
+
+   private void check(int index) {
+      if (index < 0 || index >= count)
+         throw new ArrayIndexOutOfBoundsException(index);
+   }
+
+   private void tokenize(int start, int end) {
+      int i = start;
+      while (i < end) {
+         while (i < end && isWhitespace(buffer[i]))
+            i++;
+         if (i == end || buffer[i] == '#')
+            break;
+
+         int tokenStart = i;
+         while (i < end && !isWhitespace(buffer[i]) && buffer[i] != '#')
+            i++;
+         addToken(tokenStart, i);
+
+         if (i < end && buffer[i] == '#')
+            break;
+      }
+   }
+
+   private void addToken(int start, int end) {
+      if (count == starts.length) {
+         starts = Arrays.copyOf(starts, count * 2);
+         ends = Arrays.copyOf(ends, count * 2);
+      }
+      starts[count] = start;
+      ends[count] = end;
+      count++;
+   }
+
+   /**
+    * Moves the unconsumed part of the buffer to its beginning (growing it if
+    * it is full) and reads more characters.
+    */
+   private void fill() throws IOException {
+      if (position > 0) {
+         System.arraycopy(buffer, position, buffer, 0, limit - position);
+         limit -= position;
+         position = 0;
+      }
+      if (limit == buffer.length)
+         buffer = Arrays.copyOf(buffer, buffer.length * 2);
+
+      int read = input.read(buffer, limit, buffer.length - limit);
+      if (read < 0)
+         eof = true;
+      else
+         limit += read;
+   }
+
+   /**
+    * Returns whether the character is matched by <code>\s</code>.
+    */
+   private static boolean isWhitespace(char c) {
+      return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+   }
+}
@@ -0,0 +1,65 @@
+package at.borkowski.prefetchsimulation.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+
+/**
+ * A map of non-negative <code>int</code> keys to <code>long</code> values,
+ * backed by an array indexed by key. Intended for dense keys such as request
+ * ids, for which it needs a fraction of the memory of a {@link java.util.Map}
+ * of boxed values.
+ */
+public class LongColumn {
+   private static final int INITIAL_CAPACITY = 16;
+
+   private long[] values = new long[INITIAL_CAPACITY];
+   private final BitSet present = new BitSet();
+
+   public void put(int key, long value) {
+      if (key >= values.length)
+         values = Arrays.copyOf(values, Math.max(values.length * 2, key + 1));
+      values[key] = value;
+      present.set(key);
+   }
+
+   /**
+    * Returns the value of a key.
+    * 
+    * @param key
+    *           the key
+    * @return the value
+    * @throws NoSuchElementException
+    *            if the column contains no value for the key
+    */
+   public long get(int key) {
+      if (!contains(key))
+         throw new NoSuchElementException("no value for key " + key);
+      return values[key];
+   }
+
+   /**
+    * Returns the value of a key, boxed.
+    * 
+    * @param key
+    *           the key
+    * @return the value, or <code>null</code> if the column contains no value
+    *         for the key
+    */
+   public Long getOrNull(int key) {
+      return contains(key) ? values[key] : null;
+   }
+
+   public boolean contains(int key) {
+      return key >= 0 && present.get(key);
+   }
+
+   public void remove(int key) {
+      if (key >= 0)
+         present.clear(key);
+   }
+
+   public boolean isEmpty() {
+      return present.isEmpty();
+   }
+}
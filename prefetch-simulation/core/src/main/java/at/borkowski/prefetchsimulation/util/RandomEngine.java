@@ -0,0 +1,67 @@
+package at.borkowski.prefetchsimulation.util;
+
+/**
+ * The random number generators available for generating geneses.
+ */
+public enum RandomEngine {
+   /**
+    * The linear congruential generator of {@link java.util.Random}, see
+    * {@link RepeatableRandom}. This is the default, which reproduces geneses
+    * generated by previous versions.
+    */
+   LEGACY("legacy") {
+      @Override
+      public RandomSource create(long seed) {
+         return new RepeatableRandom(seed);
+      }
+   },
+   /**
+    * The xoroshiro128++ generator with a ziggurat Gaussian sampler, see
+    * {@link XoroshiroRandom}.
+    */
+   XOROSHIRO("xoroshiro") {
+      @Override
+      public RandomSource create(long seed) {
+         return new XoroshiroRandom(seed);
+      }
+   };
+
+   private final String name;
+
+   private RandomEngine(String name) {
+      this.name = name;
+   }
+
+   /**
+    * Creates a random source of this engine.
+    * 
+    * @param seed
+    *           the seed
+    * @return the random source
+    */
+   public abstract RandomSource create(long seed);
+
+   /**
+    * Returns the name of the engine as used in configurations.
+    * 
+    * @return the name
+    */
+   public String getName() {
+      return name;
+   }
+
+   /**
+    * Returns the engine of a name.
+    * 
+    * @param name
+    *           the name as used in configurations
+    * @return the engine, or <code>null</code> if there is none with the given
+    *         name
+    */
+   public static RandomEngine forName(String name) {
+      for (RandomEngine engine : values())
+         if (engine.name.equals(name))
+            return engine;
+      return null;
+   }
+}
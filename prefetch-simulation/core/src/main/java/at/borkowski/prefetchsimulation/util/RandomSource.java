@@ -8,4 +8,12 @@ public interface RandomSource {
 
    double nextDouble();
 
+   /**
+    * Creates a new random source seeded from this one, which advances this
+    * source.
+    * 
+    * @return the new random source
+    */
+   RandomSource fork();
+
 }
@@ -90,6 +90,7 @@ public final class RepeatableRandom implements RandomSource {
       return (((long) (next(26)) << 27) + next(27)) * DOUBLE_UNIT;
    }
 
+   @Override
    public RepeatableRandom fork() {
       return new RepeatableRandom(nextLong());
    }
@@ -0,0 +1,109 @@
+package at.borkowski.prefetchsimulation.util;
+
+/**
+ * A random source using the xoroshiro128++ generator by Blackman and Vigna,
+ * seeded using SplitMix64. Gaussian numbers are drawn with the ziggurat method
+ * (Doornik's ZIGNOR variant with 128 layers), which needs a single 64-bit
+ * number for about 99% of the samples. Unlike {@link RepeatableRandom}, forking
+ * takes constant time and the streams of forks are statistically independent.
+ *
+ * The tables of the ziggurat are computed with {@link StrictMath}, so the
+ * numbers drawn for a seed are the same on every platform.
+ */
+public final class XoroshiroRandom implements RandomSource {
+
+   private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+   private static final double DOUBLE_UNIT = 0x1.0p-53; // 1.0 / (1L << 53)
+
+   private static final int ZIGGURAT_LAYERS = 128;
+   // the start of the tail and the area of each layer, see Doornik (2005)
+   private static final double ZIGGURAT_R = 3.442619855899;
+   private static final double ZIGGURAT_V = 9.91256303526217e-3;
+   // the right edges of the layers, and their ratios to the edge of the layer
+   // below
+   private static final double[] ZIGGURAT_X = new double[ZIGGURAT_LAYERS + 1];
+   private static final double[] ZIGGURAT_RATIO = new double[ZIGGURAT_LAYERS];
+
+   static {
+      double f = StrictMath.exp(-0.5 * ZIGGURAT_R * ZIGGURAT_R);
+      ZIGGURAT_X[0] = ZIGGURAT_V / f;
+      ZIGGURAT_X[1] = ZIGGURAT_R;
+      ZIGGURAT_X[ZIGGURAT_LAYERS] = 0;
+      for (int i = 2; i < ZIGGURAT_LAYERS; i++) {
+         ZIGGURAT_X[i] = StrictMath.sqrt(-2 * StrictMath.log(ZIGGURAT_V / ZIGGURAT_X[i - 1] + f));
+         f = StrictMath.exp(-0.5 * ZIGGURAT_X[i] * ZIGGURAT_X[i]);
+      }
+      for (int i = 0; i < ZIGGURAT_LAYERS; i++)
+         ZIGGURAT_RATIO[i] = ZIGGURAT_X[i + 1] / ZIGGURAT_X[i];
+   }
+
+   private long s0, s1;
+
+   public XoroshiroRandom(long seed) {
+      setSeed(seed);
+   }
+
+   public void setSeed(long seed) {
+      s0 = CounterRandom.mix(seed += GOLDEN_GAMMA);
+      s1 = CounterRandom.mix(seed + GOLDEN_GAMMA);
+      // the all-zero state is the only invalid one
+      if ((s0 | s1) == 0)
+         s1 = GOLDEN_GAMMA;
+   }
+
+   @Override
+   public long nextLong() {
+      final long s0 = this.s0;
+      long s1 = this.s1;
+      final long result = Long.rotateLeft(s0 + s1, 17) + s0;
+
+      s1 ^= s0;
+      this.s0 = Long.rotateLeft(s0, 49) ^ s1 ^ (s1 << 21);
+      this.s1 = Long.rotateLeft(s1, 28);
+      return result;
+   }
+
+   @Override
+   public double nextDouble() {
+      return (nextLong() >>> 11) * DOUBLE_UNIT;
+   }
+
+   @Override
+   public double nextGaussian() {
+      while (true) {
+         // the layer and the position in it are taken from disjoint bits
+         long bits = nextLong();
+         int layer = (int) bits & (ZIGGURAT_LAYERS - 1);
+         double u = 2 * ((bits >>> 11) * DOUBLE_UNIT) - 1;
+
+         // inside the rectangle shared with the layer above
+         if (Math.abs(u) < ZIGGURAT_RATIO[layer])
+            return u * ZIGGURAT_X[layer];
+
+         if (layer == 0)
+            return tail(u < 0);
+
+         // in the wedge between the rectangle and the density
+         double x = u * ZIGGURAT_X[layer];
+         double f0 = StrictMath.exp(-0.5 * (ZIGGURAT_X[layer] * ZIGGURAT_X[layer] - x * x));
+         double f1 = StrictMath.exp(-0.5 * (ZIGGURAT_X[layer + 1] * ZIGGURAT_X[layer + 1] - x * x));
+         if (f1 + nextDouble() * (f0 - f1) < 1.0)
+            return x;
+      }
+   }
+
+   private double tail(boolean negative) {
+      double x, y;
+      do {
+         // 1 - nextDouble() is in (0, 1], so the logarithms are finite
+         x = StrictMath.log(1 - nextDouble()) / ZIGGURAT_R;
+         y = StrictMath.log(1 - nextDouble());
+      } while (-2 * y < x * x);
+      return negative ? x - ZIGGURAT_R : ZIGGURAT_R - x;
+   }
+
+   @Override
+   public XoroshiroRandom fork() {
+      return new XoroshiroRandom(nextLong());
+   }
+}
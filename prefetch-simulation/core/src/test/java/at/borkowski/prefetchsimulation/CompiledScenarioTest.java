@@ -0,0 +1,87 @@
+package at.borkowski.prefetchsimulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import at.borkowski.prefetchsimulation.algorithms.IgnoreRatePredictionAlgorithm;
+import at.borkowski.prefetchsimulation.algorithms.NullAlgorithm;
+import at.borkowski.prefetchsimulation.algorithms.PrefetchAlgorithm;
+import at.borkowski.prefetchsimulation.genesis.Genesis;
+
+public class CompiledScenarioTest {
+
+   CompiledScenario sut;
+
+   HashMap<Long, Integer> rateReal = new HashMap<>();
+   HashMap<Long, Integer> ratePredicted = new HashMap<>();
+   HashMap<String, String> algorithmConfiguration = new HashMap<>();
+   List<Request> requests = new LinkedList<>();
+
+   Request request0, request1, request2;
+
+   @Before
+   public void setUp() throws Exception {
+      rateReal.put(20L, 100);
+      rateReal.put(10L, null);
+      ratePredicted.put(10L, 95);
+      algorithmConfiguration.put("alpha", "0.5");
+
+      requests.add(request0 = new Request(30, 2, 3));
+      requests.add(request1 = new Request(10, 5, 6));
+      requests.add(request2 = new Request(20, 8, 9));
+
+      sut = CompiledScenario.compile(new Genesis(1000, requests, rateReal, ratePredicted, NullAlgorithm.class, algorithmConfiguration, 50));
+   }
+
+   @Test
+   public void testRequestsSortedByDeadline() {
+      assertEquals(3, sut.getRequests().size());
+      assertSame(request1, sut.getRequests().get(0));
+      assertSame(request2, sut.getRequests().get(1));
+      assertSame(request0, sut.getRequests().get(2));
+   }
+
+   @Test
+   public void testIndependentOfGenesis() {
+      requests.clear();
+      rateReal.clear();
+
+      assertEquals(3, sut.getRequests().size());
+      assertEquals(1000, sut.getTicks());
+      assertEquals(50, sut.getLookAheadTime());
+   }
+
+   @Test(expected = UnsupportedOperationException.class)
+   public void testRequestsUnmodifiable() {
+      sut.getRequests().clear();
+   }
+
+   @Test
+   public void testCreateBuilder() {
+      PrefetchAlgorithm algorithm = new IgnoreRatePredictionAlgorithm();
+      PrefetchSimulationBuilder builder = sut.createBuilder(algorithm);
+
+      assertSame(algorithm, builder.test__getFetchClient().getFetchProcessor().getAlgorithm());
+      assertEquals(50, builder.test__getFetchClient().getFetchProcessor().getLookAheadTime());
+      assertEquals(3, builder.test__getFetchClient().getFetchProcessor().getPendingRequests().size());
+      assertTrue(builder.test__getFetchClient().getFetchProcessor().getPendingRequests().containsAll(requests));
+   }
+
+   @Test
+   public void testCreateBuilderDefaultAlgorithm() {
+      PrefetchSimulationBuilder builder0 = sut.createBuilder();
+      PrefetchSimulationBuilder builder1 = sut.createBuilder();
+
+      assertSame(NullAlgorithm.class, builder0.test__getFetchClient().getFetchProcessor().getAlgorithm().getClass());
+      assertNotSame(builder0.test__getFetchClient().getFetchProcessor().getAlgorithm(), builder1.test__getFetchClient().getFetchProcessor().getAlgorithm());
+   }
+}
@@ -5,10 +5,11 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -19,10 +20,12 @@ import org.junit.Test;
 import at.borkowski.prefetchsimulation.PrefetchSimulationBuilder.Mocker;
 import at.borkowski.prefetchsimulation.algorithms.NullAlgorithm;
 import at.borkowski.prefetchsimulation.algorithms.PrefetchAlgorithm;
+import at.borkowski.prefetchsimulation.algorithms.RespectRatePredictionAlgorithm;
 import at.borkowski.prefetchsimulation.genesis.Genesis;
 import at.borkowski.prefetchsimulation.members.aux.RatePredictionService;
+import at.borkowski.prefetchsimulation.members.aux.RateSetter;
 import at.borkowski.scovillej.simulation.Simulation;
-import at.borkowski.scovillej.simulation.SimulationEvent;
+import at.borkowski.scovillej.simulation.SimulationContext;
 
 public class PrefetchSimulationBuilderTest {
 
@@ -76,16 +79,19 @@ public class PrefetchSimulationBuilderTest {
       assertEquals(13, sut.test__getCommunicationService().getService().getUplinkRate(sut.test__getSocketName()).intValue());
       assertEquals(13, sut.test__getCommunicationService().getService().getDownlinkRate(sut.test__getSocketName()).intValue());
 
-      Collection<SimulationEvent> rateEvents = sut.test__getRateSetter().generateEvents();
-      assertEquals(1, rateEvents.size());
-      SimulationEvent event = rateEvents.iterator().next();
-      assertEquals(10L, event.getScheduledTick());
+      RateSetter rateSetter = sut.test__getRateSetter();
       RatePredictionService ratePredictionService = sut.test__getRatePredictionServiceProvider().getService();
       assertEquals(null, ratePredictionService.predict(0));
       assertEquals(null, ratePredictionService.predict(9));
       assertEquals(95, ratePredictionService.predict(10).intValue());
 
-      event.executePhase(null);
+      SimulationContext context = mock(SimulationContext.class);
+      when(context.getCurrentTick()).thenReturn(9L);
+      rateSetter.executePhase(context);
+      assertEquals(13, sut.test__getCommunicationService().getService().getDownlinkRate(sut.test__getSocketName()).intValue());
+
+      when(context.getCurrentTick()).thenReturn(10L);
+      rateSetter.executePhase(context);
       assertEquals(100, sut.test__getCommunicationService().getService().getUplinkRate(sut.test__getSocketName()).intValue());
       assertEquals(100, sut.test__getCommunicationService().getService().getDownlinkRate(sut.test__getSocketName()).intValue());
 
@@ -116,16 +122,19 @@ public class PrefetchSimulationBuilderTest {
       assertEquals(13, sut.test__getCommunicationService().getService().getUplinkRate(sut.test__getSocketName()).intValue());
       assertEquals(13, sut.test__getCommunicationService().getService().getDownlinkRate(sut.test__getSocketName()).intValue());
 
-      Collection<SimulationEvent> rateEvents = sut.test__getRateSetter().generateEvents();
-      assertEquals(1, rateEvents.size());
-      SimulationEvent event = rateEvents.iterator().next();
-      assertEquals(10L, event.getScheduledTick());
+      RateSetter rateSetter = sut.test__getRateSetter();
       RatePredictionService ratePredictionService = sut.test__getRatePredictionServiceProvider().getService();
       assertEquals(null, ratePredictionService.predict(0));
       assertEquals(null, ratePredictionService.predict(9));
       assertEquals(95, ratePredictionService.predict(10).intValue());
 
-      event.executePhase(null);
+      SimulationContext context = mock(SimulationContext.class);
+      when(context.getCurrentTick()).thenReturn(9L);
+      rateSetter.executePhase(context);
+      assertEquals(13, sut.test__getCommunicationService().getService().getDownlinkRate(sut.test__getSocketName()).intValue());
+
+      when(context.getCurrentTick()).thenReturn(10L);
+      rateSetter.executePhase(context);
       assertEquals(100, sut.test__getCommunicationService().getService().getUplinkRate(sut.test__getSocketName()).intValue());
       assertEquals(100, sut.test__getCommunicationService().getService().getDownlinkRate(sut.test__getSocketName()).intValue());
 
@@ -141,6 +150,13 @@ public class PrefetchSimulationBuilderTest {
       assertEquals(10000, simulation.getTotalTicks());
    }
 
+   @Test
+   public void testFetchSlots() {
+      RespectRatePredictionAlgorithm parallel = spy(new RespectRatePredictionAlgorithm());
+      new PrefetchSimulationBuilder(2).algorithm(parallel);
+      verify(parallel).setFetchSlots(2);
+   }
+
    private Mocker<PrefetchAlgorithm> spyAlgorithm() {
       return new Mocker<PrefetchAlgorithm>() {
          @Override
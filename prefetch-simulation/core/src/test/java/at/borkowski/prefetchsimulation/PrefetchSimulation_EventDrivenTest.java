@@ -0,0 +1,83 @@
+package at.borkowski.prefetchsimulation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import at.borkowski.prefetchsimulation.algorithms.IgnoreRatePredictionAlgorithm;
+import at.borkowski.prefetchsimulation.algorithms.NullAlgorithm;
+import at.borkowski.prefetchsimulation.algorithms.PrefetchAlgorithm;
+import at.borkowski.prefetchsimulation.algorithms.RespectRatePredictionAlgorithm;
+import at.borkowski.prefetchsimulation.configuration.Configuration;
+import at.borkowski.prefetchsimulation.configuration.ConfigurationReader;
+import at.borkowski.prefetchsimulation.genesis.GenesisGenerator;
+import at.borkowski.prefetchsimulation.profiling.PrefetchProfilingResults;
+import at.borkowski.scovillej.profile.SeriesResult;
+
+/**
+ * Verifies that event-driven simulations of generated scenarios yield the same
+ * results as simulations executing every tick.
+ */
+public class PrefetchSimulation_EventDrivenTest {
+
+   private static final String CONFIGURATION = "ticks 20000\nbyterate u/30/200\nslot-length ~/120/30\nnetwork-uptime 0.95\nrelative-jitter ~/0/0.05\nabsolute-jitter 0\n" //
+         + "relative-prediction-time-error ~/0/0.05\nrelative-prediction-amplitude-error ~/0/0.05\nabsolute-prediction-time-error 0\nabsolute-prediction-amplitude-error 0\nlook-ahead 1000\n" //
+         + "request-series interval ~/150/5 size 1967 byterate u/30/200 start 10 end 19000\n" //
+         + "request-series interval u/50/500 size u/10/20 byterate 100 start u/0/100 end 15000\n";
+
+   @Test
+   public void testNull() throws Exception {
+      compare(NullAlgorithm::new);
+   }
+
+   @Test
+   public void testIgnore() throws Exception {
+      compare(IgnoreRatePredictionAlgorithm::new);
+   }
+
+   @Test
+   public void testRespect() throws Exception {
+      compare(RespectRatePredictionAlgorithm::new);
+   }
+
+   private void compare(Supplier<PrefetchAlgorithm> algorithm) throws Exception {
+      Configuration configuration = new ConfigurationReader(new ByteArrayInputStream(CONFIGURATION.getBytes(StandardCharsets.UTF_8))).read();
+
+      for (long seed = 0; seed < 3; seed++) {
+         GenesisGenerator generator = new GenesisGenerator(configuration);
+         generator.setCache(null);
+         generator.seed(seed);
+         CompiledScenario scenario = CompiledScenario.compile(generator.generate());
+
+         PrefetchProfilingResults expected = run(scenario, algorithm.get(), false);
+         PrefetchProfilingResults actual = run(scenario, algorithm.get(), true);
+
+         assertSeriesEquals(expected.getResponseTime(), actual.getResponseTime());
+         assertSeriesEquals(expected.getDataAge(), actual.getDataAge());
+         assertEquals(expected.getCacheHits().getCount(), actual.getCacheHits().getCount());
+         assertEquals(expected.getCacheHitRequests(), actual.getCacheHitRequests());
+
+         for (Request request : scenario.getRequests()) {
+            assertEquals(expected.getScheduledStart(request), actual.getScheduledStart(request));
+            assertEquals(expected.getFetchStart(request), actual.getFetchStart(request));
+            assertEquals(expected.getFetchFinish(request), actual.getFetchFinish(request));
+         }
+      }
+   }
+
+   private static PrefetchProfilingResults run(CompiledScenario scenario, PrefetchAlgorithm algorithm, boolean eventDriven) {
+      PrefetchSimulationBuilder builder = scenario.createBuilder(algorithm).eventDriven(eventDriven);
+      builder.create().executeToEnd();
+      return builder.getProfiling();
+   }
+
+   private static void assertSeriesEquals(SeriesResult<Long> expected, SeriesResult<Long> actual) {
+      assertEquals(expected.getCount(), actual.getCount());
+      assertEquals(expected.getAverage(), actual.getAverage(), 0);
+      assertEquals(expected.getDoubleMedian(), actual.getDoubleMedian(), 0);
+   }
+}
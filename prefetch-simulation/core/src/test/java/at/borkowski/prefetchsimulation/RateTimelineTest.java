@@ -0,0 +1,100 @@
+package at.borkowski.prefetchsimulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+public class RateTimelineTest {
+
+   @Test
+   public void testBasic() {
+      RateTimeline sut = RateTimeline.builder().put(10, 1).put(20, null).put(30, 3).build();
+
+      assertEquals(3, sut.size());
+      assertEquals(20, sut.getTick(1));
+      assertNull(sut.getRate(1));
+      assertEquals(RateTimeline.NO_LIMIT, sut.getRawRate(1));
+
+      assertNull(sut.get(15));
+      assertEquals(3, sut.get(30).intValue());
+      assertTrue(sut.containsTick(20));
+      assertFalse(sut.containsTick(21));
+
+      assertNull(sut.rateAt(9));
+      assertEquals(1, sut.rateAt(19).intValue());
+      assertNull(sut.rateAt(25));
+      assertEquals(3, sut.rateAt(Long.MAX_VALUE).intValue());
+
+      assertEquals(-1, sut.floorIndex(9));
+      assertEquals(1, sut.floorIndex(20));
+      assertEquals(1, sut.ceilingIndex(11));
+      assertEquals(3, sut.ceilingIndex(31));
+
+      assertEquals(3, sut.getMaxRate());
+   }
+
+   @Test
+   public void testEmpty() {
+      RateTimeline sut = RateTimeline.of(new HashMap<>());
+
+      assertTrue(sut.isEmpty());
+      assertNull(sut.rateAt(0));
+      assertEquals(RateTimeline.NO_LIMIT, sut.getMaxRate());
+      assertEquals(RateTimeline.empty(), sut);
+   }
+
+   @Test
+   public void testBuilderLastWins() {
+      RateTimeline sut = RateTimeline.builder().put(10, 1).put(10, 2).put(5, 3).put(10, 4).put(5, 5).build();
+
+      assertEquals(2, sut.size());
+      assertEquals(5, sut.get(5).intValue());
+      assertEquals(4, sut.get(10).intValue());
+   }
+
+   @Test
+   public void testForEachRange() {
+      RateTimeline sut = RateTimeline.builder().put(0, 1).put(10, 2).put(20, 3).put(30, 4).build();
+
+      List<Long> ticks = new ArrayList<>();
+      sut.forEach(5, 20, (tick, rate) -> ticks.add(tick));
+      assertEquals(2, ticks.size());
+      assertEquals(10, ticks.get(0).longValue());
+      assertEquals(20, ticks.get(1).longValue());
+   }
+
+   @Test
+   public void testRandomAgainstMap() {
+      Random random = new Random(7);
+      Map<Long, Integer> reference = new HashMap<>();
+      RateTimeline.Builder builder = RateTimeline.builder();
+
+      for (int i = 0; i < 500; i++) {
+         long tick = random.nextInt(1000);
+         Integer rate = random.nextInt(10) == 0 ? null : random.nextInt(100);
+         reference.put(tick, rate);
+         builder.put(tick, rate);
+      }
+
+      RateTimeline sut = builder.build();
+      assertEquals(new TreeMap<>(reference), sut.toMap());
+      assertEquals(RateTimeline.of(reference), sut);
+
+      TreeMap<Long, Integer> sorted = new TreeMap<>(reference);
+      for (long tick = -1; tick < 1001; tick++) {
+         Map.Entry<Long, Integer> floor = sorted.floorEntry(tick);
+         assertEquals(floor == null ? null : floor.getValue(), sut.rateAt(tick));
+         assertEquals(reference.get(tick), sut.get(tick));
+      }
+   }
+}
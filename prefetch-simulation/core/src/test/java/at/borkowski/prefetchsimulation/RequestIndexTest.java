@@ -0,0 +1,80 @@
+package at.borkowski.prefetchsimulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class RequestIndexTest {
+
+   RequestIndex sut = new RequestIndex();
+
+   @Test
+   public void testAdd() {
+      Request a = new Request(1, 2, 3);
+      Request b = new Request(4, 5, 6);
+      assertFalse(sut.contains(a));
+      assertEquals(RequestIndex.NO_ID, sut.idOf(a));
+
+      assertEquals(0, sut.add(a));
+      assertEquals(1, sut.add(b));
+      assertEquals(0, sut.add(a));
+
+      assertEquals(0, sut.idOf(a));
+      assertEquals(1, sut.idOf(b));
+      assertSame(a, sut.get(0));
+      assertSame(b, sut.get(1));
+      assertNull(sut.get(2));
+      assertNull(sut.get(-1));
+      assertTrue(sut.contains(a));
+      assertEquals(2, sut.size());
+   }
+
+   @Test
+   public void testAddAll() {
+      List<Request> requests = new ArrayList<>();
+      for (int i = 0; i < 100; i++)
+         requests.add(new Request(i, i, i));
+      sut.addAll(requests);
+
+      // ids are the positions in the list
+      assertEquals(requests.size(), sut.size());
+      for (int i = 0; i < requests.size(); i++) {
+         assertEquals(i, sut.idOf(requests.get(i)));
+         assertSame(requests.get(i), sut.get(i));
+      }
+   }
+
+   @Test
+   public void testIdentity() {
+      Request a = new Request(1, 2, 3);
+      sut.add(a);
+
+      // an equal request is a different one
+      assertFalse(sut.contains(new Request(1, 2, 3)));
+      assertEquals(1, sut.add(new Request(1, 2, 3)));
+   }
+
+   @Test
+   public void testSeveralIndexes() {
+      RequestIndex other = new RequestIndex();
+      Request x = new Request(1, 2, 3);
+      Request y = new Request(4, 5, 6);
+
+      // a request has an id per index
+      assertEquals(0, sut.add(x));
+      assertEquals(0, other.add(y));
+      assertEquals(1, other.add(x));
+      assertEquals(0, sut.idOf(x));
+      assertEquals(1, other.idOf(x));
+      assertSame(y, other.get(0));
+      assertSame(x, other.get(1));
+      assertFalse(sut.contains(y));
+   }
+}
@@ -0,0 +1,150 @@
+package at.borkowski.prefetchsimulation.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import at.borkowski.prefetchsimulation.Request;
+import at.borkowski.prefetchsimulation.members.aux.RatePredictionServiceProvider;
+
+public class BackwardChainingAlgorithmTest {
+
+   RespectRatePredictionAlgorithm sut = new RespectRatePredictionAlgorithm();
+   RespectRatePredictionAlgorithm reference = new RespectRatePredictionAlgorithm();
+
+   Map<Long, Integer> rates = new HashMap<>();
+
+   @Test
+   public void testBasic() {
+      rates.put(0L, 4);
+      RatePredictionServiceProvider provider = new RatePredictionServiceProvider(rates);
+
+      Request r0 = new Request(1000, 100, 4);
+      Request r1 = new Request(1010, 100, 4);
+
+      Map<Request, Long> changed = sut.onRequestsAdded(Arrays.asList(r0), provider);
+      assertEquals(1, changed.size());
+      assertEquals(1000 - 25 - RespectRatePredictionAlgorithm.CONNECTION_OVERHEAD - 1, changed.get(r0).longValue());
+
+      // r1 blocks r0, so both are reported
+      changed = sut.onRequestsAdded(Arrays.asList(r1), provider);
+      assertEquals(2, changed.size());
+      assertEquals(reference.schedule(Arrays.asList(r0, r1), provider), changed);
+
+      // nothing changed in between
+      assertTrue(sut.onRequestsAdded(new ArrayList<>(), provider).isEmpty());
+
+      sut.onRequestCompleted(r1);
+      changed = sut.onRequestsAdded(new ArrayList<>(), provider);
+      assertEquals(1, changed.size());
+      assertEquals(1000 - 25 - RespectRatePredictionAlgorithm.CONNECTION_OVERHEAD - 1, changed.get(r0).longValue());
+   }
+
+   @Test
+   public void testEqualDeadlines() {
+      rates.put(0L, 4);
+      RatePredictionServiceProvider provider = new RatePredictionServiceProvider(rates);
+
+      Request r0 = new Request(1000, 100, 4);
+      Request r1 = new Request(1000, 40, 4);
+      Request r2 = new Request(1000, 100, 4);
+
+      Map<Request, Long> schedule = new HashMap<>();
+      schedule.putAll(sut.onRequestsAdded(Arrays.asList(r0), provider));
+      schedule.putAll(sut.onRequestsAdded(Arrays.asList(r1, r2), provider));
+
+      // the request added first is fetched last
+      assertEquals(1000 - 25 - RespectRatePredictionAlgorithm.CONNECTION_OVERHEAD - 1, schedule.get(r0).longValue());
+      assertEquals(reference.schedule(Arrays.asList(r0, r1, r2), provider), schedule);
+
+      sut.onRequestCompleted(r1);
+      schedule.remove(r1);
+      schedule.putAll(sut.onRequestsAdded(new ArrayList<>(), provider));
+      assertEquals(reference.schedule(Arrays.asList(r0, r2), provider), schedule);
+   }
+
+   @Test
+   public void testSlots() {
+      sut.setFetchSlots(2);
+      rates.put(0L, 8);
+      RatePredictionServiceProvider provider = new RatePredictionServiceProvider(rates);
+
+      Request r0 = new Request(1000, 100, 8);
+      Request r1 = new Request(1010, 100, 8);
+      Request r2 = new Request(1020, 100, 8);
+
+      Map<Request, Long> changed = sut.onRequestsAdded(Arrays.asList(r0, r1, r2), provider);
+
+      // the rate is shared between the slots, r1 and r2 overlap, r0 has to
+      // wait for r2 only
+      long required = 25 + RespectRatePredictionAlgorithm.CONNECTION_OVERHEAD + 1;
+      assertEquals(1020 - required, changed.get(r2).longValue());
+      assertEquals(1010 - required, changed.get(r1).longValue());
+      assertEquals(1020 - 2 * required, changed.get(r0).longValue());
+
+      reference.setFetchSlots(2);
+      assertEquals(reference.schedule(Arrays.asList(r0, r1, r2), provider), changed);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testNoSlots() {
+      sut.setFetchSlots(0);
+   }
+
+   @Test
+   public void testRandom() {
+      testRandom(new Random(42), false, 1);
+   }
+
+   @Test
+   public void testRandom_equalDeadlines() {
+      testRandom(new Random(43), true, 1);
+   }
+
+   @Test
+   public void testRandom_slots() {
+      testRandom(new Random(44), false, 3);
+      testRandom(new Random(45), true, 2);
+   }
+
+   private void testRandom(Random random, boolean equalDeadlines, int slots) {
+      sut = new RespectRatePredictionAlgorithm();
+      reference = new RespectRatePredictionAlgorithm();
+      sut.setFetchSlots(slots);
+      reference.setFetchSlots(slots);
+      rates.clear();
+
+      for (int i = 0; i < 20; i++)
+         rates.put((long) random.nextInt(5000), 1 + random.nextInt(30));
+      RatePredictionServiceProvider provider = new RatePredictionServiceProvider(rates);
+
+      List<Request> active = new ArrayList<>();
+      Map<Request, Long> schedule = new HashMap<>();
+
+      for (int step = 0; step < 500; step++) {
+         List<Request> added = new ArrayList<>();
+         int count = random.nextInt(4);
+         for (int i = 0; i < count; i++)
+            added.add(new Request(equalDeadlines ? random.nextInt(100) * 50 : random.nextInt(5000) * 7 + step % 7, random.nextInt(500), 1 + random.nextInt(20)));
+
+         if (!active.isEmpty() && random.nextBoolean()) {
+            Request completed = active.remove(random.nextInt(active.size()));
+            sut.onRequestCompleted(completed);
+            schedule.remove(completed);
+         }
+
+         active.addAll(added);
+         schedule.putAll(sut.onRequestsAdded(added, provider));
+
+         assertEquals(reference.schedule(active, provider), schedule);
+      }
+   }
+}
@@ -6,6 +6,7 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -83,4 +84,35 @@ public class RespectRatePredictionAlgorithmTest {
 
       assertEquals(1000 - (100 / 4) - IgnoreRatePredictionAlgorithm.CONNECTION_OVERHEAD - 1, schedules.get(req.get(0)).longValue());
    }
+
+   @Test
+   public void testSegmentIntegrationEqualsPerTick() {
+      Random random = new Random(4711);
+
+      for (int run = 0; run < 200; run++) {
+         rates.clear();
+         int slots = random.nextInt(20);
+         for (int i = 0; i < slots; i++)
+            rates.put((long) random.nextInt(5000), random.nextInt(10) == 0 ? null : random.nextInt(50));
+         RatePredictionServiceProvider provider = new RatePredictionServiceProvider(rates);
+
+         List<Request> req = new LinkedList<>();
+         int count = 1 + random.nextInt(10);
+         for (int i = 0; i < count; i++)
+            req.add(new Request(random.nextInt(5000), random.nextInt(20000), random.nextInt(40)));
+
+         Map<String, String> configuration = new HashMap<>();
+         configuration.put("alpha", String.valueOf(0.5 + random.nextDouble()));
+
+         RespectRatePredictionAlgorithm segment = new RespectRatePredictionAlgorithm();
+         configuration.put(RespectRatePredictionAlgorithm.SEGMENT_INTEGRATION, "true");
+         segment.configure(configuration);
+
+         RespectRatePredictionAlgorithm perTick = new RespectRatePredictionAlgorithm();
+         configuration.put(RespectRatePredictionAlgorithm.SEGMENT_INTEGRATION, "false");
+         perTick.configure(configuration);
+
+         assertEquals(perTick.schedule(req, provider), segment.schedule(req, provider));
+      }
+   }
 }
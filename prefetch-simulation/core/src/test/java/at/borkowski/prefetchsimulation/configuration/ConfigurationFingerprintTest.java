@@ -0,0 +1,74 @@
+package at.borkowski.prefetchsimulation.configuration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+import org.junit.Test;
+
+import at.borkowski.prefetchsimulation.algorithms.NullAlgorithm;
+import at.borkowski.prefetchsimulation.configuration.distributions.Distribution;
+import at.borkowski.prefetchsimulation.configuration.distributions.Distributions;
+import at.borkowski.prefetchsimulation.util.RandomSource;
+
+public class ConfigurationFingerprintTest {
+
+   private static final String BASE = "ticks 1000\nbyterate u/30/200\nslot-length ~/120/30\nnetwork-uptime 0.95\nrelative-jitter ~/0/0.05\nrelative-prediction-time-error ~/0/0.05\n" //
+         + "absolute-jitter 0\nrelative-prediction-amplitude-error ~/0/0.05\nabsolute-prediction-time-error 0\nabsolute-prediction-amplitude-error 0\nlook-ahead 100\n" //
+         + "request-series interval ~/150/5 size 1967 byterate u/30/200 start 10 end 900\nrequest tick 17 byterate 10 data 20\n";
+
+   private static Configuration read(String text) throws Exception {
+      return new ConfigurationReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))).read();
+   }
+
+   @Test
+   public void testStable() throws Exception {
+      assertEquals(ConfigurationFingerprint.of(read(BASE)), ConfigurationFingerprint.of(read(BASE)));
+      assertEquals(64, ConfigurationFingerprint.of(read(BASE)).length());
+   }
+
+   @Test
+   public void testIgnoresAlgorithmAndSeed() throws Exception {
+      String fingerprint = ConfigurationFingerprint.of(read(BASE));
+
+      assertEquals(fingerprint, ConfigurationFingerprint.of(read(BASE + "seed 5\n")));
+      assertEquals(fingerprint, ConfigurationFingerprint.of(read(BASE + "look-ahead 300\n")));
+      assertEquals(fingerprint, ConfigurationFingerprint.of(read(BASE + "algorithm-parameter alpha 0.5\n")));
+   }
+
+   @Test
+   public void testScenarioChanges() throws Exception {
+      String fingerprint = ConfigurationFingerprint.of(read(BASE));
+
+      assertNotEquals(fingerprint, ConfigurationFingerprint.of(read(BASE.replace("ticks 1000", "ticks 1001"))));
+      assertNotEquals(fingerprint, ConfigurationFingerprint.of(read(BASE.replace("u/30/200\nslot", "u/30/201\nslot"))));
+      assertNotEquals(fingerprint, ConfigurationFingerprint.of(read(BASE.replace("relative-jitter ~/0/0.05", "relative-jitter ~/0/0.06"))));
+      assertNotEquals(fingerprint, ConfigurationFingerprint.of(read(BASE.replace("start 10", "start 11"))));
+      assertNotEquals(fingerprint, ConfigurationFingerprint.of(read(BASE.replace("tick 17", "tick 18"))));
+      assertNotEquals(fingerprint, ConfigurationFingerprint.of(read(BASE + "random-engine xoroshiro\n")));
+      assertEquals(fingerprint, ConfigurationFingerprint.of(read(BASE + "random-engine legacy\n")));
+   }
+
+   @Test
+   public void testCustomDistribution() {
+      Distribution<Integer> custom = new Distribution<Integer>() {
+         @Override
+         public Integer getValue(RandomSource randomSource) {
+            return 4;
+         }
+
+         @Override
+         public Integer getMean() {
+            return 4;
+         }
+      };
+
+      Configuration configuration = new Configuration(10, custom, Distributions.exact(1L), 1, Distributions.exact(0D), Distributions.exact(0), Distributions.exact(0D), Distributions.exact(0D), Distributions.exact(0L), Distributions.exact(0), new LinkedList<>(), new LinkedList<>(), NullAlgorithm.class, new HashMap<>(), 10);
+      assertNull(ConfigurationFingerprint.of(configuration));
+   }
+}
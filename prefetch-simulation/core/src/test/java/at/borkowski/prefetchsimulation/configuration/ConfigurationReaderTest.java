@@ -13,8 +13,11 @@ import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
 
+import at.borkowski.prefetchsimulation.CachePolicy;
+import at.borkowski.prefetchsimulation.ClientOptions;
 import at.borkowski.prefetchsimulation.Request;
 import at.borkowski.prefetchsimulation.algorithms.IgnoreRatePredictionAlgorithm;
+import at.borkowski.prefetchsimulation.util.RandomEngine;
 import at.borkowski.prefetchsimulation.util.RandomSource;
 
 public class ConfigurationReaderTest {
@@ -41,6 +44,11 @@ public class ConfigurationReaderTest {
          public double nextDouble() {
             return 0.271;
          }
+
+         @Override
+         public RandomSource fork() {
+            return this;
+         }
       };
    }
 
@@ -209,6 +217,117 @@ public class ConfigurationReaderTest {
       assertFalse(configuration.hasSeed());
    }
 
+   private void requiredLines() {
+      line("ticks 10");
+      line("byterate 11");
+      line("slot-length 12");
+      line("network-uptime 0.95");
+      line("relative-jitter 0.1");
+      line("absolute-jitter 13");
+      line("relative-prediction-time-error 0.5");
+      line("relative-prediction-amplitude-error 0.8");
+      line("absolute-prediction-time-error 400");
+      line("absolute-prediction-amplitude-error -20");
+      line("look-ahead 1");
+   }
+
+   @Test
+   public void testRandomEngine() throws Exception {
+      requiredLines();
+      buildSut();
+      assertEquals(RandomEngine.LEGACY, sut.read().getRandomEngine());
+
+      requiredLines();
+      line("random-engine xoroshiro");
+      buildSut();
+      assertEquals(RandomEngine.XOROSHIRO, sut.read().getRandomEngine());
+
+      requiredLines();
+      line("random-engine legacy");
+      buildSut();
+      assertEquals(RandomEngine.LEGACY, sut.read().getRandomEngine());
+   }
+
+   @Test(expected = ConfigurationException.class)
+   public void testUnknownRandomEngine() throws Exception {
+      requiredLines();
+      line("random-engine mersenne");
+      buildSut();
+      sut.read();
+   }
+
+   @Test
+   public void testRateTimeline() throws Exception {
+      requiredLines();
+      buildSut();
+      assertFalse(sut.read().isProcedural());
+
+      requiredLines();
+      line("rate-timeline procedural");
+      buildSut();
+      assertTrue(sut.read().isProcedural());
+
+      requiredLines();
+      line("rate-timeline eager");
+      buildSut();
+      assertFalse(sut.read().isProcedural());
+   }
+
+   @Test(expected = ConfigurationException.class)
+   public void testUnknownRateTimeline() throws Exception {
+      requiredLines();
+      line("rate-timeline lazy");
+      buildSut();
+      sut.read();
+   }
+
+   @Test
+   public void testClientOptions() throws Exception {
+      requiredLines();
+      buildSut();
+      assertEquals(ClientOptions.DEFAULT, sut.read().getClientOptions());
+
+      requiredLines();
+      line("cache-size 65536");
+      line("cache-policy deadline");
+      line("fetch-slots 8");
+      line("batch-window 20");
+      buildSut();
+      assertEquals(new ClientOptions(65536, CachePolicy.DEADLINE, 8, 20), sut.read().getClientOptions());
+   }
+
+   @Test(expected = ConfigurationException.class)
+   public void testUnknownCachePolicy() throws Exception {
+      requiredLines();
+      line("cache-policy fifo");
+      buildSut();
+      sut.read();
+   }
+
+   @Test(expected = ConfigurationException.class)
+   public void testNegativeCacheSize() throws Exception {
+      requiredLines();
+      line("cache-size -1");
+      buildSut();
+      sut.read();
+   }
+
+   @Test(expected = ConfigurationException.class)
+   public void testNoFetchSlots() throws Exception {
+      requiredLines();
+      line("fetch-slots 0");
+      buildSut();
+      sut.read();
+   }
+
+   @Test(expected = ConfigurationException.class)
+   public void testNegativeBatchWindow() throws Exception {
+      requiredLines();
+      line("batch-window -1");
+      buildSut();
+      sut.read();
+   }
+
    @Test
    public void testSeriesExact1() throws Exception {
       line("ticks 10");
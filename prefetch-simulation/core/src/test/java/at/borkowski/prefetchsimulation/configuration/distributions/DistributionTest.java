@@ -0,0 +1,82 @@
+package at.borkowski.prefetchsimulation.configuration.distributions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import at.borkowski.prefetchsimulation.util.RandomSource;
+import at.borkowski.prefetchsimulation.util.RepeatableRandom;
+
+public class DistributionTest {
+
+   private static final List<Distribution<?>> DISTRIBUTIONS = Arrays.asList( //
+         Distributions.exact(5), Distributions.exact(2.5D), //
+         Distributions.uniform(-10, 30), Distributions.uniform(7, 7), Distributions.uniform(-10L, 3000000000L), Distributions.uniform(0.5D, 1.5D), //
+         Distributions.normal(100, 20), Distributions.normal(100, 0), Distributions.normal(-5L, 1000L), Distributions.normal(0D, 0.05D));
+
+   @Test
+   public void testPrimitivesMatchValue() {
+      for (Distribution<?> sut : DISTRIBUTIONS) {
+         for (int i = 0; i < 100; i++) {
+            Number value = sut.getValue(new RepeatableRandom(i));
+            assertEquals(sut.toString(), value.intValue(), sut.nextInt(new RepeatableRandom(i)));
+            assertEquals(sut.toString(), value.longValue(), sut.nextLong(new RepeatableRandom(i)));
+            assertEquals(sut.toString(), value.doubleValue(), sut.nextDouble(new RepeatableRandom(i)), 0);
+         }
+      }
+   }
+
+   @Test
+   public void testFillMatchesSequential() {
+      for (Distribution<?> sut : DISTRIBUTIONS) {
+         RandomSource sequential = new RepeatableRandom(42);
+         int[] expectedInts = new int[100];
+         long[] expectedLongs = new long[100];
+         double[] expectedDoubles = new double[100];
+         for (int i = 0; i < 100; i++)
+            expectedInts[i] = sut.nextInt(sequential);
+         for (int i = 0; i < 100; i++)
+            expectedLongs[i] = sut.nextLong(sequential);
+         for (int i = 0; i < 100; i++)
+            expectedDoubles[i] = sut.nextDouble(sequential);
+
+         RandomSource bulk = new RepeatableRandom(42);
+         int[] ints = new int[100];
+         long[] longs = new long[100];
+         double[] doubles = new double[100];
+         sut.fill(ints, bulk);
+         sut.fill(longs, bulk);
+         sut.fill(doubles, bulk);
+
+         assertArrayEquals(sut.toString(), expectedInts, ints);
+         assertArrayEquals(sut.toString(), expectedLongs, longs);
+         assertArrayEquals(sut.toString(), expectedDoubles, doubles, 0);
+      }
+   }
+
+   @Test
+   public void testDefaultMethods() {
+      Distribution<Integer> sut = new Distribution<Integer>() {
+         @Override
+         public Integer getValue(RandomSource randomSource) {
+            return (int) (randomSource.nextDouble() * 10);
+         }
+
+         @Override
+         public Integer getMean() {
+            return 5;
+         }
+      };
+
+      int[] values = new int[10];
+      sut.fill(values, new RepeatableRandom(3));
+      RandomSource random = new RepeatableRandom(3);
+      for (int value : values)
+         assertEquals(sut.getValue(random).intValue(), value);
+      assertEquals(sut.getValue(new RepeatableRandom(4)).doubleValue(), sut.nextDouble(new RepeatableRandom(4)), 0);
+   }
+}
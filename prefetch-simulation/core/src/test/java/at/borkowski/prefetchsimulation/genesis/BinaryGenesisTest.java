@@ -0,0 +1,141 @@
+package at.borkowski.prefetchsimulation.genesis;
+
+import static at.borkowski.prefetchsimulation.genesis.GenesisAssert.assertGenesisEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import at.borkowski.prefetchsimulation.CachePolicy;
+import at.borkowski.prefetchsimulation.ClientOptions;
+import at.borkowski.prefetchsimulation.RateTimeline;
+import at.borkowski.prefetchsimulation.Request;
+import at.borkowski.prefetchsimulation.algorithms.IgnoreRatePredictionAlgorithm;
+
+public class BinaryGenesisTest {
+
+   private Genesis createGenesis(Random random) {
+      List<Request> requests = new LinkedList<>();
+      long deadline = 0;
+      for (int i = 0; i < 1000; i++) {
+         deadline += random.nextInt(100);
+         requests.add(new Request(deadline, random.nextInt(100000), random.nextInt(1000)));
+      }
+      requests.add(new Request(5, -1, Integer.MIN_VALUE));
+
+      RateTimeline.Builder real = RateTimeline.builder();
+      RateTimeline.Builder predicted = RateTimeline.builder();
+      for (int i = 0; i < 1000; i++) {
+         real.put(random.nextInt(100000), random.nextInt(10) == 0 ? null : random.nextInt(1000));
+         predicted.putRaw(random.nextInt(100000), random.nextInt());
+      }
+
+      Map<String, String> algorithmConfiguration = new HashMap<>();
+      algorithmConfiguration.put("key", "value");
+      algorithmConfiguration.put("unicode", "ä€");
+
+      return new Genesis(100000, requests, real.build(), predicted.build(), IgnoreRatePredictionAlgorithm.class, algorithmConfiguration, 8000);
+   }
+
+   private byte[] write(Genesis genesis) throws IOException {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      new BinaryGenesisWriter(bos).write(genesis);
+      return bos.toByteArray();
+   }
+
+   @Test
+   public void testRoundTrip() throws Exception {
+      Genesis genesis = createGenesis(new Random(13));
+      byte[] bytes = write(genesis);
+
+      assertTrue(BinaryGenesisReader.isBinary(bytes, bytes.length));
+      assertGenesisEquals(genesis, new BinaryGenesisReader(ByteBuffer.wrap(bytes)).read());
+   }
+
+   @Test
+   public void testClientOptions() throws Exception {
+      ClientOptions clientOptions = new ClientOptions(4096, CachePolicy.LFU, 6, 15);
+      Genesis genesis = new Genesis(100, new LinkedList<>(), RateTimeline.empty(), RateTimeline.empty(), IgnoreRatePredictionAlgorithm.class, new HashMap<>(), 50, clientOptions);
+      assertGenesisEquals(genesis, new BinaryGenesisReader(ByteBuffer.wrap(write(genesis))).read());
+   }
+
+   @Test
+   public void testVersion1() throws Exception {
+      // magic, version 1, 100 ticks, look-ahead 50 (zig-zag encoded),
+      // algorithm, no parameters, no requests, no rates
+      String algorithm = IgnoreRatePredictionAlgorithm.class.getName();
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      bos.write(new byte[] { 'P', 'S', 'G', 'B', 1, 100, 100, (byte) algorithm.length() });
+      bos.write(algorithm.getBytes("UTF8"));
+      bos.write(new byte[] { 0, 0, 0, 0 });
+
+      Genesis genesis = new BinaryGenesisReader(ByteBuffer.wrap(bos.toByteArray())).read();
+      assertEquals(100, genesis.getTicks());
+      assertEquals(50, genesis.getLookAheadTime());
+      assertEquals(ClientOptions.DEFAULT, genesis.getClientOptions());
+   }
+
+   @Test
+   public void testSmallerThanText() throws Exception {
+      Genesis genesis = createGenesis(new Random(13));
+      ByteArrayOutputStream text = new ByteArrayOutputStream();
+      new GenesisWriter(text).write(genesis);
+
+      assertTrue(write(genesis).length * 2 < text.size());
+   }
+
+   @Test
+   public void testLoaderDetectsFormat() throws Exception {
+      Genesis genesis = createGenesis(new Random(13));
+      byte[] binary = write(genesis);
+      ByteArrayOutputStream text = new ByteArrayOutputStream();
+      new GenesisWriter(text).write(new Genesis(100, new LinkedList<>(), RateTimeline.empty(), RateTimeline.empty(), IgnoreRatePredictionAlgorithm.class, new HashMap<>(), 50));
+
+      assertGenesisEquals(genesis, GenesisLoader.load(new ByteArrayInputStream(binary)));
+      assertEquals(50, GenesisLoader.load(new ByteArrayInputStream(text.toByteArray())).getLookAheadTime());
+      assertEquals(1, GenesisLoader.load(new ByteArrayInputStream(new byte[0])).getTicks());
+
+      Path file = Files.createTempFile("genesis", ".bin");
+      try {
+         Files.write(file, binary);
+         assertGenesisEquals(genesis, GenesisLoader.load(file));
+         Files.write(file, text.toByteArray());
+         assertEquals(50, GenesisLoader.load(file).getLookAheadTime());
+      } finally {
+         Files.delete(file);
+      }
+   }
+
+   @Test
+   public void testMalformed() throws Exception {
+      byte[] bytes = write(createGenesis(new Random(13)));
+
+      assertFalse(BinaryGenesisReader.isBinary(bytes, 3));
+      assertMalformed(new byte[] { 'P', 'S', 'G', 'X', 1 });
+      assertMalformed(new byte[] { 'P', 'S', 'G', 'B', 99 });
+      assertMalformed(Arrays.copyOf(bytes, bytes.length - 1));
+      assertMalformed(Arrays.copyOf(bytes, bytes.length + 1));
+   }
+
+   private void assertMalformed(byte[] bytes) {
+      try {
+         new BinaryGenesisReader(ByteBuffer.wrap(bytes)).read();
+         fail("exception expected");
+      } catch (GenesisException gEx) {}
+   }
+}
@@ -0,0 +1,31 @@
+package at.borkowski.prefetchsimulation.genesis;
+
+import static org.junit.Assert.assertEquals;
+
+import at.borkowski.prefetchsimulation.Request;
+
+/**
+ * Compares genesis instances read from different representations.
+ */
+final class GenesisAssert {
+   private GenesisAssert() {
+   }
+
+   static void assertGenesisEquals(Genesis expected, Genesis actual) {
+      assertEquals(expected.getTicks(), actual.getTicks());
+      assertEquals(expected.getLookAheadTime(), actual.getLookAheadTime());
+      assertEquals(expected.getAlgorithm(), actual.getAlgorithm());
+      assertEquals(expected.getAlgorithmConfiguration(), actual.getAlgorithmConfiguration());
+      assertEquals(expected.getClientOptions(), actual.getClientOptions());
+      assertEquals(expected.getRateReal(), actual.getRateReal());
+      assertEquals(expected.getRatePredicted(), actual.getRatePredicted());
+
+      assertEquals(expected.getRequests().size(), actual.getRequests().size());
+      for (int i = 0; i < expected.getRequests().size(); i++) {
+         Request e = expected.getRequests().get(i), a = actual.getRequests().get(i);
+         assertEquals(e.getDeadline(), a.getDeadline());
+         assertEquals(e.getData(), a.getData());
+         assertEquals(e.getAvailableByterate(), a.getAvailableByterate());
+      }
+   }
+}
@@ -0,0 +1,136 @@
+package at.borkowski.prefetchsimulation.genesis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import at.borkowski.prefetchsimulation.RateTimeline;
+import at.borkowski.prefetchsimulation.Request;
+import at.borkowski.prefetchsimulation.algorithms.NullAlgorithm;
+import at.borkowski.prefetchsimulation.configuration.Configuration;
+import at.borkowski.prefetchsimulation.configuration.ConfigurationReader;
+
+public class GenesisCacheTest {
+
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   Path directory;
+
+   @Before
+   public void setUp() throws Exception {
+      directory = folder.getRoot().toPath().resolve("cache");
+   }
+
+   private static Genesis genesis(int requests) {
+      List<Request> list = new LinkedList<>();
+      for (int i = 0; i < requests; i++)
+         list.add(new Request(i, 100, 10));
+      return new Genesis(requests + 1, list, RateTimeline.builder().put(0, 5).build(), RateTimeline.empty(), NullAlgorithm.class, new HashMap<>(), 10);
+   }
+
+   private static Configuration configuration(String extra) throws Exception {
+      String text = "ticks 2000\nbyterate u/30/200\nslot-length ~/120/30\nnetwork-uptime 0.95\nrelative-jitter ~/0/0.05\nrelative-prediction-time-error ~/0/0.05\n" //
+            + "absolute-jitter 0\nrelative-prediction-amplitude-error ~/0/0.05\nabsolute-prediction-time-error 0\nabsolute-prediction-amplitude-error 0\nlook-ahead 100\n" //
+            + "request-series interval ~/150/5 size 1967 byterate u/30/200 start 10 end 1900\n" + extra;
+      return new ConfigurationReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))).read();
+   }
+
+   private static String text(Genesis genesis) throws Exception {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      new GenesisWriter(bos).write(genesis);
+      return new String(bos.toByteArray(), StandardCharsets.UTF_8);
+   }
+
+   @Test
+   public void testPutGet() throws Exception {
+      GenesisCache sut = new GenesisCache(directory, 1024 * 1024);
+
+      assertNull(sut.get("a"));
+      sut.put("a", genesis(3));
+      assertEquals(text(genesis(3)), text(sut.get("a")));
+      assertNull(sut.get("b"));
+   }
+
+   @Test
+   public void testEvictsLeastRecentlyUsed() throws Exception {
+      GenesisCache sut = new GenesisCache(directory, 1024 * 1024);
+      sut.put("a", genesis(100));
+      sut.put("b", genesis(100));
+      long entrySize = Files.size(directory.resolve("a.genesis"));
+
+      Files.setLastModifiedTime(directory.resolve("a.genesis"), FileTime.fromMillis(1000));
+      Files.setLastModifiedTime(directory.resolve("b.genesis"), FileTime.fromMillis(2000));
+      // a hit makes "a" the most recently used entry
+      assertNotNull(sut.get("a"));
+
+      sut = new GenesisCache(directory, 2 * entrySize + entrySize / 2);
+      sut.put("c", genesis(100));
+
+      assertTrue(Files.exists(directory.resolve("a.genesis")));
+      assertFalse(Files.exists(directory.resolve("b.genesis")));
+      assertTrue(Files.exists(directory.resolve("c.genesis")));
+   }
+
+   @Test
+   public void testCorruptEntry() throws Exception {
+      GenesisCache sut = new GenesisCache(directory, 1024 * 1024);
+      Files.createDirectories(directory);
+      Files.write(directory.resolve("a.genesis"), new byte[] { 1, 2, 3 });
+
+      assertNull(sut.get("a"));
+      assertFalse(Files.exists(directory.resolve("a.genesis")));
+   }
+
+   @Test
+   public void testGenerator() throws Exception {
+      GenesisGenerator uncached = new GenesisGenerator(configuration(""));
+      uncached.setCache(null);
+      uncached.seed(42);
+      String first = text(uncached.generate());
+      String second = text(uncached.generate());
+
+      GenesisCache cache = new GenesisCache(directory, 1024 * 1024);
+      for (int run = 0; run < 2; run++) {
+         GenesisGenerator sut = new GenesisGenerator(configuration(""));
+         sut.setCache(cache);
+         sut.seed(42);
+         assertEquals(first, text(sut.generate()));
+         assertEquals(second, text(sut.generate()));
+      }
+      assertEquals(2, directory.toFile().list().length);
+
+      // the algorithm settings are taken from the configuration, not the cache
+      GenesisGenerator sut = new GenesisGenerator(configuration("look-ahead 77\n"));
+      sut.setCache(cache);
+      sut.seed(42);
+      assertEquals(77, sut.generate().getLookAheadTime());
+      assertEquals(2, directory.toFile().list().length);
+   }
+
+   @Test
+   public void testGeneratorWithoutSeed() throws Exception {
+      GenesisGenerator sut = new GenesisGenerator(configuration(""));
+      sut.setCache(new GenesisCache(directory, 1024 * 1024));
+      sut.generate();
+
+      assertFalse(Files.exists(directory));
+   }
+}
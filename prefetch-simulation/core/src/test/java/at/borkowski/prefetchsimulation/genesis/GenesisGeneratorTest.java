@@ -0,0 +1,73 @@
+package at.borkowski.prefetchsimulation.genesis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import at.borkowski.prefetchsimulation.configuration.Configuration;
+import at.borkowski.prefetchsimulation.configuration.ConfigurationReader;
+
+public class GenesisGeneratorTest {
+
+   private static final String CONFIGURATION = "ticks 20000\nbyterate u/30/200\nslot-length ~/120/30\nnetwork-uptime 0.95\nrelative-jitter ~/0/0.05\nabsolute-jitter 0\n" //
+         + "relative-prediction-time-error ~/0/0.05\nrelative-prediction-amplitude-error ~/0/0.05\nabsolute-prediction-time-error 0\nabsolute-prediction-amplitude-error 0\nlook-ahead 1000\n" //
+         + "request-series interval ~/150/5 size 1967 byterate u/30/200 start 10 end 19000\n" //
+         + "request-series interval u/50/500 size u/10/20 byterate 100 start u/0/100 end 15000\n" //
+         + "request-series interval 1000 size 5 byterate ~/100/10 start 5000 end 6000\n" //
+         + "request tick 17 byterate 10 data 20\n";
+
+   private static String text(Genesis genesis) throws Exception {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      new GenesisWriter(bos).write(genesis);
+      return new String(bos.toByteArray(), StandardCharsets.UTF_8);
+   }
+
+   private static GenesisGenerator generator(boolean parallel) throws Exception {
+      return generator(CONFIGURATION, parallel);
+   }
+
+   private static GenesisGenerator generator(String text, boolean parallel) throws Exception {
+      Configuration configuration = new ConfigurationReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))).read();
+      GenesisGenerator generator = new GenesisGenerator(configuration);
+      generator.setCache(null);
+      generator.setParallel(parallel);
+      return generator;
+   }
+
+   @Test
+   public void testParallelIdentical() throws Exception {
+      for (long seed = 0; seed < 5; seed++) {
+         GenesisGenerator sequential = generator(false);
+         GenesisGenerator parallel = generator(true);
+         sequential.seed(seed);
+         parallel.seed(seed);
+
+         assertEquals(text(sequential.generate()), text(parallel.generate()));
+         assertEquals(text(sequential.generate()), text(parallel.generate()));
+      }
+   }
+
+   @Test
+   public void testRandomEngine() throws Exception {
+      String xoroshiro = CONFIGURATION + "random-engine xoroshiro\n";
+
+      GenesisGenerator sequential = generator(xoroshiro, false);
+      GenesisGenerator parallel = generator(xoroshiro, true);
+      GenesisGenerator legacy = generator(false);
+      sequential.seed(7);
+      parallel.seed(7);
+      legacy.seed(7);
+
+      String text = text(sequential.generate());
+      assertEquals(text, text(parallel.generate()));
+      assertNotEquals(text, text(legacy.generate()));
+
+      sequential.seed(7);
+      assertEquals(text, text(sequential.generate()));
+   }
+}
@@ -6,6 +6,8 @@ import java.io.ByteArrayInputStream;
 
 import org.junit.Test;
 
+import at.borkowski.prefetchsimulation.CachePolicy;
+import at.borkowski.prefetchsimulation.ClientOptions;
 import at.borkowski.prefetchsimulation.genesis.Genesis;
 import at.borkowski.prefetchsimulation.genesis.GenesisException;
 import at.borkowski.prefetchsimulation.genesis.GenesisReader;
@@ -154,6 +156,48 @@ public class GenesisReaderTest {
       assertEquals(2, genesis.getRequests().size());
    }
 
+   @Test
+   public void testClientOptions() throws Exception {
+      line("100 request 40 5");
+      buildSut();
+      assertEquals(ClientOptions.DEFAULT, sut.read().getClientOptions());
+
+      line("0 cache 4096 gdsf");
+      line("0 fetch-slots 4");
+      line("0 batch-window 0");
+      line("100 request 40 5");
+      buildSut();
+      assertEquals(new ClientOptions(4096, CachePolicy.GDSF, 4, 0), sut.read().getClientOptions());
+   }
+
+   @Test(expected = GenesisException.class)
+   public void testCacheUnknownPolicy() throws Exception {
+      line("0 cache 4096 fifo");
+      buildSut();
+      sut.read();
+   }
+
+   @Test(expected = GenesisException.class)
+   public void testCacheNotZero() throws Exception {
+      line("5 cache 4096 lru");
+      buildSut();
+      sut.read();
+   }
+
+   @Test(expected = GenesisException.class)
+   public void testNoFetchSlots() throws Exception {
+      line("0 fetch-slots 0");
+      buildSut();
+      sut.read();
+   }
+
+   @Test(expected = GenesisException.class)
+   public void testBatchWindowNotAtZero() throws Exception {
+      line("10 batch-window 5");
+      buildSut();
+      sut.read();
+   }
+
    @Test
    public void testAlgorithm() throws Exception {
       line("# comment");
@@ -336,4 +380,82 @@ public class GenesisReaderTest {
       sut.read();
    }
 
+   @Test
+   public void testStreaming() throws Exception {
+      line("0 algorithm " + GenesisReaderTest_Algorithm.class.getName());
+      line("0 algorithm-parameter a b");
+      line("0 look-ahead 50");
+      line("0 rate-real 10");
+      line("100 request 40 50");
+      line("120 rate-prediction 8");
+      line("300 end");
+      buildSut();
+
+      GenesisEvent event = sut.next();
+      assertEquals(GenesisEvent.Type.ALGORITHM, event.getType());
+      assertEquals(GenesisReaderTest_Algorithm.class, event.getAlgorithm());
+
+      event = sut.next();
+      assertEquals(GenesisEvent.Type.ALGORITHM_PARAMETER, event.getType());
+      assertEquals("a", event.getKey());
+      assertEquals("b", event.getValue());
+
+      event = sut.next();
+      assertEquals(GenesisEvent.Type.LOOK_AHEAD, event.getType());
+      assertEquals(50, event.getLookAheadTime());
+
+      event = sut.next();
+      assertEquals(GenesisEvent.Type.RATE_REAL, event.getType());
+      assertEquals(0, event.getTick());
+      assertEquals(10, event.getRate());
+
+      event = sut.next();
+      assertEquals(GenesisEvent.Type.REQUEST, event.getType());
+      assertEquals(100, event.getTick());
+      assertEquals(40, event.getRequest().getData());
+      assertEquals(50, event.getRequest().getAvailableByterate());
+
+      event = sut.next();
+      assertEquals(GenesisEvent.Type.RATE_PREDICTION, event.getType());
+      assertEquals(120, event.getTick());
+      assertEquals(8, event.getRate());
+
+      event = sut.next();
+      assertEquals(GenesisEvent.Type.END, event.getType());
+      assertEquals(300, event.getTick());
+
+      assertNull(sut.next());
+      assertNull(sut.next());
+   }
+
+   @Test
+   public void testStreamingImplicitEnd() throws Exception {
+      line("100 request 40 50");
+      line("# comment");
+      buildSut();
+
+      assertEquals(GenesisEvent.Type.REQUEST, sut.next().getType());
+
+      GenesisEvent event = sut.next();
+      assertEquals(GenesisEvent.Type.END, event.getType());
+      assertEquals(100, event.getTick());
+
+      assertNull(sut.next());
+   }
+
+   @Test
+   public void testStreamingErrorOnlyWhenReached() throws Exception {
+      line("100 request 40 50");
+      line("90 request 40 50");
+      buildSut();
+
+      assertEquals(GenesisEvent.Type.REQUEST, sut.next().getType());
+      try {
+         sut.next();
+         fail();
+      } catch (GenesisException gEx) {
+         assertEquals("ticks out of order on line 2: 90 < 100", gEx.getMessage());
+      }
+   }
+
 }
@@ -13,6 +13,9 @@ import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
 
+import at.borkowski.prefetchsimulation.CachePolicy;
+import at.borkowski.prefetchsimulation.ClientOptions;
+import at.borkowski.prefetchsimulation.RateTimeline;
 import at.borkowski.prefetchsimulation.Request;
 import at.borkowski.prefetchsimulation.algorithms.IgnoreRatePredictionAlgorithm;
 import at.borkowski.prefetchsimulation.algorithms.PrefetchAlgorithm;
@@ -127,4 +130,47 @@ public class GenesisWriterTest {
       assertArrayEquals(expectedArray, parse());
    }
 
+   @Test
+   public void testClientOptions() throws IOException {
+      sut.write(new Genesis(100, new LinkedList<>(), RateTimeline.empty(), RateTimeline.empty(), IgnoreRatePredictionAlgorithm.class, new HashMap<>(), 50, new ClientOptions(4096, CachePolicy.DEADLINE, 4, 8)));
+
+      String[] expected = { "0 algorithm " + IgnoreRatePredictionAlgorithm.class.getName(), "0 look-ahead 50", "0 cache 4096 deadline", "0 fetch-slots 4", "0 batch-window 8", "99 end" };
+      assertArrayEquals(expected, parse());
+   }
+
+   @Test
+   public void testMergeOrder() throws IOException {
+      long ticks = 21;
+      long lookAhead = -5;
+      List<Request> requests = new LinkedList<>();
+      Map<Long, Integer> rateReal = new HashMap<>();
+      Map<Long, Integer> ratePredicted = new HashMap<>();
+      Class<? extends PrefetchAlgorithm> algorithm = IgnoreRatePredictionAlgorithm.class;
+      Map<String, String> algorithmConfiguration = new HashMap<>();
+
+      requests.add(new Request(30, 1, 2));
+      requests.add(new Request(0, 3, 4));
+      requests.add(new Request(20, 5, 6));
+      requests.add(new Request(0, 7, 8));
+      rateReal.put(0L, 10);
+      rateReal.put(20L, null);
+      ratePredicted.put(20L, 1234567890);
+
+      sut.write(new Genesis(ticks, requests, rateReal, ratePredicted, algorithm, algorithmConfiguration, lookAhead));
+
+      List<String> expected = new LinkedList<>();
+      expected.add("0 algorithm " + IgnoreRatePredictionAlgorithm.class.getName());
+      expected.add("0 look-ahead -5");
+      expected.add("0 rate-real 10");
+      expected.add("0 request 3 4");
+      expected.add("0 request 7 8");
+      expected.add("20 rate-real null");
+      expected.add("20 rate-prediction 1234567890");
+      expected.add("20 end");
+      expected.add("20 request 5 6");
+      expected.add("30 request 1 2");
+      String[] expectedArray = expected.toArray(new String[0]);
+
+      assertArrayEquals(expectedArray, parse());
+   }
 }
@@ -0,0 +1,129 @@
+package at.borkowski.prefetchsimulation.genesis;
+
+import static at.borkowski.prefetchsimulation.genesis.GenesisAssert.assertGenesisEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import at.borkowski.prefetchsimulation.CachePolicy;
+import at.borkowski.prefetchsimulation.ClientOptions;
+import at.borkowski.prefetchsimulation.RateTimeline;
+import at.borkowski.prefetchsimulation.Request;
+import at.borkowski.prefetchsimulation.algorithms.IgnoreRatePredictionAlgorithm;
+
+public class ParallelGenesisReaderTest {
+
+   Path file;
+   ForkJoinPool pool;
+
+   @Before
+   public void setUp() throws Exception {
+      file = Files.createTempFile("genesis", ".txt");
+      pool = new ForkJoinPool(4);
+   }
+
+   @After
+   public void tearDown() throws Exception {
+      pool.shutdown();
+      Files.delete(file);
+   }
+
+   private Genesis readParallel(String content, int chunkSize) throws Exception {
+      Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+      return new ParallelGenesisReader(file, pool, chunkSize).read();
+   }
+
+   private Genesis readSequential(String content) throws Exception {
+      return new GenesisReader(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))).read();
+   }
+
+   @Test
+   public void testGenerated() throws Exception {
+      Random random = new Random(15);
+      List<Request> requests = new LinkedList<>();
+      RateTimeline.Builder real = RateTimeline.builder(), predicted = RateTimeline.builder();
+      for (int i = 0; i < 2000; i++) {
+         requests.add(new Request(i * 10 + random.nextInt(10), random.nextInt(1000), random.nextInt(100)));
+         real.putRaw(random.nextInt(20000), random.nextInt(100));
+         predicted.putRaw(random.nextInt(20000), random.nextInt(100));
+      }
+      Map<String, String> algorithmConfiguration = new HashMap<>();
+      algorithmConfiguration.put("k", "ü");
+
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      new GenesisWriter(bos).write(new Genesis(20000, requests, real.build(), predicted.build(), IgnoreRatePredictionAlgorithm.class, algorithmConfiguration, 300, new ClientOptions(8192, CachePolicy.DEADLINE, 2, 4)));
+      String content = new String(bos.toByteArray(), StandardCharsets.UTF_8);
+
+      Genesis expected = readSequential(content);
+      for (int chunkSize : new int[] { 1, 100, 4096, Integer.MAX_VALUE })
+         assertGenesisEquals(expected, readParallel(content, chunkSize));
+   }
+
+   @Test
+   public void testImplicitEndAndComments() throws Exception {
+      String content = "# comment\r\n0 look-ahead 5\r\n\r\n10 rate-real 4 # x\n\n20 request 1 2\r30 rate-prediction 3\n";
+
+      for (int chunkSize = 1; chunkSize < content.length() + 2; chunkSize++)
+         assertGenesisEquals(readSequential(content), readParallel(content, chunkSize));
+      assertGenesisEquals(readSequential(""), readParallel("", 10));
+   }
+
+   @Test
+   public void testClientOptions() throws Exception {
+      // every chunk size splits the directives differently, later directives
+      // override earlier ones
+      String content = "0 cache 4096 lfu\n0 fetch-slots 3\n0 look-ahead 5\n0 batch-window 7\n0 cache 100 gdsf\n10 rate-real 4\n20 request 1 2\n";
+
+      Genesis expected = readSequential(content);
+      assertEquals(new ClientOptions(100, CachePolicy.GDSF, 3, 7), expected.getClientOptions());
+      for (int chunkSize = 1; chunkSize < content.length() + 2; chunkSize++)
+         assertGenesisEquals(expected, readParallel(content, chunkSize));
+   }
+
+   @Test
+   public void testErrorsMatchSequential() throws Exception {
+      String[] contents = {
+            "0 look-ahead 5\n10 rate-real 4\n\n5 rate-real 3\n20 request 1 2\n",
+            "10 rate-real 4\n20 end\n\n# comment\n30 rate-real 3\n",
+            "10 rate-real 4\n20 request 1\n30 request x 2\n5 rate-real 1\n",
+            "10 rate-real 4\n20 rate-real 1\n30 bogus 2\n40 rate-real 1\n10 rate-real 1\n",
+            "0 rate-real 4\n1 rate-real 4\n2 rate-real 4\n3 rate-real 4\n4 look-ahead 3\n" };
+
+      for (String content : contents) {
+         String expected = errorMessage(() -> readSequential(content));
+         for (int chunkSize = 1; chunkSize < content.length() + 2; chunkSize++) {
+            int size = chunkSize;
+            assertEquals("chunk size " + size, expected, errorMessage(() -> readParallel(content, size)));
+         }
+      }
+   }
+
+   private interface GenesisSupplier {
+      Genesis get() throws Exception;
+   }
+
+   private static String errorMessage(GenesisSupplier supplier) throws Exception {
+      try {
+         supplier.get();
+         fail("exception expected");
+         return null;
+      } catch (GenesisException gEx) {
+         return gEx.getMessage();
+      }
+   }
+}
@@ -0,0 +1,101 @@
+package at.borkowski.prefetchsimulation.genesis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import at.borkowski.prefetchsimulation.RateTimeline;
+import at.borkowski.prefetchsimulation.configuration.Configuration;
+import at.borkowski.prefetchsimulation.configuration.ConfigurationReader;
+import at.borkowski.prefetchsimulation.configuration.distributions.Distributions;
+
+public class ProceduralRateTimelineTest {
+
+   private static final RateTimeline SLOTS = RateTimeline.builder().put(0, 100).put(25, 0).put(40, 1000).build();
+
+   private static ProceduralRateTimeline timeline(long totalTicks, long tickStep) {
+      return new ProceduralRateTimeline(SLOTS, totalTicks, tickStep, 1, 2, Distributions.normal(0D, 0.1D), Distributions.uniform(0, 5));
+   }
+
+   @Test
+   public void testEntries() {
+      ProceduralRateTimeline sut = timeline(101, 10);
+
+      assertEquals(11, sut.size());
+      assertEquals(0, sut.getTick(0));
+      assertEquals(100, sut.getTick(10));
+      // slot without network
+      assertEquals(0, sut.getRawRate(3));
+      assertTrue(sut.getRawRate(5) > 500);
+
+      // computing entries in a different order gives the same rates
+      int[] rates = new int[sut.size()];
+      for (int i = sut.size() - 1; i >= 0; i--)
+         rates[i] = sut.getRawRate(i);
+      for (int i = 0; i < sut.size(); i++)
+         assertEquals(rates[i], sut.getRawRate(i));
+   }
+
+   @Test
+   public void testAgainstMaterialised() {
+      ProceduralRateTimeline sut = timeline(95, 7);
+      RateTimeline materialised = RateTimeline.of(sut.toMap());
+
+      assertEquals(materialised, sut);
+      assertEquals(materialised.hashCode(), sut.hashCode());
+      for (long tick = -2; tick < 110; tick++) {
+         assertEquals(materialised.floorIndex(tick), sut.floorIndex(tick));
+         assertEquals(materialised.ceilingIndex(tick), sut.ceilingIndex(tick));
+         assertEquals(materialised.get(tick), sut.get(tick));
+         assertEquals(materialised.rateAt(tick), sut.rateAt(tick));
+      }
+   }
+
+   @Test
+   public void testLongHorizon() {
+      ProceduralRateTimeline sut = timeline(1000000000L, 1);
+
+      assertEquals(1000000000, sut.size());
+      assertEquals(999999999, sut.floorIndex(Long.MAX_VALUE));
+      assertEquals(sut.getRawRate(999999999), sut.rateAt(2000000000L).intValue());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testTooManyEntries() {
+      timeline(Long.MAX_VALUE, 1);
+   }
+
+   @Test
+   public void testGenerator() throws Exception {
+      String text = "ticks 20000\nbyterate u/30/200\nslot-length ~/120/30\nnetwork-uptime 0.95\nrelative-jitter ~/0/0.05\nabsolute-jitter 0\n" //
+            + "relative-prediction-time-error ~/0/0.05\nrelative-prediction-amplitude-error ~/0/0.05\nabsolute-prediction-time-error 0\nabsolute-prediction-amplitude-error 0\nlook-ahead 1000\n";
+      Configuration configuration = new ConfigurationReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))).read();
+
+      GenesisGenerator generator = new GenesisGenerator(configuration);
+      generator.setCache(null);
+      generator.seed(3);
+      Genesis eager = generator.generate();
+
+      text += "rate-timeline procedural\n";
+      generator = new GenesisGenerator(new ConfigurationReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))).read());
+      generator.seed(3);
+      Genesis procedural = generator.generate();
+
+      assertTrue(procedural.getRateReal() instanceof ProceduralRateTimeline);
+      assertEquals(eager.getRateReal().size(), procedural.getRateReal().size());
+      assertEquals(eager.getRatePredicted(), procedural.getRatePredicted());
+      assertNotEquals(eager.getRateReal(), procedural.getRateReal());
+
+      // written and read back, the timeline is materialised with the same entries
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      new GenesisWriter(bos).write(procedural);
+      Genesis read = new GenesisReader(new ByteArrayInputStream(bos.toByteArray())).read();
+      assertEquals(procedural.getRateReal(), read.getRateReal());
+   }
+}
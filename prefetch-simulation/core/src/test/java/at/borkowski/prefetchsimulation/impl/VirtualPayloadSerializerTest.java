@@ -90,4 +90,10 @@ public class VirtualPayloadSerializerTest {
       sut.deserialize(bytes);
    }
 
+   @Test
+   public void testHeaderRoundTrip() {
+      for (int size : new int[] { 0, 1, 255, 256, 65536, 2 * 1024 * 1024, Integer.MAX_VALUE, -1 })
+         assertEquals(size, sut.deserialize(sut.serialize(new VirtualPayload(size, false))).getSize());
+   }
+
 }
@@ -0,0 +1,117 @@
+package at.borkowski.prefetchsimulation.members.aux;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import at.borkowski.prefetchsimulation.RateTimeline;
+
+public class RatePredictionServiceProviderTest {
+
+   RatePredictionServiceProvider sut;
+
+   Map<Long, Integer> predictions = new HashMap<>();
+
+   @Before
+   public void setUp() throws Exception {
+      predictions.put(30L, 5);
+      predictions.put(10L, 100);
+      predictions.put(20L, null);
+      predictions.put(40L, 7);
+
+      sut = new RatePredictionServiceProvider(predictions);
+   }
+
+   @Test
+   public void testPredict() {
+      assertNull(sut.predict(0));
+      assertNull(sut.predict(9));
+      assertEquals(100, sut.predict(10).intValue());
+      assertEquals(100, sut.predict(19).intValue());
+      assertNull(sut.predict(20));
+      assertNull(sut.predict(29));
+      assertEquals(5, sut.predict(30).intValue());
+      assertEquals(7, sut.predict(40).intValue());
+      assertEquals(7, sut.predict(Long.MAX_VALUE).intValue());
+   }
+
+   @Test
+   public void testEmpty() {
+      sut = new RatePredictionServiceProvider(new HashMap<>());
+
+      assertNull(sut.predict(0));
+      RatePredictionCursor cursor = sut.cursor();
+      assertNull(cursor.seek(100));
+      assertEquals(Long.MIN_VALUE, cursor.getSegmentStart());
+      assertEquals(Long.MAX_VALUE, cursor.getSegmentEnd());
+   }
+
+   @Test
+   public void testTimeline() {
+      sut = new RatePredictionServiceProvider(RateTimeline.builder().put(20, 2).put(10, 1).build());
+
+      assertNull(sut.predict(9));
+      assertEquals(1, sut.predict(10).intValue());
+      assertEquals(2, sut.predict(25).intValue());
+   }
+
+   @Test
+   public void testCursorMatchesPredict() {
+      RatePredictionCursor forward = sut.cursor();
+      for (long tick = -5; tick < 50; tick++) {
+         assertEquals(sut.predict(tick), forward.seek(tick));
+         assertSegment(forward, tick);
+      }
+
+      RatePredictionCursor backward = sut.cursor();
+      for (long tick = 50; tick >= -5; tick--) {
+         assertEquals(sut.predict(tick), backward.seek(tick));
+         assertSegment(backward, tick);
+      }
+
+      RatePredictionCursor jumping = sut.cursor();
+      for (long tick : new long[] { 45, 3, 31, 12, 25, 40, 0 }) {
+         assertEquals(sut.predict(tick), jumping.seek(tick));
+         assertSegment(jumping, tick);
+      }
+   }
+
+   @Test
+   public void testCursorSegments() {
+      RatePredictionCursor cursor = sut.cursor();
+
+      cursor.seek(5);
+      assertEquals(Long.MIN_VALUE, cursor.getSegmentStart());
+      assertEquals(9, cursor.getSegmentEnd());
+
+      cursor.seek(15);
+      assertEquals(10, cursor.getSegmentStart());
+      assertEquals(19, cursor.getSegmentEnd());
+
+      cursor.seek(45);
+      assertEquals(40, cursor.getSegmentStart());
+      assertEquals(Long.MAX_VALUE, cursor.getSegmentEnd());
+   }
+
+   @Test
+   public void testDefaultCursor() {
+      RatePredictionService service = tick -> (int) tick;
+      RatePredictionCursor cursor = service.cursor();
+
+      assertEquals(17, cursor.seek(17).intValue());
+      assertEquals(17, cursor.getSegmentStart());
+      assertEquals(17, cursor.getSegmentEnd());
+   }
+
+   private void assertSegment(RatePredictionCursor cursor, long tick) {
+      long start = Math.max(cursor.getSegmentStart(), -10);
+      long end = Math.min(cursor.getSegmentEnd(), 60);
+      for (long t = start; t <= end; t++)
+         assertEquals(sut.predict(tick), sut.predict(t));
+   }
+}
@@ -2,36 +2,45 @@ package at.borkowski.prefetchsimulation.members.aux;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
-import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import at.borkowski.prefetchsimulation.RateTimeline;
 import at.borkowski.prefetchsimulation.members.aux.RateSetter;
 import at.borkowski.scovillej.services.comm.CommunicationService;
+import at.borkowski.scovillej.simulation.PhaseHandler;
 import at.borkowski.scovillej.simulation.Simulation;
 import at.borkowski.scovillej.simulation.SimulationContext;
-import at.borkowski.scovillej.simulation.SimulationEvent;
 
 public class RateSetterTest {
 
    RateSetter sut;
 
    CommunicationService communicationService;
+   SimulationContext context;
 
    @Before
    public void setUp() throws Exception {
       communicationService = mock(CommunicationService.class);
+      context = mock(SimulationContext.class);
+      when(context.getService(CommunicationService.class)).thenReturn(communicationService);
+   }
+
+   private void execute(long tick) {
+      when(context.getCurrentTick()).thenReturn(tick);
+      for (PhaseHandler handler : sut.getPhaseHandlers())
+         handler.executePhase(context);
    }
 
    @Test
@@ -46,28 +55,51 @@ public class RateSetterTest {
       limits.put(25L, 10);
       limits.put(25L, null);
 
-      Set<Long> todo = new HashSet<>(limits.keySet());
-
       sut = new RateSetter("phase", "socket", limits);
-
-      SimulationContext context = mock(SimulationContext.class);
-      when(context.getService(CommunicationService.class)).thenReturn(communicationService);
       sut.initialize(mock(Simulation.class), context);
 
-      assertNull(sut.getPhaseHandlers());
+      assertNull(sut.generateEvents());
+
+      Collection<PhaseHandler> handlers = sut.getPhaseHandlers();
+      assertEquals(1, handlers.size());
+      assertEquals(1, handlers.iterator().next().getPhaseSubcription().size());
+      assertEquals("phase", handlers.iterator().next().getPhaseSubcription().toArray()[0]);
+
+      for (long tick = 0; tick < 30; tick++) {
+         execute(tick);
+         if (limits.containsKey(tick))
+            verify(communicationService).setRates("socket", limits.get(tick), limits.get(tick));
+         verifyNoMoreInteractions(communicationService);
+         reset(communicationService);
+      }
+   }
+
+   @Test
+   public void testTimeline() {
+      long[] ticks = { 0, 5, 10 };
+      Integer[] limits = { 30, null, 10 };
 
-      Collection<SimulationEvent> events = sut.generateEvents();
-      assertEquals(limits.size(), events.size());
+      sut = new RateSetter("phase", "socket", RateTimeline.builder().put(10, 10).put(0, 30).put(5, null).build());
+      sut.initialize(mock(Simulation.class), context);
 
-      for (SimulationEvent event : events) {
-         assertTrue(todo.remove(event.getScheduledTick()));
-         assertEquals(1, event.getPhaseSubcription().size());
-         assertEquals("phase", event.getPhaseSubcription().toArray()[0]);
-         event.executePhase(null);
-         verify(communicationService).setRates("socket", limits.get(event.getScheduledTick()), limits.get(event.getScheduledTick()));
+      for (int i = 0; i < ticks.length; i++) {
+         execute(ticks[i]);
+         verify(communicationService).setRates("socket", limits[i], limits[i]);
+         reset(communicationService);
       }
+   }
+
+   @Test
+   public void testSkippedTicks() {
+      sut = new RateSetter("phase", "socket", RateTimeline.builder().put(0, 30).put(5, 40).put(10, 50).build());
+      sut.initialize(mock(Simulation.class), context);
 
-      assertTrue(todo.isEmpty());
+      // like scheduled events, entries at ticks not executed have no effect
+      execute(7);
+      verifyNoMoreInteractions(communicationService);
+
+      execute(10);
+      verify(communicationService).setRates("socket", 50, 50);
    }
 
    @Test
@@ -80,52 +112,80 @@ public class RateSetterTest {
       limits.put(15L, 10);
 
       sut = new RateSetter("phase", "socket", limits);
-
-      SimulationContext context = mock(SimulationContext.class);
-      when(context.getService(CommunicationService.class)).thenReturn(communicationService);
       sut.initialize(mock(Simulation.class), context);
 
-      assertNull(sut.getPhaseHandlers());
-
-      Collection<SimulationEvent> events = sut.generateEvents();
-      assertEquals(limits.size(), events.size());
-
-      Map<Long, SimulationEvent> eventMap = new HashMap<>();
-      for (SimulationEvent event : events)
-         eventMap.put(event.getScheduledTick(), event);
-
-      SimulationEvent event;
       Integer global;
-      
-      event = eventMap.get(0L);
-      event.executePhase(null);
-      global = limits.get(event.getScheduledTick());
+
+      execute(0);
+      global = limits.get(0L);
       verify(communicationService).setRates("socket", global, global);
       reset(communicationService);
-      
-      sut.setRequestSpecificRate(35);
+
+      sut.setRequestSpecificRate(0, 35);
       verify(communicationService).setRates("socket", global, global);
       reset(communicationService);
-      
-      event = eventMap.get(5L);
-      event.executePhase(null);
-      global = limits.get(event.getScheduledTick());
+
+      execute(5);
+      global = limits.get(5L);
       verify(communicationService).setRates("socket", global, 35);
       reset(communicationService);
-      
-      event = eventMap.get(10L);
-      event.executePhase(null);
-      global = limits.get(event.getScheduledTick());
+
+      execute(10);
+      global = limits.get(10L);
       verify(communicationService).setRates("socket", global, 35);
       reset(communicationService);
-      
-      event = eventMap.get(15L);
-      event.executePhase(null);
-      global = limits.get(event.getScheduledTick());
+
+      execute(15);
+      global = limits.get(15L);
       verify(communicationService).setRates("socket", global, global);
       reset(communicationService);
-      
-      
    }
 
+   @Test
+   public void testFairShare() {
+      sut = new RateSetter("phase", Arrays.asList("s0", "s1", "s2"), RateTimeline.builder().put(0, 100).put(5, 101).put(10, null).build());
+      sut.initialize(mock(Simulation.class), context);
+
+      execute(0);
+      verify(communicationService).setRates("s0", 100, 100);
+      verify(communicationService).setRates("s1", 100, 100);
+      verify(communicationService).setRates("s2", 100, 100);
+      reset(communicationService);
+
+      sut.setRequestSpecificRate(0, 20);
+      verify(communicationService).setRates("s0", 100, 20);
+      verify(communicationService).setRates("s1", 100, 100);
+      verify(communicationService).setRates("s2", 100, 100);
+      reset(communicationService);
+
+      // the slow transfer leaves the rest to the other one
+      sut.setRequestSpecificRate(2, 200);
+      verify(communicationService).setRates("s0", 100, 20);
+      verify(communicationService).setRates("s1", 100, 100);
+      verify(communicationService).setRates("s2", 100, 80);
+      reset(communicationService);
+
+      sut.setRequestSpecificRate(1, 200);
+      verify(communicationService).setRates("s0", 100, 20);
+      verify(communicationService).setRates("s1", 100, 40);
+      verify(communicationService).setRates("s2", 100, 40);
+      reset(communicationService);
+
+      // the remainder goes to the lower slot
+      execute(5);
+      verify(communicationService).setRates("s0", 101, 20);
+      verify(communicationService).setRates("s1", 101, 41);
+      verify(communicationService).setRates("s2", 101, 40);
+      reset(communicationService);
+
+      // without a global limit, each transfer gets its own rate
+      execute(10);
+      verify(communicationService).setRates("s0", null, 20);
+      verify(communicationService).setRates("s1", null, 200);
+      verify(communicationService).setRates("s2", null, 200);
+      reset(communicationService);
+
+      sut.setRequestSpecificRate(0, null);
+      verify(communicationService).setRates("s0", null, null);
+   }
 }
@@ -1,20 +1,32 @@
 package at.borkowski.prefetchsimulation.members.client;
 
 import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import at.borkowski.prefetchsimulation.CachePolicy;
 import at.borkowski.prefetchsimulation.Request;
 import at.borkowski.prefetchsimulation.members.client.CacheProcessor;
+import at.borkowski.prefetchsimulation.profiling.PrefetchProfilingService;
 
 public class CacheProcessorTest {
 
    CacheProcessor sut;
+   PrefetchProfilingService profiling;
 
    @Before
    public void setUp() throws Exception {
-      sut = new CacheProcessor();
+      FetchClient owner = mock(FetchClient.class);
+      profiling = mock(PrefetchProfilingService.class);
+      when(owner.getProfilingService()).thenReturn(profiling);
+
+      sut = new CacheProcessor(owner);
    }
 
    @Test
@@ -29,4 +41,130 @@ public class CacheProcessorTest {
       assertEquals(120, sut.getRequestTimestamp(request));
    }
 
+   @Test
+   public void testUnbounded() {
+      for (int i = 0; i < 100; i++)
+         sut.save(new Request(i, 1000, 1), i, i);
+
+      assertEquals(100 * 1000, sut.getOccupancy());
+      verify(profiling, never()).cacheEviction(any(Request.class));
+      verify(profiling).cacheOccupancy(100 * 1000);
+   }
+
+   @Test
+   public void testLru() {
+      Request[] requests = requests(CachePolicy.LRU, 30);
+      sut.consume(requests[0], 3);
+
+      // 1 was used least recently
+      sut.save(requests[3], 4, 4);
+      assertCached(requests, true, false, true, true);
+      verify(profiling).cacheEviction(requests[1]);
+      assertEquals(30, sut.getOccupancy());
+   }
+
+   @Test
+   public void testLfu() {
+      Request[] requests = requests(CachePolicy.LFU, 30);
+      sut.consume(requests[0], 3);
+      sut.consume(requests[2], 3);
+
+      sut.save(requests[3], 4, 4);
+      assertCached(requests, true, false, true, true);
+   }
+
+   @Test
+   public void testDeadline() {
+      Request[] requests = requests(CachePolicy.DEADLINE, 30);
+
+      // the request needed last goes first
+      sut.save(requests[3], 4, 4);
+      assertCached(requests, true, true, false, true);
+
+      // consumed requests go before all others
+      sut.consume(requests[1], 20);
+      sut.save(requests[2], 5, 5);
+      assertCached(requests, true, false, true, true);
+   }
+
+   @Test
+   public void testGdsf() {
+      sut.setCapacity(100);
+      sut.setPolicy(CachePolicy.GDSF);
+      Request small = new Request(10, 10, 1);
+      Request large = new Request(20, 60, 1);
+      Request other = new Request(30, 40, 1);
+      sut.save(small, 0, 0);
+      sut.save(large, 1, 1);
+
+      // the large request has the smaller value per byte
+      sut.save(other, 2, 2);
+      assertTrue(sut.hasFile(small));
+      assertFalse(sut.hasFile(large));
+      assertTrue(sut.hasFile(other));
+      assertEquals(50, sut.getOccupancy());
+   }
+
+   @Test
+   public void testOversized() {
+      Request[] requests = requests(CachePolicy.LRU, 30);
+      Request huge = new Request(50, 100, 1);
+
+      sut.save(huge, 5, 5);
+      assertCached(requests, false, false, false, false);
+      assertTrue(sut.hasFile(huge));
+      assertEquals(100, sut.getOccupancy());
+   }
+
+   @Test
+   public void testPinned() {
+      sut.setCapacity(15);
+      Request a = new Request(10, 10, 1);
+      Request b = new Request(20, 10, 1);
+      sut.pin(a);
+      sut.pin(b);
+
+      // both are kept, even beyond the capacity
+      sut.save(a, 1, 1);
+      sut.save(b, 1, 1);
+      assertTrue(sut.hasFile(a));
+      assertTrue(sut.hasFile(b));
+      assertEquals(20, sut.getOccupancy());
+
+      // once consumed, they are evicted like any other request
+      sut.consume(a, 2);
+      sut.consume(b, 3);
+      Request c = new Request(30, 10, 1);
+      sut.save(c, 4, 4);
+      assertFalse(sut.hasFile(a));
+      assertFalse(sut.hasFile(b));
+      assertEquals(10, sut.getOccupancy());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testNegativeCapacity() {
+      sut.setCapacity(-1);
+   }
+
+   /**
+    * Bounds the cache to the given capacity and fills it with three requests
+    * of 10 bytes each, saved at ticks 0 to 2 and with deadlines 10 to 30. A
+    * fourth request (deadline 40) is returned, but not saved.
+    */
+   private Request[] requests(CachePolicy policy, long capacity) {
+      sut.setCapacity(capacity);
+      sut.setPolicy(policy);
+
+      Request[] requests = new Request[4];
+      for (int i = 0; i < requests.length; i++)
+         requests[i] = new Request(10 * (i + 1), 10, 1);
+      for (int i = 0; i < 3; i++)
+         sut.save(requests[i], i, i);
+      return requests;
+   }
+
+   private void assertCached(Request[] requests, boolean... cached) {
+      for (int i = 0; i < requests.length; i++)
+         assertEquals("request " + i, cached[i], sut.hasFile(requests[i]));
+   }
 }
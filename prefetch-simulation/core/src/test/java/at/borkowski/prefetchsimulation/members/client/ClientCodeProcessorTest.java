@@ -1,5 +1,6 @@
 package at.borkowski.prefetchsimulation.members.client;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyLong;
@@ -16,6 +17,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import at.borkowski.prefetchsimulation.Request;
+import at.borkowski.prefetchsimulation.RequestIndex;
 import at.borkowski.prefetchsimulation.members.client.CacheProcessor;
 import at.borkowski.prefetchsimulation.members.client.ClientCodeProcessor;
 import at.borkowski.prefetchsimulation.members.client.FetchClient;
@@ -134,6 +136,69 @@ public class ClientCodeProcessorTest {
       verify(profiling, times(1)).arrival(requests[2], 2L, 4L, 20);
    }
 
+   @Test
+   public void testNextWakeUp() throws IOException {
+      Request[] requests = { new Request(10, 20, 10), new Request(20, 20, 10) };
+
+      sut.addRequests(Arrays.asList(requests));
+      assertEquals(10, sut.getNextWakeUp(0));
+
+      advance();
+      assertEquals(10, sut.getNextWakeUp(0));
+      assertEquals(11, sut.getNextWakeUp(10));
+
+      tick = 10;
+      advance();
+      assertEquals(20, sut.getNextWakeUp(10));
+
+      tick = 20;
+      advance();
+      assertEquals(ClientCodeProcessor.NEVER, sut.getNextWakeUp(20));
+   }
+
+   @Test
+   public void testRequestsAddedOutOfOrder() throws IOException {
+      Request[] requests = { new Request(30, 20, 10), new Request(10, 20, 10), new Request(20, 20, 10), new Request(15, 20, 10) };
+      for (Request request : requests)
+         when(cacheProcessor.hasFile(request)).thenReturn(true);
+
+      sut.addRequests(Arrays.asList(requests[0], requests[1]));
+      assertEquals(10, sut.getNextWakeUp(0));
+
+      advance(12);
+      verify(profiling, times(1)).cacheHit(requests[1]);
+
+      // added while others are already due, and added twice
+      sut.addRequests(Arrays.asList(requests[2], requests[3], requests[3]));
+      assertEquals(15, sut.getNextWakeUp(12));
+
+      advance(20);
+      verify(profiling, times(1)).cacheHit(requests[0]);
+      verify(profiling, times(1)).cacheHit(requests[2]);
+      verify(profiling, times(1)).cacheHit(requests[3]);
+      verify(profiling, times(4)).arrival(any(Request.class), anyLong(), anyLong(), anyInt());
+      assertEquals(ClientCodeProcessor.NEVER, sut.getNextWakeUp(32));
+   }
+
+   @Test
+   public void testSharedIndex() throws IOException {
+      Request[] requests = { new Request(10, 20, 10), new Request(20, 20, 10) };
+
+      // requests known to the index of the simulation are not known to the
+      // processor before they are added to it
+      RequestIndex index = new RequestIndex();
+      index.addAll(Arrays.asList(requests));
+      sut = new ClientCodeProcessor(owner, index);
+      sut.addRequests(Arrays.asList(requests));
+      sut.addRequests(Arrays.asList(requests[0]));
+
+      assertEquals(10, sut.getNextWakeUp(0));
+      when(cacheProcessor.hasFile(requests[0])).thenReturn(true);
+      advance(11);
+      verify(profiling, times(1)).cacheHit(requests[0]);
+      assertEquals(20, sut.getNextWakeUp(11));
+   }
+
    private void advance(int count) throws IOException {
       for (int i = 0; i < count; i++)
          advance();
@@ -1,11 +1,14 @@
 package at.borkowski.prefetchsimulation.members.client;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -96,6 +99,49 @@ public class FetchClientTest {
       verify(clientCodeProcessor).executePhase(any(SimulationContext.class));
    }
 
+   @Test
+   public void testExecutePhase_eventDriven() throws IOException {
+      sut.initialize(null, context);
+      sut.setEventDriven(true);
+      when(socketProcessor.isReady()).thenReturn(true);
+      when(clientCodeProcessor.getNextWakeUp(anyLong())).thenReturn(10L);
+      when(fetchProcessor.getNextWakeUp(anyLong())).thenReturn(20L);
+      when(fetchProcessor.getLastArrival()).thenReturn(-1L);
+
+      when(context.getCurrentTick()).thenReturn(0L);
+      sut.executePhase(context);
+      verify(clientCodeProcessor, times(1)).executePhase(any(SimulationContext.class));
+
+      when(context.getCurrentTick()).thenReturn(9L);
+      sut.executePhase(context);
+      verify(clientCodeProcessor, times(1)).executePhase(any(SimulationContext.class));
+      verify(fetchProcessor, times(1)).executePhase(any(SimulationContext.class));
+
+      when(context.getCurrentTick()).thenReturn(10L);
+      sut.executePhase(context);
+      verify(clientCodeProcessor, times(2)).executePhase(any(SimulationContext.class));
+
+      // after a fetch finished, client code is executed on the next tick
+      when(fetchProcessor.getLastArrival()).thenReturn(11L);
+      when(context.getCurrentTick()).thenReturn(11L);
+      sut.executePhase(context);
+      verify(clientCodeProcessor, times(3)).executePhase(any(SimulationContext.class));
+      assertEquals(12, sut.getNextWakeUp(11));
+   }
+
+   @Test
+   public void testExecutePhase_eventDrivenNotReady() throws IOException {
+      sut.initialize(null, context);
+      sut.setEventDriven(true);
+
+      for (long tick = 0; tick < 3; tick++) {
+         when(context.getCurrentTick()).thenReturn(tick);
+         sut.executePhase(context);
+      }
+
+      verify(socketProcessor, times(3)).executePhase(context);
+   }
+
    @Test
    public void testAddRequests() throws Exception {
       List<Request> requests = new LinkedList<>();
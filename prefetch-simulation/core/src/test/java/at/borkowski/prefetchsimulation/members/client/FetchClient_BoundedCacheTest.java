@@ -0,0 +1,117 @@
+package at.borkowski.prefetchsimulation.members.client;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import at.borkowski.prefetchsimulation.Request;
+import at.borkowski.prefetchsimulation.internal.VirtualPayload;
+import at.borkowski.prefetchsimulation.members.aux.RateControlService;
+import at.borkowski.prefetchsimulation.members.aux.RatePredictionService;
+import at.borkowski.prefetchsimulation.profiling.PrefetchProfilingService;
+import at.borkowski.scovillej.profile.Series;
+import at.borkowski.scovillej.services.comm.CommunicationService;
+import at.borkowski.scovillej.services.comm.SimulationSocket;
+import at.borkowski.scovillej.simulation.SimulationContext;
+
+/**
+ * Verifies that missed requests arriving at the same tick over several fetch
+ * slots all reach the client code, even if they do not fit into the cache
+ * together.
+ */
+public class FetchClient_BoundedCacheTest {
+
+   long tick;
+
+   @Test
+   public void testSimultaneousArrivals() throws IOException {
+      CommunicationService communicationService = mock(CommunicationService.class);
+      SimulationSocket<VirtualPayload> socket0 = socket();
+      SimulationSocket<VirtualPayload> socket1 = socket();
+      when(communicationService.beginConnect(eq("fetch"), eq(VirtualPayload.class))).thenReturn(socket0);
+      when(communicationService.beginConnect(eq("fetch-1"), eq(VirtualPayload.class))).thenReturn(socket1);
+      PrefetchProfilingService profiling = mock(PrefetchProfilingService.class);
+      SimulationContext context = context(communicationService, profiling);
+
+      FetchClient sut = new FetchClient(Arrays.asList("fetch", "fetch-1"));
+      sut.getCacheProcessor().setCapacity(15);
+      Request a = new Request(100, 10, 1);
+      Request b = new Request(100, 10, 1);
+      sut.addRequests(Arrays.asList(a, b));
+      sut.initialize(null, context);
+
+      // both are missed at 100, fetched in parallel and saved at 103
+      for (tick = 0; tick < 110; tick++)
+         sut.executePhase(context);
+
+      verify(profiling).arrival(eq(a), anyLong(), anyLong(), anyInt());
+      verify(profiling).arrival(eq(b), anyLong(), anyLong(), anyInt());
+   }
+
+   /**
+    * Returns an established socket answering each request 3 ticks later.
+    */
+   private SimulationSocket<VirtualPayload> socket() throws IOException {
+      VirtualPayload[] response = new VirtualPayload[1];
+      long[] responseAt = new long[1];
+
+      @SuppressWarnings("unchecked")
+      SimulationSocket<VirtualPayload> socket = mock(SimulationSocket.class);
+      when(socket.established()).thenReturn(true);
+      when(socket.available()).then(invocation -> response[0] != null && tick >= responseAt[0] ? 1 : 0);
+      when(socket.read()).then(invocation -> {
+         VirtualPayload ret = response[0];
+         response[0] = null;
+         return ret;
+      });
+      doAnswer(invocation -> {
+         response[0] = new VirtualPayload(((VirtualPayload) invocation.getArguments()[0]).getSize());
+         responseAt[0] = tick + 3;
+         return null;
+      }).when(socket).write(any(VirtualPayload.class));
+      return socket;
+   }
+
+   private SimulationContext context(CommunicationService communicationService, PrefetchProfilingService profiling) {
+      return new SimulationContext() {
+         @SuppressWarnings("unchecked")
+         @Override
+         public <T> T getService(Class<T> clazz) {
+            if (clazz.equals(RateControlService.class))
+               return (T) mock(RateControlService.class);
+            else if (clazz.equals(RatePredictionService.class))
+               return (T) mock(RatePredictionService.class);
+            else if (clazz.equals(CommunicationService.class))
+               return (T) communicationService;
+            else if (clazz.equals(PrefetchProfilingService.class))
+               return (T) profiling;
+            throw new RuntimeException();
+         }
+
+         @Override
+         public <T> Series<T> getSeries(String symbol, Class<T> clazz) {
+            return null;
+         }
+
+         @Override
+         public long getCurrentTick() {
+            return tick;
+         }
+
+         @Override
+         public String getCurrentPhase() {
+            return "tick";
+         }
+      };
+   }
+}
@@ -0,0 +1,189 @@
+package at.borkowski.prefetchsimulation.members.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import at.borkowski.prefetchsimulation.Request;
+import at.borkowski.prefetchsimulation.algorithms.NullAlgorithm;
+import at.borkowski.prefetchsimulation.algorithms.PrefetchAlgorithm;
+import at.borkowski.prefetchsimulation.algorithms.RespectRatePredictionAlgorithm;
+import at.borkowski.prefetchsimulation.internal.VirtualPayload;
+import at.borkowski.prefetchsimulation.members.aux.RateControlService;
+import at.borkowski.prefetchsimulation.members.aux.RatePredictionService;
+import at.borkowski.prefetchsimulation.members.aux.RatePredictionServiceProvider;
+import at.borkowski.prefetchsimulation.profiling.PrefetchProfilingService;
+import at.borkowski.scovillej.profile.Series;
+import at.borkowski.scovillej.services.comm.CommunicationService;
+import at.borkowski.scovillej.services.comm.SimulationSocket;
+import at.borkowski.scovillej.simulation.SimulationContext;
+
+/**
+ * Verifies that the event-driven mode of {@link FetchClient} yields the same
+ * results as executing it on every tick.
+ */
+public class FetchClient_EventDrivenTest {
+
+   @Test
+   public void testRespect() throws IOException {
+      Random random = new Random(31);
+      for (int run = 0; run < 20; run++)
+         compare(random, new RespectRatePredictionAlgorithm(), new RespectRatePredictionAlgorithm());
+   }
+
+   @Test
+   public void testNull() throws IOException {
+      Random random = new Random(37);
+      for (int run = 0; run < 20; run++)
+         compare(random, new NullAlgorithm(), new NullAlgorithm());
+   }
+
+   private void compare(Random random, PrefetchAlgorithm algorithm0, PrefetchAlgorithm algorithm1) throws IOException {
+      Map<Long, Integer> predictions = new HashMap<>();
+      for (int i = 0; i < 10; i++)
+         predictions.put((long) random.nextInt(3000), 5 + random.nextInt(50));
+      RatePredictionService ratePredictionService = new RatePredictionServiceProvider(predictions);
+
+      List<Request> requests = new ArrayList<>();
+      int count = 5 + random.nextInt(50);
+      for (int i = 0; i < count; i++)
+         requests.add(new Request(random.nextInt(3000) * 10 + i % 10, random.nextInt(400), 1 + random.nextInt(40)));
+
+      long lookAheadTime = 20 + random.nextInt(600);
+      long connectDelay = random.nextInt(20);
+
+      Run expected = new Run(false, algorithm0, requests, lookAheadTime, connectDelay, ratePredictionService);
+      Run actual = new Run(true, algorithm1, requests, lookAheadTime, connectDelay, ratePredictionService);
+
+      for (long tick = 0; tick < 31000; tick++) {
+         expected.advance(tick);
+         actual.advance(tick);
+      }
+
+      assertFalse(expected.log.isEmpty());
+      assertEquals(expected.log, actual.log);
+      assertEquals(expected.scheduled, actual.scheduled);
+   }
+
+   private static class Run {
+      final FetchClient sut;
+      final SimulationContext context;
+      final List<String> log = new ArrayList<>();
+      final Map<Request, Long> scheduled = new HashMap<>();
+
+      long tick;
+      VirtualPayload response;
+      long responseAt;
+
+      Run(boolean eventDriven, PrefetchAlgorithm algorithm, List<Request> requests, long lookAheadTime, long connectDelay, RatePredictionService ratePredictionService) throws IOException {
+         @SuppressWarnings("unchecked")
+         SimulationSocket<VirtualPayload> socket = mock(SimulationSocket.class);
+         when(socket.established()).then(invocation -> tick >= connectDelay);
+         when(socket.available()).then(invocation -> response != null && tick >= responseAt ? 1 : 0);
+         when(socket.read()).then(invocation -> {
+            VirtualPayload ret = response;
+            response = null;
+            return ret;
+         });
+         doAnswer(invocation -> {
+            VirtualPayload request = (VirtualPayload) invocation.getArguments()[0];
+            response = new VirtualPayload(request.getSize());
+            responseAt = tick + 3 + request.getSize() / 25;
+            return null;
+         }).when(socket).write(any(VirtualPayload.class));
+
+         CommunicationService communicationService = mock(CommunicationService.class);
+         when(communicationService.beginConnect(anyString(), eq(VirtualPayload.class))).thenReturn(socket);
+
+         PrefetchProfilingService profiling = new PrefetchProfilingService() {
+            @Override
+            public void scheduled(Request request, Long scheduledTime) {
+               scheduled.put(request, scheduledTime);
+            }
+
+            @Override
+            public void response(Request request) {
+               log.add(tick + " response " + request.getDeadline());
+            }
+
+            @Override
+            public void request(Request request) {
+               log.add(tick + " request " + request.getDeadline());
+            }
+
+            @Override
+            public void cacheHit(Request request) {
+               log.add(tick + " hit " + request.getDeadline());
+            }
+
+            @Override
+            public void arrival(Request request, long responseTime, long dataAge, int dataVolume) {
+               log.add(tick + " arrival " + request.getDeadline() + " " + responseTime + " " + dataAge);
+            }
+
+            @Override
+            public void cacheEviction(Request request) {}
+
+            @Override
+            public void cacheOccupancy(long bytes) {}
+         };
+
+         context = new SimulationContext() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public <T> T getService(Class<T> clazz) {
+               if (clazz.equals(RateControlService.class))
+                  return (T) mock(RateControlService.class);
+               else if (clazz.equals(RatePredictionService.class))
+                  return (T) ratePredictionService;
+               else if (clazz.equals(CommunicationService.class))
+                  return (T) communicationService;
+               else if (clazz.equals(PrefetchProfilingService.class))
+                  return (T) profiling;
+               throw new RuntimeException();
+            }
+
+            @Override
+            public <T> Series<T> getSeries(String symbol, Class<T> clazz) {
+               return null;
+            }
+
+            @Override
+            public long getCurrentTick() {
+               return tick;
+            }
+
+            @Override
+            public String getCurrentPhase() {
+               return "tick";
+            }
+         };
+
+         sut = new FetchClient("fetch");
+         sut.setEventDriven(eventDriven);
+         sut.getFetchProcessor().setAlgorithm(algorithm);
+         sut.getFetchProcessor().setLookAheadTime(lookAheadTime);
+         sut.addRequests(requests);
+         sut.initialize(null, context);
+      }
+
+      void advance(long tick) {
+         this.tick = tick;
+         sut.executePhase(context);
+      }
+   }
+}
@@ -1,10 +1,13 @@
 package at.borkowski.prefetchsimulation.members.client;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -43,6 +46,7 @@ public class FetchProcessorTest {
    long tick = 0;
 
    VirtualPayload data = null;
+   VirtualPayload data1 = null; // on slot 1
 
    @Before
    public void setUp() throws Exception {
@@ -55,7 +59,8 @@ public class FetchProcessorTest {
       when(owner.getCacheProcessor()).thenReturn(cacheProcessor);
       when(owner.getSocketProcessor()).thenReturn(socketProcessor);
       when(owner.getProfilingService()).thenReturn(profilingService);
-      when(socketProcessor.readIfPossible()).then(returnData());
+      when(socketProcessor.readIfPossible(0)).then(returnData());
+      when(socketProcessor.readIfPossible(1)).then(returnData1());
 
       sut = new FetchProcessor(owner);
       sut.setAlgorithm(new PrefetchAlgorithm() {
@@ -115,22 +120,32 @@ public class FetchProcessorTest {
       };
    }
 
+   private Answer<VirtualPayload> returnData1() {
+      return new Answer<VirtualPayload>() {
+         public VirtualPayload answer(InvocationOnMock invocation) throws Throwable {
+            VirtualPayload ret = data1;
+            data1 = null;
+            return ret;
+         }
+      };
+   }
+
    private void subTestRequest0() throws IOException {
       // request 0
 
       advanceUntil(110);
 
-      verify(socketProcessor, never()).request(any(Request.class));
-      verify(socketProcessor, never()).readIfPossible();
+      verify(socketProcessor, never()).request(anyInt(), any(Request.class));
+      verify(socketProcessor, never()).readIfPossible(0);
 
       advance();
 
-      verify(socketProcessor).request(requests[0]);
-      verify(socketProcessor, never()).readIfPossible();
+      verify(socketProcessor).request(0, requests[0]);
+      verify(socketProcessor, never()).readIfPossible(0);
 
       advance();
 
-      verify(socketProcessor).readIfPossible();
+      verify(socketProcessor).readIfPossible(0);
 
       advance();
       advance();
@@ -151,11 +166,11 @@ public class FetchProcessorTest {
 
       advanceUntil(213);
 
-      verify(socketProcessor, never()).request(requests[1]);
+      verify(socketProcessor, never()).request(0, requests[1]);
 
       advance();
 
-      verify(socketProcessor).request(requests[1]);
+      verify(socketProcessor).request(0, requests[1]);
 
       advance();
       advance();
@@ -184,11 +199,11 @@ public class FetchProcessorTest {
 
       sut.urge(0, requests[1]);
 
-      verify(socketProcessor, never()).request(requests[1]);
+      verify(socketProcessor, never()).request(0, requests[1]);
 
       advance();
 
-      verify(socketProcessor).request(requests[1]);
+      verify(socketProcessor).request(0, requests[1]);
 
       advance();
       advance();
@@ -205,6 +220,125 @@ public class FetchProcessorTest {
       verify(cacheProcessor).save(requests[1], 121, 115);
    }
 
+   @Test
+   public void testNextWakeUp() throws IOException {
+      // request 0 is scheduled at 110
+      assertEquals(110, sut.getNextWakeUp(0));
+      assertEquals(110, sut.getNextWakeUp(109));
+
+      // fetching starts at 110, socket has to be polled
+      advanceUntil(111);
+      assertEquals(111, sut.getNextWakeUp(110));
+
+      data = new VirtualPayload(11);
+      advance();
+
+      assertEquals(111, sut.getLastArrival());
+      assertEquals(213, sut.getNextWakeUp(111));
+   }
+
+   @Test
+   public void testNextWakeUp_lookAhead() throws IOException {
+      sut = new FetchProcessor(owner);
+      sut.setLookAheadTime(10);
+      sut.addRequests(Arrays.asList(requests));
+      sut.initialize(null, context);
+
+      assertEquals(90, sut.getNextWakeUp(0));
+
+      sut.setLookAheadTime(Long.MAX_VALUE);
+      assertEquals(1, sut.getNextWakeUp(0));
+   }
+
+   @Test
+   public void testSlots() throws IOException {
+      // scheduled at 110, 111 and 112
+      requests = new Request[] { new Request(100, 10, 1), new Request(105, 6, 1), new Request(108, 4, 1) };
+
+      PrefetchAlgorithm algorithm = sut.getAlgorithm();
+      sut = new FetchProcessor(owner, 2);
+      sut.setAlgorithm(algorithm);
+      sut.addRequests(Arrays.asList(requests));
+      sut.initialize(null, context);
+      assertEquals(2, sut.getSlots());
+
+      advanceUntil(110);
+      verify(socketProcessor, never()).request(anyInt(), any(Request.class));
+
+      advance();
+      verify(socketProcessor).request(0, requests[0]);
+
+      // the second slot is used while the first one is busy
+      advance();
+      verify(socketProcessor).request(1, requests[1]);
+
+      // a request in progress is left out when rescheduling
+      verify(profilingService, times(1)).scheduled(same(requests[0]), anyLong());
+
+      // both slots are busy
+      sut.urge(112, requests[0]);
+      advance();
+      verify(socketProcessor, never()).request(anyInt(), same(requests[2]));
+
+      data1 = new VirtualPayload(6);
+      advance();
+      verify(cacheProcessor).save(requests[1], 113, 111);
+
+      // the urged request is not fetched a second time while in progress
+      advance();
+      verify(socketProcessor).request(1, requests[2]);
+      verify(socketProcessor, times(1)).request(anyInt(), same(requests[0]));
+
+      data = new VirtualPayload(10);
+      advance();
+      verify(cacheProcessor).save(requests[0], 115, 110);
+
+      advanceUntil(120);
+      verify(socketProcessor, times(1)).request(anyInt(), same(requests[0]));
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testNoSlots() {
+      new FetchProcessor(owner, 0);
+   }
+
+   @Test
+   public void testBatching() throws IOException {
+      // scheduled at 110, 111 and 112
+      requests = new Request[] { new Request(100, 10, 1), new Request(105, 6, 1), new Request(108, 4, 1) };
+
+      PrefetchAlgorithm algorithm = sut.getAlgorithm();
+      sut = new FetchProcessor(owner);
+      sut.setAlgorithm(algorithm);
+      sut.setBatchWindow(1);
+      sut.addRequests(Arrays.asList(requests));
+      sut.initialize(null, context);
+
+      advanceUntil(110);
+      verify(socketProcessor, never()).request(anyInt(), any(Request.class));
+
+      // the request starting within the window is fetched along
+      advance();
+      verify(socketProcessor).request(0, Arrays.asList(requests[0], requests[1]));
+      verify(socketProcessor, never()).request(anyInt(), any(Request.class));
+
+      data = new VirtualPayload(16);
+      advance();
+      verify(cacheProcessor).save(requests[0], 111, 110);
+      verify(cacheProcessor).save(requests[1], 111, 110);
+      verify(profilingService).response(requests[0]);
+      verify(profilingService).response(requests[1]);
+
+      // a batch of one is an ordinary request
+      advance();
+      verify(socketProcessor).request(0, requests[2]);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testNegativeBatchWindow() {
+      sut.setBatchWindow(-2);
+   }
+
    private void advanceUntil(int tick) throws IOException {
       while (this.tick < tick)
          advance();
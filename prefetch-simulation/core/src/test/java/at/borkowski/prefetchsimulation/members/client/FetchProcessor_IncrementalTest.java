@@ -0,0 +1,217 @@
+package at.borkowski.prefetchsimulation.members.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import at.borkowski.prefetchsimulation.Request;
+import at.borkowski.prefetchsimulation.algorithms.IgnoreRatePredictionAlgorithm;
+import at.borkowski.prefetchsimulation.algorithms.IncrementalPrefetchAlgorithm;
+import at.borkowski.prefetchsimulation.algorithms.PrefetchAlgorithm;
+import at.borkowski.prefetchsimulation.algorithms.RespectRatePredictionAlgorithm;
+import at.borkowski.prefetchsimulation.internal.VirtualPayload;
+import at.borkowski.prefetchsimulation.members.aux.RateControlService;
+import at.borkowski.prefetchsimulation.members.aux.RatePredictionService;
+import at.borkowski.prefetchsimulation.members.aux.RatePredictionServiceProvider;
+import at.borkowski.prefetchsimulation.profiling.PrefetchProfilingService;
+import at.borkowski.scovillej.profile.Series;
+import at.borkowski.scovillej.simulation.SimulationContext;
+
+/**
+ * Verifies that scheduling with an {@link IncrementalPrefetchAlgorithm} yields
+ * the same fetches and reported schedules as the full recomputation.
+ */
+public class FetchProcessor_IncrementalTest {
+
+   @Test
+   public void testRespect() throws IOException {
+      Random random = new Random(1234);
+      for (int run = 0; run < 30; run++)
+         compare(random, RespectRatePredictionAlgorithm::new, false);
+   }
+
+   @Test
+   public void testRespect_equalDeadlines() throws IOException {
+      Random random = new Random(4321);
+      for (int run = 0; run < 30; run++)
+         compare(random, RespectRatePredictionAlgorithm::new, true);
+   }
+
+   @Test
+   public void testIgnore() throws IOException {
+      Random random = new Random(5678);
+      for (int run = 0; run < 30; run++)
+         compare(random, IgnoreRatePredictionAlgorithm::new, false);
+   }
+
+   @Test
+   public void testIgnore_equalDeadlines() throws IOException {
+      Random random = new Random(8765);
+      for (int run = 0; run < 30; run++)
+         compare(random, IgnoreRatePredictionAlgorithm::new, true);
+   }
+
+   private void compare(Random random, AlgorithmFactory factory, boolean equalDeadlines) throws IOException {
+      Map<Long, Integer> predictions = new HashMap<>();
+      for (int i = 0; i < 10; i++)
+         predictions.put((long) random.nextInt(3000), 5 + random.nextInt(50));
+      RatePredictionService ratePredictionService = new RatePredictionServiceProvider(predictions);
+
+      List<Long> deadlines = new ArrayList<>();
+      for (long deadline = 0; deadline < 3000; deadline++)
+         // with equal deadlines, only every 50th tick is a deadline
+         deadlines.add(equalDeadlines ? deadline - deadline % 50 : deadline);
+      Collections.shuffle(deadlines, random);
+
+      List<Request> requests = new ArrayList<>();
+      int count = 5 + random.nextInt(80);
+      for (int i = 0; i < count; i++)
+         requests.add(new Request(deadlines.get(i), random.nextInt(400), 1 + random.nextInt(40)));
+
+      long lookAheadTime = 20 + random.nextInt(600);
+
+      IncrementalPrefetchAlgorithm incremental = factory.create();
+      PrefetchAlgorithm delegate = factory.create();
+      PrefetchAlgorithm full = new PrefetchAlgorithm() {
+         @Override
+         public Map<Request, Long> schedule(Collection<Request> requests, RatePredictionService ratePredictionService) {
+            return delegate.schedule(requests, ratePredictionService);
+         }
+
+         @Override
+         public void configure(Map<String, String> configuration) {}
+      };
+
+      Run expected = new Run(full, requests, lookAheadTime, ratePredictionService);
+      Run actual = new Run(incremental, requests, lookAheadTime, ratePredictionService);
+
+      for (long tick = 0; tick < 3500; tick++) {
+         expected.advance(tick);
+         actual.advance(tick);
+         assertEquals(expected.log, actual.log);
+      }
+
+      assertFalse(expected.log.isEmpty());
+      assertEquals(expected.reported, actual.reported);
+   }
+
+   private interface AlgorithmFactory {
+      IncrementalPrefetchAlgorithm create();
+   }
+
+   private static class Run {
+      final FetchProcessor sut;
+      final List<Request> requests;
+      final CacheProcessor cacheProcessor = new CacheProcessor(mock(FetchClient.class));
+      final SimulationContext context;
+      final List<String> log = new ArrayList<>();
+      final Map<Request, Long> reported = new HashMap<>();
+
+      long tick;
+      long arrival = -1;
+
+      Run(PrefetchAlgorithm algorithm, List<Request> requests, long lookAheadTime, RatePredictionService ratePredictionService) {
+         this.requests = requests;
+
+         FetchClient owner = mock(FetchClient.class);
+         when(owner.getCacheProcessor()).thenReturn(cacheProcessor);
+         when(owner.getSocketProcessor()).thenReturn(new SocketProcessor("fetch") {
+            @Override
+            public void request(int slot, Request request) {
+               log.add(tick + " request " + requests.indexOf(request));
+               arrival = tick + 2 + request.getData() / 20;
+            }
+
+            @Override
+            public VirtualPayload readIfPossible(int slot) {
+               if (arrival < 0 || tick < arrival)
+                  return null;
+               arrival = -1;
+               return new VirtualPayload(0);
+            }
+         });
+         when(owner.getProfilingService()).thenReturn(new PrefetchProfilingService() {
+            @Override
+            public void scheduled(Request request, Long scheduledTime) {
+               reported.put(request, scheduledTime);
+            }
+
+            @Override
+            public void response(Request request) {
+               log.add(tick + " response " + requests.indexOf(request));
+            }
+
+            @Override
+            public void request(Request request) {}
+
+            @Override
+            public void cacheHit(Request request) {}
+
+            @Override
+            public void arrival(Request request, long responseTime, long dataAge, int dataVolume) {}
+
+            @Override
+            public void cacheEviction(Request request) {}
+
+            @Override
+            public void cacheOccupancy(long bytes) {}
+         });
+
+         context = new SimulationContext() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public <T> T getService(Class<T> clazz) {
+               if (clazz.equals(RateControlService.class))
+                  return (T) mock(RateControlService.class);
+               else if (clazz.equals(RatePredictionService.class))
+                  return (T) ratePredictionService;
+               throw new RuntimeException();
+            }
+
+            @Override
+            public <T> Series<T> getSeries(String symbol, Class<T> clazz) {
+               return null;
+            }
+
+            @Override
+            public long getCurrentTick() {
+               return tick;
+            }
+
+            @Override
+            public String getCurrentPhase() {
+               return "tick";
+            }
+         };
+
+         sut = new FetchProcessor(owner);
+         sut.setAlgorithm(algorithm);
+         sut.setLookAheadTime(lookAheadTime);
+         sut.addRequests(requests);
+         sut.initialize(null, context);
+      }
+
+      void advance(long tick) throws IOException {
+         this.tick = tick;
+
+         // behaves like the client code processor for missed requests
+         for (Request request : requests)
+            if (request.getDeadline() == tick && !cacheProcessor.hasFile(request))
+               sut.urge(tick, request);
+
+         sut.executePhase(context);
+      }
+   }
+}
@@ -56,7 +56,7 @@ public class FetchProcessor_LookAheadTest {
       when(owner.getCacheProcessor()).thenReturn(cacheProcessor);
       when(owner.getSocketProcessor()).thenReturn(socketProcessor);
       when(owner.getProfilingService()).thenReturn(profilingService);
-      when(socketProcessor.readIfPossible()).then(returnData());
+      when(socketProcessor.readIfPossible(0)).then(returnData());
 
       sut = new FetchProcessor(owner);
       sut.setLookAheadTime(10);
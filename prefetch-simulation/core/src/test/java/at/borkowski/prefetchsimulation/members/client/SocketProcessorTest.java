@@ -12,6 +12,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -128,7 +129,7 @@ public class SocketProcessorTest {
       advance();
       advance();
 
-      assertNull(sut.readIfPossible());
+      assertNull(sut.readIfPossible(0));
    }
 
    @Test
@@ -140,7 +141,7 @@ public class SocketProcessorTest {
 
       data = new VirtualPayload(10);
 
-      assertSame(data, sut.readIfPossible());
+      assertSame(data, sut.readIfPossible(0));
    }
 
    @Test
@@ -149,11 +150,31 @@ public class SocketProcessorTest {
       advance();
       advance();
 
-      sut.request(new Request(10, 20, 30));
+      sut.request(0, new Request(10, 20, 30));
 
       assertEquals(20, data.getSize());
    }
 
+   @Test
+   public void testWriteBatch() throws IOException {
+      established = true;
+      advance();
+      advance();
+
+      sut.request(0, Arrays.asList(new Request(10, 20, 30), new Request(11, 5, 30)));
+
+      assertEquals(25, data.getSize());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testWriteBatchTooLarge() throws IOException {
+      established = true;
+      advance();
+      advance();
+
+      sut.request(0, Arrays.asList(new Request(10, Integer.MAX_VALUE, 30), new Request(11, 1, 30)));
+   }
+
    private void advance() throws IOException {
       sut.executePhase(context);
       tick++;
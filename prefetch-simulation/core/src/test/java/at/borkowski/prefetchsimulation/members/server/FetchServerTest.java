@@ -73,4 +73,20 @@ public class FetchServerTest {
       verify(clientProcessor, times(1)).handle(context);
       
    }
+
+   @Test
+   public void testExecutePhaseAllSubHandlers() throws IOException {
+      SimulationContext context = mock(SimulationContext.class);
+      sut.initialize(mock(Simulation.class), context);
+
+      // the connections of all fetch slots are served on every tick
+      ClientProcessor clientProcessor0 = mock(ClientProcessor.class);
+      ClientProcessor clientProcessor1 = mock(ClientProcessor.class);
+      sut.registerClientProcessor(clientProcessor0);
+      sut.registerClientProcessor(clientProcessor1);
+
+      sut.executePhase(context);
+      verify(clientProcessor0).handle(context);
+      verify(clientProcessor1).handle(context);
+   }
 }
@@ -101,4 +101,16 @@ public class PrefetchProfilingServiceImplTest {
       assertEquals(1, sut.getCacheHits().getCount());
    }
 
+   @Test
+   public void testCacheEvictionAndOccupancy() throws Exception {
+      sut.cacheOccupancy(100);
+      sut.cacheOccupancy(300);
+      sut.cacheEviction(new Request(1, 200, 3));
+      sut.cacheOccupancy(150);
+
+      assertEquals(1, sut.getCacheEvictions().getCount());
+      assertEquals(3, sut.getCacheOccupancy().getCount());
+      assertEquals(300, sut.getPeakCacheOccupancy());
+   }
+
 }
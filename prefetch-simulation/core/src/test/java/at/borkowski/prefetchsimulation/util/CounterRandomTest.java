@@ -0,0 +1,51 @@
+package at.borkowski.prefetchsimulation.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CounterRandomTest {
+
+   @Test
+   public void testRepeatable() {
+      CounterRandom a = new CounterRandom(80, 1000000000L);
+      CounterRandom b = new CounterRandom(80, 1000000000L);
+
+      for (int i = 0; i < 100; i++)
+         assertEquals(a.nextLong(), b.nextLong());
+      assertEquals(a.nextGaussian(), b.nextGaussian(), 0);
+      assertEquals(a.nextDouble(), b.nextDouble(), 0);
+   }
+
+   @Test
+   public void testIndependentStreams() {
+      assertNotEquals(new CounterRandom(80, 0).nextLong(), new CounterRandom(80, 1).nextLong());
+      assertNotEquals(new CounterRandom(80, 0).nextLong(), new CounterRandom(81, 0).nextLong());
+      // neighbouring streams must not be shifted copies of each other
+      assertNotEquals(new CounterRandom(80, 1).nextLong(), skip(new CounterRandom(80, 0), 1).nextLong());
+   }
+
+   @Test
+   public void testDistribution() {
+      double sum = 0, squares = 0;
+      int n = 100000;
+      for (int i = 0; i < n; i++) {
+         CounterRandom sut = new CounterRandom(7, i);
+         double value = sut.nextDouble();
+         assertTrue(value >= 0 && value < 1);
+         double gaussian = sut.nextGaussian();
+         sum += gaussian;
+         squares += gaussian * gaussian;
+      }
+      assertEquals(0, sum / n, 0.02);
+      assertEquals(1, squares / n, 0.02);
+   }
+
+   private static CounterRandom skip(CounterRandom random, int count) {
+      for (int i = 0; i < count; i++)
+         random.nextLong();
+      return random;
+   }
+}
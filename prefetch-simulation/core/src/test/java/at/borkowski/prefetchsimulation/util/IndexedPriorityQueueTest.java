@@ -0,0 +1,133 @@
+package at.borkowski.prefetchsimulation.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IndexedPriorityQueueTest {
+
+   IndexedPriorityQueue<String> sut = new IndexedPriorityQueue<>();
+
+   @Test
+   public void testBasic() {
+      assertTrue(sut.isEmpty());
+      assertNull(sut.peek());
+      assertNull(sut.poll());
+
+      sut.put("c", 30);
+      sut.put("a", 10);
+      sut.put("b", 20);
+
+      assertEquals(3, sut.size());
+      assertEquals("a", sut.peek());
+      assertEquals(10, sut.peekPriority());
+      assertEquals(20, sut.getPriority("b").longValue());
+      assertNull(sut.getPriority("x"));
+      assertTrue(sut.elements().contains("c"));
+
+      assertEquals("a", sut.poll());
+      assertEquals("b", sut.poll());
+      assertEquals("c", sut.poll());
+      assertTrue(sut.isEmpty());
+   }
+
+   @Test
+   public void testChangePriority() {
+      sut.put("a", 10);
+      sut.put("b", 20);
+      sut.put("c", 30);
+
+      sut.put("c", 5);
+      assertEquals("c", sut.peek());
+      assertEquals(3, sut.size());
+
+      sut.put("c", 25);
+      assertEquals("a", sut.peek());
+      assertEquals(25, sut.getPriority("c").longValue());
+   }
+
+   @Test
+   public void testRemove() {
+      sut.put("a", 10);
+      sut.put("b", 20);
+      sut.put("c", 30);
+
+      assertTrue(sut.remove("a"));
+      assertFalse(sut.remove("a"));
+      assertFalse(sut.contains("a"));
+      assertEquals("b", sut.peek());
+      assertEquals(2, sut.size());
+   }
+
+   @Test(expected = NoSuchElementException.class)
+   public void testPeekPriorityEmpty() {
+      sut.peekPriority();
+   }
+
+   @Test
+   public void testRandom() {
+      testRandom(sut);
+   }
+
+   @Test
+   public void testRandomIndexed() {
+      testRandom(new IndexedPriorityQueue<String>(Integer::parseInt));
+   }
+
+   @Test
+   public void testIndexedElements() {
+      IndexedPriorityQueue<String> sut = new IndexedPriorityQueue<>(Integer::parseInt);
+      sut.put("100", 3);
+      sut.put("2", 1);
+      sut.put("100", 0);
+
+      assertEquals(2, sut.size());
+      assertTrue(sut.elements().contains("100"));
+      assertTrue(sut.elements().contains("2"));
+      assertFalse(sut.contains("5000"));
+      assertEquals("100", sut.poll());
+      assertFalse(sut.elements().contains("100"));
+   }
+
+   private static void testRandom(IndexedPriorityQueue<String> sut) {
+      Random random = new Random(99);
+      Map<String, Long> reference = new HashMap<>();
+
+      for (int step = 0; step < 5000; step++) {
+         String element = String.valueOf(random.nextInt(200));
+         int operation = random.nextInt(4);
+
+         if (operation < 2) {
+            long priority = random.nextInt(1000);
+            sut.put(element, priority);
+            reference.put(element, priority);
+         } else if (operation == 2) {
+            assertEquals(reference.remove(element) != null, sut.remove(element));
+         } else if (!reference.isEmpty()) {
+            long min = Long.MAX_VALUE;
+            for (long priority : reference.values())
+               min = Math.min(min, priority);
+            assertEquals(min, sut.peekPriority());
+            assertEquals(min, reference.remove(sut.poll()).longValue());
+         }
+
+         assertEquals(reference.size(), sut.size());
+      }
+
+      long previous = Long.MIN_VALUE;
+      while (!sut.isEmpty()) {
+         long priority = sut.peekPriority();
+         sut.poll();
+         assertTrue(previous <= priority);
+         previous = priority;
+      }
+   }
+}
@@ -0,0 +1,156 @@
+package at.borkowski.prefetchsimulation.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LineTokenizerTest {
+
+   @Test
+   public void testBasic() throws IOException {
+      LineTokenizer sut = new LineTokenizer(new StringReader("  100 request\t40 50 # comment\n\n#only comment\r\n300 end"));
+
+      assertTrue(sut.nextLine());
+      assertEquals(1, sut.getLineNumber());
+      assertEquals(4, sut.getTokenCount());
+      assertEquals(100, sut.parseLong(0));
+      assertTrue(sut.tokenEquals(1, "request"));
+      assertFalse(sut.tokenEquals(1, "requests"));
+      assertEquals(40, sut.parseInt(2));
+      assertEquals("50", sut.getToken(3));
+
+      assertTrue(sut.nextLine());
+      assertEquals(0, sut.getTokenCount());
+      assertTrue(sut.nextLine());
+      assertEquals(0, sut.getTokenCount());
+
+      assertTrue(sut.nextLine());
+      assertEquals(4, sut.getLineNumber());
+      assertArrayEquals(new String[] { "300", "end" }, sut.getTokens());
+
+      assertFalse(sut.nextLine());
+      assertFalse(sut.nextLine());
+   }
+
+   @Test(expected = ArrayIndexOutOfBoundsException.class)
+   public void testMissingToken() throws IOException {
+      LineTokenizer sut = new LineTokenizer(new StringReader("100\n"));
+      sut.nextLine();
+      sut.tokenEquals(1, "end");
+   }
+
+   @Test
+   public void testNumbers() throws IOException {
+      String[] tokens = { "0", "007", "+5", "-0", "-12", "2147483647", "2147483648", "-2147483648", "9223372036854775807", "9223372036854775808", "-9223372036854775808", "123456789012345678", "+", "-", "1a", "١٢", "0x10" };
+
+      LineTokenizer sut = new LineTokenizer(new StringReader(String.join(" ", tokens)));
+      sut.nextLine();
+
+      for (int i = 0; i < tokens.length; i++) {
+         String token = tokens[i];
+         int index = i;
+         assertEquals(token, reference(() -> Long.parseLong(token)), reference(() -> sut.parseLong(index)));
+         assertEquals(token, reference(() -> Integer.parseInt(token)), reference(() -> sut.parseInt(index)));
+      }
+   }
+
+   @Test
+   public void testLongLine() throws IOException {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < 50000; i++)
+         sb.append(i).append(' ');
+      sb.append("\nlast");
+
+      LineTokenizer sut = new LineTokenizer(new StringReader(sb.toString()));
+      assertTrue(sut.nextLine());
+      assertEquals(50000, sut.getTokenCount());
+      assertEquals(49999, sut.parseInt(49999));
+      assertTrue(sut.nextLine());
+      assertEquals("last", sut.getToken(0));
+      assertFalse(sut.nextLine());
+   }
+
+   @Test
+   public void testRandomAgainstRegex() throws IOException {
+      Random random = new Random(3);
+      String alphabet = "ab1#  \t\t\r\n\n\u000B\f-";
+
+      for (int run = 0; run < 500; run++) {
+         StringBuilder sb = new StringBuilder();
+         int length = random.nextInt(200);
+         for (int i = 0; i < length; i++)
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+         String input = sb.toString();
+
+         List<String[]> expected = new ArrayList<>();
+         BufferedReader reference = new BufferedReader(new StringReader(input));
+         String line;
+         while ((line = reference.readLine()) != null) {
+            String[] split = line.replaceAll("#.*$", "").split("\\s+");
+            while (split.length > 0 && split[0].length() == 0)
+               split = Arrays.copyOfRange(split, 1, split.length);
+            expected.add(split);
+         }
+
+         LineTokenizer sut = new LineTokenizer(new ChunkedReader(input, random));
+         for (int i = 0; i < expected.size(); i++) {
+            assertTrue(input, sut.nextLine());
+            assertEquals(i + 1, sut.getLineNumber());
+            assertArrayEquals(input, expected.get(i), sut.getTokens());
+         }
+         assertFalse(input, sut.nextLine());
+      }
+   }
+
+   private interface LongSupplier {
+      long get();
+   }
+
+   private static String reference(LongSupplier supplier) {
+      try {
+         return String.valueOf(supplier.get());
+      } catch (NumberFormatException nfEx) {
+         return "NFE " + nfEx.getMessage();
+      }
+   }
+
+   /**
+    * Returns the input in chunks of random size, so that lines (and line
+    * terminators) span several reads.
+    */
+   private static class ChunkedReader extends Reader {
+      private final String input;
+      private final Random random;
+      private int position = 0;
+
+      ChunkedReader(String input, Random random) {
+         this.input = input;
+         this.random = random;
+      }
+
+      @Override
+      public int read(char[] cbuf, int off, int len) {
+         if (position == input.length())
+            return -1;
+         int count = Math.min(Math.min(len, 1 + random.nextInt(4)), input.length() - position);
+         input.getChars(position, position + count, cbuf, off);
+         position += count;
+         return count;
+      }
+
+      @Override
+      public void close() {}
+   }
+}
@@ -0,0 +1,50 @@
+package at.borkowski.prefetchsimulation.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+public class LongColumnTest {
+
+   LongColumn sut = new LongColumn();
+
+   @Test
+   public void testPutGet() {
+      assertTrue(sut.isEmpty());
+      sut.put(3, -7);
+      sut.put(1000, Long.MAX_VALUE);
+
+      assertFalse(sut.isEmpty());
+      assertEquals(-7, sut.get(3));
+      assertEquals(Long.MAX_VALUE, sut.get(1000));
+      assertEquals(-7, sut.getOrNull(3).longValue());
+      assertNull(sut.getOrNull(4));
+      assertFalse(sut.contains(-1));
+
+      sut.put(3, 0);
+      assertEquals(0, sut.get(3));
+   }
+
+   @Test
+   public void testRemove() {
+      sut.put(5, 0);
+      sut.remove(5);
+      sut.remove(6);
+      sut.remove(-1);
+
+      assertFalse(sut.contains(5));
+      assertNull(sut.getOrNull(5));
+      assertTrue(sut.isEmpty());
+   }
+
+   @Test(expected = NoSuchElementException.class)
+   public void testGetAbsent() {
+      sut.put(1, 1);
+      sut.get(2);
+   }
+}
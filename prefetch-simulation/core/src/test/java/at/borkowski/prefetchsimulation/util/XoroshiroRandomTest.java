@@ -0,0 +1,72 @@
+package at.borkowski.prefetchsimulation.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class XoroshiroRandomTest {
+
+   @Test
+   public void test() {
+      XoroshiroRandom sut = new XoroshiroRandom(0);
+
+      assertEquals(8027914721839836897L, sut.nextLong());
+      assertEquals(-4641210657545349971L, sut.nextLong());
+      assertEquals(5256508173613850168L, sut.nextLong());
+   }
+
+   @Test
+   public void testSeed() {
+      XoroshiroRandom sut = new XoroshiroRandom(20);
+      sut.nextGaussian();
+      sut.setSeed(0);
+
+      assertEquals(8027914721839836897L, sut.nextLong());
+   }
+
+   @Test
+   public void testFork() {
+      XoroshiroRandom sut = new XoroshiroRandom(80);
+      XoroshiroRandom forked = sut.fork();
+
+      assertNotEquals(sut.nextLong(), forked.nextLong());
+      assertEquals(new XoroshiroRandom(80).fork().nextLong(), new XoroshiroRandom(80).fork().nextLong());
+   }
+
+   @Test
+   public void testDouble() {
+      XoroshiroRandom sut = new XoroshiroRandom(1);
+      double sum = 0;
+      int n = 100000;
+      for (int i = 0; i < n; i++) {
+         double value = sut.nextDouble();
+         assertTrue(value >= 0 && value < 1);
+         sum += value;
+      }
+      assertEquals(0.5, sum / n, 0.005);
+   }
+
+   @Test
+   public void testGaussian() {
+      XoroshiroRandom sut = new XoroshiroRandom(2);
+      double sum = 0, squares = 0, fourth = 0;
+      int tail = 0;
+      int n = 1000000;
+      for (int i = 0; i < n; i++) {
+         double value = sut.nextGaussian();
+         sum += value;
+         squares += value * value;
+         fourth += value * value * value * value;
+         if (Math.abs(value) > 3.442619855899)
+            tail++;
+      }
+
+      assertEquals(0, sum / n, 0.005);
+      assertEquals(1, squares / n, 0.01);
+      assertEquals(3, fourth / n, 0.05);
+      // twice the upper tail probability beyond the start of the tail
+      assertEquals(5.76e-4, (double) tail / n, 1e-4);
+   }
+}
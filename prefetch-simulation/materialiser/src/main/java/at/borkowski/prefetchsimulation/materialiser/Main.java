@@ -5,14 +5,18 @@ import java.util.Random;
 import at.borkowski.prefetchsimulation.configuration.Configuration;
 import at.borkowski.prefetchsimulation.configuration.ConfigurationReader;
 import at.borkowski.prefetchsimulation.genesis.Genesis;
+import at.borkowski.prefetchsimulation.genesis.BinaryGenesisWriter;
 import at.borkowski.prefetchsimulation.genesis.GenesisGenerator;
 import at.borkowski.prefetchsimulation.genesis.GenesisWriter;
 
 public class Main {
    public static void main(String[] args) throws Exception {
       try {
-         if (args.length != 0) {
-            System.err.println("No operations supported");
+         boolean binary = false;
+         if (args.length == 1 && "--binary".equals(args[0])) {
+            binary = true;
+         } else if (args.length != 0) {
+            System.err.println("Usage: materialiser [--binary]");
             System.exit(1);
             return;
          }
@@ -22,16 +26,26 @@ public class Main {
          ConfigurationReader configurationReader = new ConfigurationReader(System.in);
          Configuration configuration = configurationReader.read();
          GenesisGenerator generator = new GenesisGenerator(configuration);
+         generator.setParallel(true);
          if (configuration.hasSeed())
             seed = configuration.getSeed();
-         else
+         else {
+            // a random seed is not worth caching
+            generator.setCache(null);
             generator.seed(seed);
+         }
          Genesis genesis = generator.generate();
 
-         System.out.println("# materialised using seed: " + seed);
+         if (binary) {
+            // the binary format has no comments
+            System.err.println("# materialised using seed: " + seed);
+            new BinaryGenesisWriter(System.out).write(genesis);
+         } else {
+            System.out.println("# materialised using seed: " + seed);
 
-         GenesisWriter genesisWriter = new GenesisWriter(System.out);
-         genesisWriter.write(genesis);
+            GenesisWriter genesisWriter = new GenesisWriter(System.out);
+            genesisWriter.write(genesis);
+         }
       } catch (Throwable t) {
          System.err.println(t);
          t.printStackTrace();
@@ -12,6 +12,13 @@ import at.borkowski.prefetchsimulation.regression.variables.S7RelativePrediction
 import at.borkowski.prefetchsimulation.regression.variables.S8RelativePredictionTimeErrorMu;
 
 public class Main {
+   /**
+    * The system property specifying the number of worker threads used for the
+    * runs of each regression point. Defaults to the number of available
+    * processors.
+    */
+   public static final String PROPERTY_WORKERS = "regression.workers";
+
    public static void main(String[] args) {
       Map<String, RegressionAnalysis> analyses = new HashMap<>();
 
@@ -45,7 +52,8 @@ public class Main {
    }
 
    private static void doAnalysis(String name, RegressionAnalysis regressionAnalysis) {
-      RegressionHandler context = new RegressionHandler(500);
+      int workers = Integer.getInteger(PROPERTY_WORKERS, Runtime.getRuntime().availableProcessors());
+      RegressionHandler context = new RegressionHandler(500, Math.max(1, workers));
 
       System.out.println();
       System.out.println();
@@ -2,7 +2,15 @@ package at.borkowski.prefetchsimulation.regression;
 
 import java.io.IOException;
 import java.io.InputStream;
-
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import at.borkowski.prefetchsimulation.CompiledScenario;
 import at.borkowski.prefetchsimulation.PrefetchSimulationBuilder;
 import at.borkowski.prefetchsimulation.algorithms.IgnoreRatePredictionAlgorithm;
 import at.borkowski.prefetchsimulation.algorithms.NullAlgorithm;
@@ -17,7 +25,12 @@ public class RegressionHandler implements RegressionContext {
 
    private static final Configuration baseConfiguration;
 
+   private static final long BASE_SEED = 199100;
+
    private final int runCount;
+   private final int workerCount;
+
+   private ExecutorService executor;
 
    static {
       try (InputStream baseConfigurationStream = RegressionHandler.class.getResourceAsStream("/base-configuration")) {
@@ -29,20 +42,43 @@ public class RegressionHandler implements RegressionContext {
    }
 
    public RegressionHandler(int runCout) {
+      this(runCout, 1);
+   }
+
+   /**
+    * Creates a regression handler which distributes the runs of each
+    * regression point over the given number of worker threads. The output is
+    * independent of the worker count, since the results of all runs are
+    * collected in seed order before they are aggregated.
+    * 
+    * @param runCout
+    *           the number of runs (seeds) per regression point
+    * @param workerCount
+    *           the number of worker threads, 1 for serial execution
+    */
+   public RegressionHandler(int runCout, int workerCount) {
+      if (workerCount < 1)
+         throw new IllegalArgumentException("worker count must be positive");
       this.runCount = runCout;
+      this.workerCount = workerCount;
    }
 
    public void execute(RegressionAnalysis analysis) {
       System.out.println("x,URTA,URTB,URTC,DAA,DAB,DAC,HRA,HRB,HRC,URTA_s,URTB_s,URTC_s,DAA_s,DAB_s,DAC_s,HRA_s,HRB_s,HRC_s,t_URT_ac,t_URT_bc,t_DA_ac,t_DA_bc,t_max");
-      analysis.perform(this);
+
+      if (workerCount > 1)
+         executor = Executors.newFixedThreadPool(workerCount);
+      try {
+         analysis.perform(this);
+      } finally {
+         if (executor != null)
+            executor.shutdown();
+         executor = null;
+      }
    }
 
    @Override
    public void executeRun(String independentVariableLabel, Configuration configuration) {
-      Long previousSeed = null;
-      if (configuration.hasSeed())
-         previousSeed = configuration.getSeed();
-
       Quantity rtA = new Quantity();
       Quantity rtB = new Quantity();
       Quantity rtC = new Quantity();
@@ -53,30 +89,20 @@ public class RegressionHandler implements RegressionContext {
       Quantity hrB = new Quantity();
       Quantity hrC = new Quantity();
 
-      for (int i = 0; i < runCount; i++) {
-         long seed = 199100 + i;
-         configuration.setSeed(seed);
-
-         Genesis genesis = new GenesisGenerator(configuration).generate();
-         PrefetchSimulationBuilder builder;
+      // results are merged in seed order, so the aggregates do not depend on
+      // the order in which the workers finish
+      for (RunResult result : executeSeeds(configuration)) {
+         rtA.add(result.responseTime[0]);
+         daA.add(result.dataAge[0]);
+         hrA.add(result.hitRate[0]);
 
-         builder = PrefetchSimulationBuilder.fromGenesis(genesis).algorithm(new NullAlgorithm());
-         builder.create().executeToEnd();
-         rtA.add(builder.getProfiling().getResponseTime().getAverage());
-         daA.add(builder.getProfiling().getDataAge().getDoubleMedian());
-         hrA.add((double) builder.getProfiling().getCacheHits().getCount() / genesis.getRequests().size());
+         rtB.add(result.responseTime[1]);
+         daB.add(result.dataAge[1]);
+         hrB.add(result.hitRate[1]);
 
-         builder = PrefetchSimulationBuilder.fromGenesis(genesis).algorithm(new IgnoreRatePredictionAlgorithm());
-         builder.create().executeToEnd();
-         rtB.add(builder.getProfiling().getResponseTime().getAverage());
-         daB.add(builder.getProfiling().getDataAge().getDoubleMedian());
-         hrB.add((double) builder.getProfiling().getCacheHits().getCount() / genesis.getRequests().size());
-
-         builder = PrefetchSimulationBuilder.fromGenesis(genesis).algorithm(new RespectRatePredictionAlgorithm());
-         builder.create().executeToEnd();
-         rtC.add(builder.getProfiling().getResponseTime().getAverage());
-         daC.add(builder.getProfiling().getDataAge().getDoubleMedian());
-         hrC.add((double) builder.getProfiling().getCacheHits().getCount() / genesis.getRequests().size());
+         rtC.add(result.responseTime[2]);
+         daC.add(result.dataAge[2]);
+         hrC.add(result.hitRate[2]);
       }
 
       StringBuilder sb = new StringBuilder();
@@ -143,11 +169,48 @@ public class RegressionHandler implements RegressionContext {
       sb.append(Math.max(Math.max(Math.max(tURT_AC, tURT_BC), tDA_AC), tDA_BC));
 
       System.out.println(sb.toString());
+   }
 
-      if (previousSeed == null)
-         configuration.clearSeed();
-      else
-         configuration.setSeed(previousSeed);
+   private List<RunResult> executeSeeds(Configuration configuration) {
+      List<RunResult> results = new ArrayList<>(runCount);
+
+      if (executor == null) {
+         for (int i = 0; i < runCount; i++)
+            results.add(executeSeed(configuration, BASE_SEED + i));
+         return results;
+      }
+
+      List<Callable<RunResult>> tasks = new ArrayList<>(runCount);
+      for (int i = 0; i < runCount; i++) {
+         long seed = BASE_SEED + i;
+         tasks.add(() -> executeSeed(configuration, seed));
+      }
+
+      try {
+         for (Future<RunResult> future : executor.invokeAll(tasks))
+            results.add(future.get());
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException(e);
+      } catch (ExecutionException e) {
+         throw new RuntimeException(e.getCause());
+      }
+      return results;
+   }
+
+   private RunResult executeSeed(Configuration configuration, long seed) {
+      // the seed is passed to the generator instead of the configuration,
+      // which is shared between the workers
+      GenesisGenerator generator = new GenesisGenerator(configuration);
+      generator.seed(seed);
+      Genesis genesis = generator.generate();
+      CompiledScenario scenario = CompiledScenario.compile(genesis);
+
+      RunResult result = new RunResult();
+      result.measure(0, scenario, scenario.createBuilder(new NullAlgorithm()));
+      result.measure(1, scenario, scenario.createBuilder(new IgnoreRatePredictionAlgorithm()));
+      result.measure(2, scenario, scenario.createBuilder(new RespectRatePredictionAlgorithm()));
+      return result;
    }
 
    private double tTest(Quantity a, Quantity b) {
@@ -166,4 +229,16 @@ public class RegressionHandler implements RegressionContext {
       return baseConfiguration;
    }
 
+   private static class RunResult {
+      private final double[] responseTime = new double[3];
+      private final double[] dataAge = new double[3];
+      private final double[] hitRate = new double[3];
+
+      private void measure(int index, CompiledScenario scenario, PrefetchSimulationBuilder builder) {
+         builder.create().executeToEnd();
+         responseTime[index] = builder.getProfiling().getResponseTime().getAverage();
+         dataAge[index] = builder.getProfiling().getDataAge().getDoubleMedian();
+         hitRate[index] = (double) builder.getProfiling().getCacheHits().getCount() / scenario.getRequests().size();
+      }
+   }
 }
@@ -1,12 +1,14 @@
 package at.borkowski.prefetchsimulation.runnner;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Formatter;
 
+import at.borkowski.prefetchsimulation.ClientOptions;
 import at.borkowski.prefetchsimulation.PrefetchSimulationBuilder;
 import at.borkowski.prefetchsimulation.genesis.Genesis;
 import at.borkowski.prefetchsimulation.genesis.GenesisException;
-import at.borkowski.prefetchsimulation.genesis.GenesisReader;
+import at.borkowski.prefetchsimulation.genesis.GenesisLoader;
 import at.borkowski.prefetchsimulation.profiling.PrefetchProfilingResults;
 import at.borkowski.scovillej.simulation.Simulation;
 
@@ -14,8 +16,8 @@ public class Main {
 
    public static void main(String[] args) throws IOException {
       try {
-         if (args.length != 0) {
-            System.err.println("No operations supported");
+         if (args.length > 1) {
+            System.err.println("Usage: runner [<genesis-file>]");
             System.exit(1);
             return;
          }
@@ -23,7 +25,10 @@ public class Main {
          Genesis genesis = null;
 
          try {
-            genesis = new GenesisReader(System.in).read();
+            if (args.length == 1)
+               genesis = GenesisLoader.load(Paths.get(args[0]));
+            else
+               genesis = GenesisLoader.load(System.in);
          } catch (IOException | GenesisException cEx) {
             cEx.printStackTrace();
             return;
@@ -39,6 +44,11 @@ public class Main {
          System.out.println("DA:          " + profiling.getDataAge());
          System.out.println("DV:          " + profiling.getDataVolume());
          System.out.println("Hit Rate:    " + profiling.getCacheHits().getCount() + " / " + genesis.getRequests().size() + " (" + formatHitRate(profiling.getCacheHits().getCount(), genesis.getRequests().size()) + ")");
+         ClientOptions clientOptions = genesis.getClientOptions();
+         if (clientOptions.getCacheSize() != ClientOptions.UNBOUNDED) {
+            System.out.println("Evictions:   " + profiling.getCacheEvictions().getCount());
+            System.out.println("Cache Peak:  " + profiling.getPeakCacheOccupancy() + " / " + clientOptions.getCacheSize() + " (" + clientOptions.getCachePolicy().getName() + ")");
+         }
       } catch (Throwable t) {
          System.err.println(t);
          t.printStackTrace();
@@ -11,6 +11,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
+import at.borkowski.prefetchsimulation.RateTimeline;
 import at.borkowski.prefetchsimulation.Request;
 import at.borkowski.prefetchsimulation.genesis.Genesis;
 import at.borkowski.prefetchsimulation.visualiser.result.LaTeXVisualisationResult;
@@ -186,10 +187,7 @@ public class GenesisVisualiser {
       }
    }
 
-   private void createRates(Map<Long, Integer> rates, String param) {
-      List<Long> ticks = new LinkedList<>(rates.keySet());
-      Collections.sort(ticks);
-
+   private void createRates(RateTimeline rates, String param) {
       StringBuilder line = new StringBuilder();
 
       boolean first = false;
@@ -198,9 +196,9 @@ public class GenesisVisualiser {
 
       line.append("\\draw[" + param + "] ");
       double prevY = 0;
-      for (Long tick : ticks) {
-         double x = OFFSET_X + xS * tick;
-         double y = OFFSET_Y + yS * rates.get(tick);
+      for (int i = 0; i < rates.size(); i++) {
+         double x = OFFSET_X + xS * rates.getTick(i);
+         double y = OFFSET_Y + yS * rates.getRate(i);
 
          if (first)
             line.append("-- (" + x + "," + prevY + ") --");
@@ -253,10 +251,8 @@ public class GenesisVisualiser {
    private static int getMaxByterate(Genesis genesis) {
       int max = 0;
 
-      for (int value : genesis.getRatePredicted().values())
-         max = Math.max(max, value);
-      for (int value : genesis.getRateReal().values())
-         max = Math.max(max, value);
+      max = Math.max(max, genesis.getRatePredicted().getMaxRate());
+      max = Math.max(max, genesis.getRateReal().getMaxRate());
       for (Request r : genesis.getRequests())
          max = Math.max(max, r.getAvailableByterate());
 
@@ -1,32 +1,28 @@
 package at.borkowski.prefetchsimulation.visualiser;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.file.Paths;
 
 import at.borkowski.prefetchsimulation.PrefetchSimulationBuilder;
 import at.borkowski.prefetchsimulation.genesis.Genesis;
-import at.borkowski.prefetchsimulation.genesis.GenesisReader;
+import at.borkowski.prefetchsimulation.genesis.GenesisLoader;
 import at.borkowski.prefetchsimulation.profiling.PrefetchProfilingResults;
 import at.borkowski.scovillej.simulation.Simulation;
 
 public class Main {
    public static void main(String[] args) throws IOException {
       try {
-         InputStream genesisSource = System.in;
-         if (args.length != 1) {
+         if (args.length != 1 && args.length != 2) {
             usage();
             System.exit(1);
             return;
          }
 
-         Genesis genesis = null;
-
-         try {
-            genesis = new GenesisReader(genesisSource).read();
-         } finally {
-            if (genesisSource != System.in)
-               genesisSource.close();
-         }
+         Genesis genesis;
+         if (args.length == 2)
+            genesis = GenesisLoader.load(Paths.get(args[1]));
+         else
+            genesis = GenesisLoader.load(System.in);
 
          PrefetchSimulationBuilder builder = PrefetchSimulationBuilder.fromGenesis(genesis);
          Simulation sim = builder.create();
@@ -51,8 +47,9 @@ public class Main {
    }
 
    private static void usage() {
-      System.err.println("Usage: painter <operation>");
+      System.err.println("Usage: painter <operation> [<genesis-file>]");
       System.err.println();
       System.err.println("      <operation>: tex-genesis | tex-timeline");
+      System.err.println("   <genesis-file>: genesis in text or binary format (default: stdin)");
    }
 }
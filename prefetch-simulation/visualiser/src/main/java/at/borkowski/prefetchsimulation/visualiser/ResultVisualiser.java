@@ -4,8 +4,6 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -159,19 +157,11 @@ public class ResultVisualiser {
    }
 
    private double byteRateAt(long tick) {
-      List<Long> ticks = new LinkedList<>(genesis.getRateReal().keySet());
-      Collections.sort(ticks);
+      int index = genesis.getRateReal().floorIndex(tick);
 
-      Long prev = null;
-      for (long t : ticks)
-         if (t > tick)
-            break;
-         else
-            prev = t;
-
-      if (prev == null)
+      if (index < 0)
          throw new RuntimeException("limited bandwidth expected");
-      return genesis.getRateReal().get(prev);
+      return genesis.getRateReal().getRate(index);
    }
 
    private boolean isTolerable(Request request) {